@@ -0,0 +1,195 @@
+package bench;
+
+import calendar.EventStore;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthCache;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+import calendar.MonthNavigator;
+import org.openjdk.jmh.annotations.*;
+import test.CalendarPanel;
+import test.components.CalendarTableModel;
+
+import javax.swing.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH counterparts of the CalendarBenchmark targets: building the cells of a month, the cached month lookup
+ * behind the panels' 'getDateList', the rows of a month read from the table model, the month name lookup,
+ * the event counts of a month window and a month rendered by each CalendarPanel.
+ * <p>
+ * Every benchmark walks the months of the year range one per operation, under the locale of the 'locale'
+ * parameter set as the default before the targets are created. The defaults cover 1600 - 2400 in a few
+ * locales with different first days of week and month names; other values go through {@code -p}, e.g.
+ * {@code -Djmh.args="-prof gc -p locale=fa-IR -p from=1900 -p to=2100"}.
+ * <p>
+ * The panel benchmarks navigate one month and flush the navigator, which runs the panel's private
+ * 'getDateList' or 'getDaysOfMonthList' and 'setComponentsText' the way a click on the header does.
+ * They run on the EDT in batches of {@link #PANEL_BATCH} months to keep the hand-off out of the numbers;
+ * the prefetches they queue run on the EDT between batches and count towards the allocation.
+ * <p>
+ * CalendarBenchmark stays the quick regression gate, it sweeps every locale and compares against
+ * bench/baseline.txt; these give forked, statistically sound numbers with the GC profiler.
+ * Run with {@code mvn -Pjmh package exec:exec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CalendarJmh {
+    private static final int PANEL_BATCH = 64;
+
+    @Param({"en-US", "de-DE", "ar-SA", "th-TH", "ja-JP-u-ca-japanese"})
+    public String locale;
+
+    @Param("1600")
+    public int from;
+
+    @Param("2400")
+    public int to;
+
+    private final int[] counts = new int[MonthGridEngine.CELLS];
+    private Locale defaultLocale;
+    private LocaleCalendarInfo calendarInfo;
+    private MonthCache<MonthCells> monthCache;
+    private CalendarTableModel tableModel;
+    private EventStore store;
+    private MonthNavigator testPanelNavigator;
+    private MonthNavigator mainPanelNavigator;
+    private long today;
+    private int months;
+    private int step;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (from > to) {
+            throw new IllegalArgumentException("Invalid year range: " + from + " - " + to);
+        }
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag(locale));
+        calendarInfo = LocaleCalendarInfo.ofDefault();
+        today = LocalDate.now().toEpochDay();
+        months = (to - from + 1) * 12;
+        step = 0;
+        int firstDayOfWeek = calendarInfo.firstDayOfWeek();
+        // Walking hundreds of years evicts every entry, so the lookups measure the misses as well
+        monthCache = new MonthCache<>(32, (year, month) -> MonthCells.of(year, month, firstDayOfWeek, today));
+        tableModel = new CalendarTableModel(new Object[MonthGridEngine.DAYS_OF_WEEK], firstDayOfWeek);
+        store = EventStore.inMemory();
+        Random random = new Random(42);
+        long first = MonthGridEngine.epochDay(from, Calendar.JANUARY, 1);
+        long days = MonthGridEngine.epochDay(to + 1, Calendar.JANUARY, 1) - first;
+        for (int i = 0; i < 200_000; i++) {
+            store.add(first + (long) (random.nextDouble() * days), 9 * 60, 60, "Event " + i);
+        }
+        SwingUtilities.invokeAndWait(() -> {
+            testPanelNavigator = startOfRange(new CalendarPanel(Calendar.getInstance()).getNavigator());
+            mainPanelNavigator = startOfRange(mainPanelNavigator());
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    /**
+     * main.CalendarPanel is package private, only its set-up goes through reflection.
+     */
+    private static MonthNavigator mainPanelNavigator() {
+        try {
+            Class<?> type = Class.forName("main.CalendarPanel");
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Method getNavigator = type.getMethod("getNavigator");
+            getNavigator.setAccessible(true);
+            return (MonthNavigator) getNavigator.invoke(constructor.newInstance());
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create main.CalendarPanel", e);
+        }
+    }
+
+    /**
+     * Moves a panel to January of the first year, the month the walk of the range starts from.
+     */
+    private MonthNavigator startOfRange(MonthNavigator navigator) {
+        navigator.navigate(from * 12 - (navigator.getYear() * 12 + navigator.getMonth()));
+        navigator.flush();
+        return navigator;
+    }
+
+    private int nextMonth() {
+        step = step + 1 == months ? 0 : step + 1;
+        return step;
+    }
+
+    @Benchmark
+    public MonthCells monthCellsOf() {
+        int m = nextMonth();
+        return MonthCells.of(from + m / 12, m % 12, calendarInfo.firstDayOfWeek(), today);
+    }
+
+    @Benchmark
+    public MonthCells cachedMonth() {
+        int m = nextMonth();
+        return monthCache.get(from + m / 12, m % 12).withToday(today);
+    }
+
+    @Benchmark
+    public int tableModelMonth() {
+        int m = nextMonth();
+        int row = tableModel.rowOf(MonthGridEngine.epochDay(from + m / 12, m % 12, 1));
+        int sum = 0;
+        for (int week = 0; week < MonthGridEngine.WEEKS_OF_MONTH; week++) {
+            for (int day = 0; day < MonthGridEngine.DAYS_OF_WEEK; day++) {
+                sum += tableModel.dayOfMonth(row + week, day);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public String monthName() {
+        return calendarInfo.monthName(nextMonth() % 12);
+    }
+
+    @Benchmark
+    public int countEvents() {
+        int m = nextMonth();
+        return store.countEvents(MonthGridEngine.epochDay(from + m / 12, m % 12, 1) - 7, counts);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PANEL_BATCH)
+    public long testPanelMonth() throws Exception {
+        return renderMonths(testPanelNavigator);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PANEL_BATCH)
+    public long mainPanelMonth() throws Exception {
+        return renderMonths(mainPanelNavigator);
+    }
+
+    /**
+     * Renders the next batch of months on the EDT, wrapping back to the first year at the end of the range.
+     */
+    private long renderMonths(MonthNavigator navigator) throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < PANEL_BATCH; i++) {
+                navigator.navigate(nextMonth() == 0 ? 1 - months : 1);
+                navigator.flush();
+            }
+        });
+        return navigator.getRenderCount();
+    }
+}
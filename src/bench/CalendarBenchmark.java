@@ -0,0 +1,359 @@
+package bench;
+
+import calendar.EventStore;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthGridEngine;
+import test.components.CalendarTable;
+import test.components.CalendarTableModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Microbenchmarks for the calendar hot paths: building the month grid of both CalendarPanel variants,
+ * the CalendarTable column names and the rows of a month read from its model, the label text
+ * computed by 'setHeaderText' and the event counts of a month window.
+ * <p>
+ * Each benchmark sweeps every month of the year range once per locale, with a fresh target created
+ * under that locale as the default. Time is taken with System.nanoTime around the sweep only and
+ * allocation is read from the thread allocation counter, which is what the JMH GC profiler reports
+ * as gc.alloc.rate.norm. Garbage collections during the measurement are reported as well.
+ * <p>
+ * This is the quick regression gate, run against bench/baseline.txt; the JMH benchmarks in jmh/bench give
+ * forked, statistically sound numbers for the paths reachable without reflection ({@code mvn -Pjmh package exec:exec}).
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true bench.CalendarBenchmark [options]}
+ * <pre>
+ *   -locales all|default|tag,tag   locales to sweep (all)
+ *   -from year -to year            year range to sweep (1600 - 2400)
+ *   -warmup n                      warmup sweeps in the default locale (10)
+ *   -iterations n                  measured sweeps over all locales (3)
+ *   -only name,name                run only benchmarks whose name contains one of the names
+ *   -baseline file                 compare against a saved baseline and fail on regression
+ *   -threshold percent             allowed regression against the baseline (25)
+ *   -save file                     save the results as a new baseline
+ * </pre>
+ */
+public class CalendarBenchmark {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, int.class);
+
+    // Results are written here so the JIT cannot drop the benchmarked calls
+    private static Object blackhole;
+
+    /**
+     * A single benchmarked operation. 'setUp' is called once per locale outside of the measurement,
+     * 'run' is called for every month of the swept year range.
+     */
+    private interface Target {
+        void setUp() throws Throwable;
+        Object run(int year, int month) throws Throwable;
+    }
+
+    private record Result(String name, double nanosPerOp, double errorPerOp, double bytesPerOp,
+                          double allocMBPerSecond, long gcCount, long gcMillis) {}
+
+    public static void main(String[] args) throws Throwable {
+        Map<String, String> options = Options.parse(args);
+        List<Locale> locales = locales(options.getOrDefault("locales", "all"));
+        int from = Integer.parseInt(options.getOrDefault("from", "1600"));
+        int to = Integer.parseInt(options.getOrDefault("to", "2400"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "3"));
+        String only = options.get("only");
+
+        System.out.printf("# %d locales, years %d - %d, %d warmup and %d measured sweeps%n",
+                locales.size(), from, to, warmup, iterations);
+
+        Locale defaultLocale = Locale.getDefault();
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, Target> entry : targets().entrySet()) {
+            if (only != null && Arrays.stream(only.split(",")).noneMatch(entry.getKey()::contains)) {
+                continue;
+            }
+            results.add(measure(entry.getKey(), entry.getValue(), locales, from, to, warmup, iterations));
+            Locale.setDefault(defaultLocale);
+        }
+
+        System.out.printf("%n%-45s %12s %10s %12s %12s %8s %8s%n",
+                "Benchmark", "ns/op", "error", "B/op", "alloc MB/s", "gc.count", "gc.ms");
+        for (Result r : results) {
+            System.out.printf("%-45s %12.1f %10.1f %12.1f %12.1f %8d %8d%n",
+                    r.name, r.nanosPerOp, r.errorPerOp, r.bytesPerOp, r.allocMBPerSecond, r.gcCount, r.gcMillis);
+        }
+
+        if (options.containsKey("save")) {
+            save(Path.of(options.get("save")), results);
+        }
+        if (options.containsKey("baseline")) {
+            double threshold = Double.parseDouble(options.getOrDefault("threshold", "25")) / 100.0;
+            if (!compare(Path.of(options.get("baseline")), results, threshold)) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Creates the benchmarked operations. The panel methods are private, so they are reached through
+     * method handles adapted to a boxed return type, which keeps the harness working when a return type changes.
+     *
+     * @return benchmarks ordered by name
+     */
+    private static Map<String, Target> targets() throws ReflectiveOperationException {
+        Map<String, Target> targets = new LinkedHashMap<>();
+
+        Class<?> testPanel = Class.forName("test.CalendarPanel");
+        MethodHandle testPanelNew = constructor(testPanel, Calendar.class);
+        MethodHandle testGetDateList = method(testPanel, "getDateList");
+        MethodHandle testGetMonthName = method(testPanel, "getMonthName");
+        MethodHandle testYear = setter(testPanel, "currentYear");
+        MethodHandle testMonth = setter(testPanel, "currentMonth");
+
+        targets.put("test.CalendarPanel.getDateList", new Target() {
+            Object panel;
+            public void setUp() throws Throwable { panel = testPanelNew.invoke(Calendar.getInstance()); }
+            public Object run(int year, int month) throws Throwable {
+                testYear.invokeExact(panel, year);
+                testMonth.invokeExact(panel, month);
+                return (Object) testGetDateList.invokeExact(panel);
+            }
+        });
+        targets.put("test.CalendarPanel.setHeaderText.labels", new Target() {
+            Object panel;
+            public void setUp() throws Throwable { panel = testPanelNew.invoke(Calendar.getInstance()); }
+            public Object run(int year, int month) throws Throwable {
+                testMonth.invokeExact(panel, month);
+                // Same work as the label part of 'setHeaderText'
+                String yearName = String.valueOf(year);
+                String monthName = (String) (Object) testGetMonthName.invokeExact(panel);
+                return yearName.length() + monthName.length();
+            }
+        });
+
+        Class<?> mainPanel = Class.forName("main.CalendarPanel");
+        MethodHandle mainPanelNew = constructor(mainPanel);
+        MethodHandle mainGetDaysOfMonthList = method(mainPanel, "getDaysOfMonthList");
+        MethodHandle mainYear = setter(mainPanel, "currentYear");
+        MethodHandle mainMonth = setter(mainPanel, "currentMonth");
+
+        targets.put("main.CalendarPanel.getDaysOfMonthList", new Target() {
+            Object panel;
+            public void setUp() throws Throwable { panel = mainPanelNew.invoke(); }
+            public Object run(int year, int month) throws Throwable {
+                mainYear.invokeExact(panel, year);
+                mainMonth.invokeExact(panel, month);
+                return (Object) mainGetDaysOfMonthList.invokeExact(panel);
+            }
+        });
+
+        MethodHandle tableGetDaysOfWeek = method(CalendarTable.class, "getDaysOfWeek");
+
+        targets.put("test.components.CalendarTable.getDaysOfWeek", new Target() {
+            Object table;
+            public void setUp() { table = new CalendarTable(); }
+            public Object run(int year, int month) throws Throwable {
+                return (Object) tableGetDaysOfWeek.invokeExact(table);
+            }
+        });
+        targets.put("test.components.CalendarTableModel.month", new Target() {
+            CalendarTableModel model;
+            public void setUp() {
+                model = new CalendarTableModel(new Object[7], LocaleCalendarInfo.ofDefault().firstDayOfWeek());
+            }
+            public Object run(int year, int month) {
+                // Reads the 6 weeks a month view of the table shows
+                int row = model.rowOf(MonthGridEngine.epochDay(year, month, 1));
+                int sum = 0;
+                for (int week = 0; week < MonthGridEngine.WEEKS_OF_MONTH; week++) {
+                    for (int day = 0; day < MonthGridEngine.DAYS_OF_WEEK; day++) {
+                        sum += model.dayOfMonth(row + week, day);
+                    }
+                }
+                return sum;
+            }
+        });
+        targets.put("calendar.EventStore.countEvents", new Target() {
+            final int[] counts = new int[MonthGridEngine.CELLS];
+            EventStore store;
+            public void setUp() {
+                if (store == null) {
+                    // 200 000 events spread over the swept years, built once and shared by all locales
+                    store = EventStore.inMemory();
+                    Random random = new Random(42);
+                    long first = MonthGridEngine.epochDay(1600, Calendar.JANUARY, 1);
+                    long days = MonthGridEngine.epochDay(2401, Calendar.JANUARY, 1) - first;
+                    for (int i = 0; i < 200_000; i++) {
+                        store.add(first + (long) (random.nextDouble() * days), 9 * 60, 60, "Event " + i);
+                    }
+                }
+            }
+            public Object run(int year, int month) {
+                // The 42 day window of a month grid
+                return store.countEvents(MonthGridEngine.epochDay(year, month, 1) - 7, counts);
+            }
+        });
+        return targets;
+    }
+
+    private static Result measure(String name, Target target, List<Locale> locales,
+                                  int from, int to, int warmup, int iterations) throws Throwable {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.printf("%n# %s%n", name);
+
+        setUp(target);
+        for (int i = 0; i < warmup; i++) {
+            sweep(target, from, to);
+        }
+
+        long months = (long) (to - from + 1) * 12;
+        double[] nanosPerOp = new double[iterations];
+        long totalNanos = 0;
+        long totalBytes = 0;
+        long gcCount = -gcCount();
+        long gcMillis = -gcMillis();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            long nanos = 0;
+            for (Locale locale : locales) {
+                Locale.setDefault(locale);
+                setUp(target);
+
+                long bytes = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                sweep(target, from, to);
+                nanos += System.nanoTime() - start;
+                totalBytes += threads.getCurrentThreadAllocatedBytes() - bytes;
+            }
+            totalNanos += nanos;
+            nanosPerOp[iteration] = (double) nanos / (months * locales.size());
+            System.out.printf("Iteration %d: %.1f ns/op%n", iteration + 1, nanosPerOp[iteration]);
+        }
+        gcCount += gcCount();
+        gcMillis += gcMillis();
+
+        double ops = (double) months * locales.size() * iterations;
+        double mean = Arrays.stream(nanosPerOp).average().orElse(0);
+        double error = Math.sqrt(Arrays.stream(nanosPerOp).map(n -> (n - mean) * (n - mean)).sum()
+                / Math.max(1, iterations - 1));
+        double allocRate = totalNanos == 0 ? 0 : totalBytes / (1024.0 * 1024.0) / (totalNanos / 1e9);
+        return new Result(name, mean, error, totalBytes / ops, allocRate, gcCount, gcMillis);
+    }
+
+    /**
+     * Sets up the target with standard output silenced, the components print debug output when created.
+     */
+    private static void setUp(Target target) throws Throwable {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            target.setUp();
+        }
+        finally {
+            System.setOut(out);
+        }
+    }
+
+    private static void sweep(Target target, int from, int to) throws Throwable {
+        for (int year = from; year <= to; year++) {
+            for (int month = Calendar.JANUARY; month <= Calendar.DECEMBER; month++) {
+                blackhole = target.run(year, month);
+            }
+        }
+    }
+
+    /**
+     * Writes the results as a baseline, one benchmark per line: name, ns/op and B/op separated by tabs.
+     */
+    private static void save(Path file, List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# benchmark\tns/op\tB/op");
+        for (Result r : results) {
+            lines.add(String.format(Locale.ROOT, "%s\t%.1f\t%.1f", r.name, r.nanosPerOp, r.bytesPerOp));
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, lines);
+        System.out.printf("%nBaseline saved to %s%n", file);
+    }
+
+    /**
+     * Compares the results against a saved baseline. Time may not grow by more than the threshold
+     * and allocation may not grow by more than the threshold plus one object header.
+     *
+     * @return true when no benchmark regressed
+     */
+    private static boolean compare(Path file, List<Result> results, double threshold) throws IOException {
+        Map<String, double[]> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] fields = line.split("\t");
+            baseline.put(fields[0], new double[] {Double.parseDouble(fields[1]), Double.parseDouble(fields[2])});
+        }
+
+        boolean passed = true;
+        System.out.printf("%n%-45s %12s %12s %12s %12s%n", "Compared to " + file, "ns/op", "baseline", "B/op", "baseline");
+        for (Result r : results) {
+            double[] base = baseline.get(r.name);
+            if (base == null) {
+                System.out.printf("%-45s %12.1f %12s %12.1f %12s%n", r.name, r.nanosPerOp, "-", r.bytesPerOp, "-");
+                continue;
+            }
+            boolean slower = r.nanosPerOp > base[0] * (1 + threshold);
+            boolean heavier = r.bytesPerOp > base[1] * (1 + threshold) + 16;
+            passed &= !slower && !heavier;
+            System.out.printf("%-45s %12.1f %12.1f %12.1f %12.1f%s%n", r.name, r.nanosPerOp, base[0],
+                    r.bytesPerOp, base[1], slower || heavier ? "  REGRESSION" : "");
+        }
+        return passed;
+    }
+
+    private static List<Locale> locales(String option) {
+        if (option.equals("default")) {
+            return List.of(Locale.getDefault());
+        }
+        if (option.equals("all")) {
+            Locale[] available = Locale.getAvailableLocales();
+            Arrays.sort(available, Comparator.comparing(Locale::toLanguageTag));
+            return List.of(available);
+        }
+        return Arrays.stream(option.split(",")).map(Locale::forLanguageTag).toList();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static <T extends java.lang.reflect.AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) throws ReflectiveOperationException {
+        return LOOKUP.unreflectConstructor(accessible(type.getDeclaredConstructor(parameters)));
+    }
+
+    private static MethodHandle method(Class<?> type, String name) throws ReflectiveOperationException {
+        return LOOKUP.unreflect(accessible(type.getDeclaredMethod(name))).asType(GETTER);
+    }
+
+    private static MethodHandle setter(Class<?> type, String name) throws ReflectiveOperationException {
+        return LOOKUP.unreflectSetter(accessible(type.getDeclaredField(name))).asType(SETTER);
+    }
+}
@@ -0,0 +1,157 @@
+package bench;
+
+import calendar.EventStore;
+import calendar.LatencyHistogram;
+import calendar.MonthNavigator;
+import test.CalendarPanel;
+
+import javax.swing.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stress test of event ingestion against navigation: writer threads add events to the store shown by
+ * a CalendarPanel while the EDT navigates month by month, once without writers and once with them.
+ * <p>
+ * Navigation is timed on the EDT from 'navigate' through the render of the month, including the read
+ * of the 42 counts, and the delay before each step starts is reported too, which shows whether change
+ * notifications flood the event queue. With '-locked true' every step holds the store lock like the
+ * former synchronized counts did, for comparison.
+ * <p>
+ * Navigation should stay flat under ingestion: the run fails with exit code 1 when the p99 of the steps
+ * with writers is more than '-factor' times the p99 without them.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true bench.IngestionStress [options]}
+ * <pre>
+ *   -writers n       writer threads (8)
+ *   -seconds n       length of each phase (5)
+ *   -batch n         events per batch, every other write is a single add (500)
+ *   -rate n          events per second per writer, 0 for as fast as possible (25000)
+ *   -locked bool     navigate under the store lock (false)
+ *   -factor x        allowed ratio of the ingest p99 to the idle p99 (2)
+ * </pre>
+ */
+public class IngestionStress {
+    private static final int STEP_MILLIS = MonthNavigator.FRAME_MILLIS;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        int writers = Integer.parseInt(options.getOrDefault("writers", "8"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "5"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "500"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "25000"));
+        boolean locked = Boolean.parseBoolean(options.getOrDefault("locked", "false"));
+        double factor = Double.parseDouble(options.getOrDefault("factor", "2"));
+
+        EventStore store = EventStore.inMemory();
+        CalendarPanel[] panel = new CalendarPanel[1];
+        SwingUtilities.invokeAndWait(() -> {
+            panel[0] = new CalendarPanel(Calendar.getInstance());
+            panel[0].setEventStore(store);
+        });
+        MonthNavigator navigator = panel[0].getNavigator();
+
+        System.out.printf("# %d writers at %d events/s, %d s per phase, batches of %d, %s reads%n",
+                writers, rate, seconds, batch, locked ? "locked" : "lock-free");
+        // Warm up the navigation path
+        navigate(navigator, store, locked, seconds, new LatencyHistogram("warmup"), new LatencyHistogram("warmup"));
+
+        LatencyHistogram idle = new LatencyHistogram("idle");
+        LatencyHistogram idleDelay = new LatencyHistogram("idle.delay");
+        navigate(navigator, store, locked, seconds, idle, idleDelay);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder written = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        long today = LocalDate.now().toEpochDay();
+        for (int w = 0; w < writers; w++) {
+            Thread thread = new Thread(() -> write(store, today, batch, rate, running, written), "writer-" + w);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        LatencyHistogram ingest = new LatencyHistogram("ingest");
+        LatencyHistogram ingestDelay = new LatencyHistogram("ingest.delay");
+        long start = System.nanoTime();
+        navigate(navigator, store, locked, seconds, ingest, ingestDelay);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%n%-14s %8s %10s %10s %10s %10s%n", "Phase", "steps", "p50 us", "p90 us", "p99 us", "max us");
+        for (LatencyHistogram h : List.of(idle, idleDelay, ingest, ingestDelay)) {
+            System.out.printf("%-14s %8d %10.1f %10.1f %10.1f %10.1f%n", h.getName(), h.getCount(),
+                    h.getP50Micros(), h.getP90Micros(), h.getP99Micros(), h.getMaxMicros());
+        }
+        System.out.printf("%n%d events written, %.0f events/s, store version %d%n",
+                written.sum(), written.sum() / elapsed, store.getVersion());
+
+        double ratio = ingest.getP99Micros() / idle.getP99Micros();
+        System.out.printf("ingest p99 %.2fx the idle p99, %.2fx allowed%s%n",
+                ratio, factor, ratio > factor ? "  REGRESSION" : "");
+        if (ratio > factor) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Navigates back and forth one month per frame on the EDT for the given time.
+     */
+    private static void navigate(MonthNavigator navigator, EventStore store, boolean locked, int seconds,
+                                 LatencyHistogram steps, LatencyHistogram delays) throws Exception {
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int step = 0; System.nanoTime() < end; step++) {
+            int months = step % 24 < 12 ? 1 : -1;
+            long posted = System.nanoTime();
+            SwingUtilities.invokeAndWait(() -> {
+                long start = delays.recordSince(posted) + posted;
+                if (locked) {
+                    synchronized (store) {
+                        navigator.navigate(months);
+                        navigator.flush();
+                    }
+                }
+                else {
+                    navigator.navigate(months);
+                    navigator.flush();
+                }
+                steps.recordSince(start);
+            });
+            Thread.sleep(STEP_MILLIS);
+        }
+    }
+
+    /**
+     * Adds events within a year around today, alternating between single events and batches.
+     */
+    private static void write(EventStore store, long today, int batch, int rate,
+                              AtomicBoolean running, LongAdder written) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] days = new long[batch];
+        int[] starts = new int[batch];
+        int[] durations = new int[batch];
+        String[] titles = new String[batch];
+        Arrays.fill(durations, 30);
+        Arrays.fill(titles, "Imported");
+        long next = System.nanoTime();
+        while (running.get()) {
+            for (int i = 0; i < batch; i++) {
+                days[i] = today + random.nextInt(730) - 365;
+                starts[i] = 8 * 60 + 30 * random.nextInt(20);
+            }
+            store.addAll(days, starts, durations, titles, batch);
+            store.add(days[0], starts[0], 30, "Synced");
+            written.add(batch + 1);
+            if (rate > 0) {
+                next += (batch + 1) * 1_000_000_000L / rate;
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+        }
+    }
+}
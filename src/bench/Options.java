@@ -0,0 +1,29 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the benchmark and rendering tools, given as {@code -name value} pairs.
+ */
+public final class Options {
+
+    private Options() {
+    }
+
+    /**
+     * @param args pairs of an option name starting with '-' and its value
+     * @return the values by option name without the '-'
+     * @throws IllegalArgumentException when a name does not start with '-'
+     */
+    public static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("-")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            options.put(args[i].substring(1), args[i + 1]);
+        }
+        return options;
+    }
+}
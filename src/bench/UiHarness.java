@@ -0,0 +1,454 @@
+package bench;
+
+import calendar.DayMetric;
+import calendar.EventStore;
+import calendar.LatencyHistogram;
+import calendar.MonthGridEngine;
+import calendar.MonthNavigator;
+import calendar.ui.ColorScale;
+import test.CalendarPanel;
+import test.components.CalendarTable;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.List;
+
+/**
+ * End-to-end UI benchmark of the calendar components without a display: each component is created
+ * offscreen, driven through a scripted navigation sequence the way a user drives it, laid out and
+ * painted into a BufferedImage after every step.
+ * <p>
+ * The panels are navigated through 'actionPerformed' with the commands of their header buttons and the
+ * pending render is flushed, the table is scrolled to the month. Each step is timed on the EDT in three
+ * phases, the action, the layout of the invalidated components and the paint. A RepaintManager
+ * collects the repaint and revalidate requests of the components instead of scheduling them, so the
+ * paint phase paints either the whole component or only the dirty regions, like Swing would on screen,
+ * and the number of components revalidated and pixels painted per step are reported too. Allocation
+ * is read from the EDT's allocation counter around the step. A target that paints nothing in the
+ * measured steps fails the run, as its paint phase measured nothing.
+ * <p>
+ * Usage: {@code java bench.UiHarness [options]}, headless mode is switched on automatically.
+ * <pre>
+ *   -targets name,name   test.CalendarPanel, main.CalendarPanel and/or CalendarTable (all)
+ *   -script steps        comma separated commands with an optional repeat count, e.g. nextMonth*12
+ *                        (nextMonth*12,prevMonth*12,nextYear*3,prevYear*3)
+ *   -steps n             measured steps, the script is repeated as needed (600)
+ *   -warmup n            steps before measuring (600)
+ *   -paint full|dirty    paint the whole component or only the regions it asked to repaint (dirty)
+ *   -events n            sample events in the store of test.CalendarPanel (20000)
+ *   -heatmap bool        show the event counts as a heatmap, where the component supports it (false)
+ *   -images dir          write the last painted image of each target as {@code <dir>/<target>.png}, optional
+ * </pre>
+ */
+public class UiHarness {
+    private static final String DEFAULT_SCRIPT = "nextMonth*12,prevMonth*12,nextYear*3,prevYear*3";
+
+    /**
+     * A component under test and the way a step of the script is applied to it.
+     */
+    private interface Target {
+        JComponent component();
+        void step(String command) throws Throwable;
+    }
+
+    /**
+     * Collects dirty regions and invalid components instead of scheduling a repaint or validation,
+     * which would never happen for components that are not showing.
+     */
+    private static final class RecordingRepaintManager extends RepaintManager {
+        final Map<JComponent, Rectangle> dirty = new LinkedHashMap<>();
+        final Set<JComponent> invalid = new LinkedHashSet<>();
+
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            if (w <= 0 || h <= 0) {
+                return;
+            }
+            dirty.merge(c, new Rectangle(x, y, w, h), Rectangle::union);
+        }
+
+        @Override
+        public void addInvalidComponent(JComponent c) {
+            invalid.add(c);
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        System.setProperty("java.awt.headless", "true");
+        Map<String, String> options = Options.parse(args);
+        List<String> targets = Arrays.asList(options.getOrDefault("targets",
+                "test.CalendarPanel,main.CalendarPanel,CalendarTable").split(","));
+        List<String> script = script(options.getOrDefault("script", DEFAULT_SCRIPT));
+        int steps = Integer.parseInt(options.getOrDefault("steps", "600"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "600"));
+        boolean dirtyOnly = options.getOrDefault("paint", "dirty").equals("dirty");
+        int events = Integer.parseInt(options.getOrDefault("events", "20000"));
+        boolean heatmap = Boolean.parseBoolean(options.getOrDefault("heatmap", "false"));
+        Path images = options.containsKey("images") ? Path.of(options.get("images")) : null;
+        if (images != null) {
+            Files.createDirectories(images);
+        }
+
+        RecordingRepaintManager repaintManager = new RecordingRepaintManager();
+        SwingUtilities.invokeAndWait(() -> RepaintManager.setCurrentManager(repaintManager));
+        System.out.printf("# %d warmup and %d measured steps of %s, %s paint%s%n", warmup, steps,
+                options.getOrDefault("script", DEFAULT_SCRIPT), dirtyOnly ? "dirty region" : "full",
+                heatmap ? ", heatmap" : "");
+
+        List<String> unpainted = new ArrayList<>();
+        for (String name : targets) {
+            Target[] target = new Target[1];
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    target[0] = create(name.trim(), events, heatmap);
+                }
+                catch (Throwable e) {
+                    throw new IllegalStateException("Cannot create " + name, e);
+                }
+            });
+            BufferedImage image = run(name.trim(), target[0], repaintManager, script, warmup, steps, dirtyOnly, unpainted);
+            if (images != null) {
+                ImageIO.write(image, "png", images.resolve(name.trim() + ".png").toFile());
+            }
+        }
+        if (!unpainted.isEmpty()) {
+            System.out.printf("%nFAILED: %s painted no pixels%n", String.join(", ", unpainted));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Creates a target on the EDT. main.CalendarPanel is package-private, so it is created through method
+     * handles; navigation goes through the panels' public 'actionPerformed'.
+     */
+    private static Target create(String name, int events, boolean heatmap) throws Throwable {
+        ColorScale scale = ColorScale.linear(0, 8, 9, Color.LIGHT_GRAY, new Color(0xF0C040), new Color(0xC03020));
+        switch (name) {
+            case "test.CalendarPanel" -> {
+                CalendarPanel panel = new CalendarPanel(Calendar.getInstance());
+                EventStore store = sampleStore(events);
+                panel.setEventStore(store);
+                if (heatmap) {
+                    panel.setHeatmap(DayMetric.eventCount(store), scale);
+                }
+                return panelTarget(panel, panel.getNavigator());
+            }
+            case "main.CalendarPanel" -> {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                Class<?> type = Class.forName("main.CalendarPanel");
+                JComponent panel = (JComponent) lookup.unreflectConstructor(accessible(type.getDeclaredConstructor())).invoke();
+                return panelTarget(panel, navigator(lookup, type, panel));
+            }
+            case "CalendarTable", "test.components.CalendarTable" -> {
+                CalendarTable table = new CalendarTable();
+                if (heatmap) {
+                    table.setHeatmap(DayMetric.eventCount(sampleStore(events)), scale);
+                }
+                return tableTarget(table);
+            }
+            default -> throw new IllegalArgumentException("Unknown target: " + name);
+        }
+    }
+
+    private static MonthNavigator navigator(MethodHandles.Lookup lookup, Class<?> type, Object panel) throws Throwable {
+        MethodHandle getNavigator = lookup.unreflect(accessible(type.getMethod("getNavigator")))
+                .asType(MethodType.methodType(MonthNavigator.class, Object.class));
+        return (MonthNavigator) getNavigator.invokeExact(panel);
+    }
+
+    /**
+     * Clicks the header buttons of a panel by their action command and renders the month right away
+     * instead of on the navigator's next frame.
+     */
+    private static Target panelTarget(JComponent panel, MonthNavigator navigator) {
+        ActionListener listener = (ActionListener) panel;
+        return new Target() {
+            public JComponent component() {
+                return panel;
+            }
+
+            public void step(String command) {
+                listener.actionPerformed(new ActionEvent(panel, ActionEvent.ACTION_PERFORMED, command));
+                navigator.flush();
+            }
+        };
+    }
+
+    /**
+     * Scrolls the table to the first week of the month the command navigates to. Offscreen the viewport
+     * cannot blit and moving its view asks for no repaint, so a changed view position repaints the
+     * view rect, like the viewport does on screen when it cannot blit.
+     */
+    private static Target tableTarget(CalendarTable table) {
+        JViewport viewport = find(table, JViewport.class);
+        LocalDate today = LocalDate.now();
+        int[] month = {today.getYear() * 12 + today.getMonthValue() - 1};
+        return new Target() {
+            public JComponent component() {
+                return table;
+            }
+
+            public void step(String command) {
+                month[0] += switch (command) {
+                    case "prevYear" -> -12;
+                    case "nextYear" -> 12;
+                    case "prevMonth" -> -1;
+                    case "nextMonth" -> 1;
+                    default -> throw new IllegalArgumentException("Unknown command: " + command);
+                };
+                int y = viewport.getView().getY();
+                table.scrollToDate(MonthGridEngine.epochDay(month[0] / 12, month[0] % 12, 1));
+                if (viewport.getView().getY() != y) {
+                    viewport.repaint();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the first component of the type in the tree of the container, depth first
+     */
+    private static <T extends Component> T find(Container container, Class<T> type) {
+        for (Component child : container.getComponents()) {
+            if (type.isInstance(child)) {
+                return type.cast(child);
+            }
+            if (child instanceof Container nested) {
+                T found = find(nested, type);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No " + type.getSimpleName() + " in " + container.getClass().getSimpleName());
+    }
+
+    /**
+     * Lays the target out offscreen, then runs the warmup and the measured steps on the EDT and prints the results.
+     * The name of the target is added to 'unpainted' when the measured steps painted nothing.
+     *
+     * @return the image painted into
+     */
+    private static BufferedImage run(String name, Target target, RecordingRepaintManager repaintManager, List<String> script,
+                            int warmup, int steps, boolean dirtyOnly, List<String> unpainted) throws Exception {
+        JComponent component = target.component();
+        BufferedImage[] image = new BufferedImage[1];
+        SwingUtilities.invokeAndWait(() -> {
+            component.setSize(component.getPreferredSize());
+            layout(component);
+            image[0] = new BufferedImage(component.getWidth(), component.getHeight(), BufferedImage.TYPE_INT_RGB);
+        });
+        // Let the components finish their own startup work queued on the EDT, e.g. the first scroll of the table
+        SwingUtilities.invokeAndWait(() -> {});
+        // The first paint of a shown component covers all of it
+        SwingUtilities.invokeAndWait(() -> {
+            validate(repaintManager);
+            paint(component, image[0], repaintManager, false);
+        });
+
+        LatencyHistogram action = new LatencyHistogram(name + ".action");
+        LatencyHistogram layout = new LatencyHistogram(name + ".layout");
+        LatencyHistogram paint = new LatencyHistogram(name + ".paint");
+        LatencyHistogram total = new LatencyHistogram(name + ".total");
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] allocated = new long[steps];
+        long[] invalidated = new long[steps];
+        long[] painted = new long[steps];
+        for (int step = -warmup; step < steps; step++) {
+            String command = script.get(Math.floorMod(step, script.size()));
+            boolean measured = step >= 0;
+            int index = step;
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    long bytes = threads.getCurrentThreadAllocatedBytes();
+                    long start = System.nanoTime();
+                    target.step(command);
+                    long acted = System.nanoTime();
+                    int invalid = validate(repaintManager);
+                    long laidOut = System.nanoTime();
+                    long pixels = paint(component, image[0], repaintManager, dirtyOnly);
+                    long end = System.nanoTime();
+                    long stepBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+                    if (measured) {
+                        action.record(acted - start);
+                        layout.record(laidOut - acted);
+                        paint.record(end - laidOut);
+                        total.record(end - start);
+                        allocated[index] = stepBytes;
+                        invalidated[index] = invalid;
+                        painted[index] = pixels;
+                    }
+                }
+                catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        System.out.printf("%n## %s, %d x %d, %s%n", name, component.getWidth(), component.getHeight(),
+                componentCounts(component));
+        System.out.printf("%-36s %8s %10s %10s %10s %10s%n", "Phase", "steps", "p50 us", "p90 us", "p99 us", "max us");
+        for (LatencyHistogram h : List.of(action, layout, paint, total)) {
+            System.out.printf("%-36s %8d %10.1f %10.1f %10.1f %10.1f%n", h.getName(), h.getCount(),
+                    h.getP50Micros(), h.getP90Micros(), h.getP99Micros(), h.getMaxMicros());
+        }
+        System.out.printf("%-36s %10.0f mean %10d max%n", "allocated B/step", mean(allocated), max(allocated));
+        System.out.printf("%-36s %10.1f mean %10d max%n", "revalidated components/step", mean(invalidated), max(invalidated));
+        System.out.printf("%-36s %10.0f mean %10d max%n", "painted pixels/step", mean(painted), max(painted));
+        if (steps > 0 && max(painted) == 0) {
+            unpainted.add(name);
+        }
+        return image[0];
+    }
+
+    /**
+     * Lays out the components that asked for it from their validate root down, like the RepaintManager
+     * does before painting.
+     *
+     * @return number of components that were invalid
+     */
+    private static int validate(RecordingRepaintManager repaintManager) {
+        int count = repaintManager.invalid.size();
+        Set<Container> roots = new LinkedHashSet<>();
+        for (JComponent c : repaintManager.invalid) {
+            Container root = c;
+            while (root.getParent() != null && !root.isValidateRoot()) {
+                root = root.getParent();
+            }
+            roots.add(root);
+        }
+        for (Container root : roots) {
+            layout(root);
+        }
+        repaintManager.invalid.clear();
+        return count;
+    }
+
+    /**
+     * Lays out a tree of components. 'validate' does nothing without a native peer, so the layout
+     * managers are run directly.
+     */
+    private static void layout(Component component) {
+        if (component instanceof Container container) {
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layout(child);
+            }
+        }
+    }
+
+    /**
+     * Paints the component into the image, entirely or clipped to the union of the dirty regions.
+     *
+     * @return number of pixels painted
+     */
+    private static long paint(JComponent component, BufferedImage image, RecordingRepaintManager repaintManager,
+                              boolean dirtyOnly) {
+        Rectangle area = null;
+        if (dirtyOnly) {
+            for (Map.Entry<JComponent, Rectangle> entry : repaintManager.dirty.entrySet()) {
+                if (!SwingUtilities.isDescendingFrom(entry.getKey(), component)) {
+                    continue;
+                }
+                Rectangle r = SwingUtilities.convertRectangle(entry.getKey(), entry.getValue(), component)
+                        .intersection(new Rectangle(0, 0, component.getWidth(), component.getHeight()));
+                if (!r.isEmpty()) {
+                    area = area == null ? r : area.union(r);
+                }
+            }
+        }
+        else {
+            area = new Rectangle(0, 0, component.getWidth(), component.getHeight());
+        }
+        repaintManager.dirty.clear();
+        if (area == null) {
+            return 0;
+        }
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setClip(area);
+            component.paint(g2);
+        }
+        finally {
+            g2.dispose();
+        }
+        return (long) area.width * area.height;
+    }
+
+    /**
+     * @return number of components in the tree of the component by type, most frequent first
+     */
+    private static String componentCounts(Component component) {
+        Map<String, Integer> counts = new HashMap<>();
+        int total = count(component, counts);
+        StringBuilder text = new StringBuilder().append(total).append(" components");
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> text.append(", ").append(e.getValue()).append(' ').append(e.getKey()));
+        return text.toString();
+    }
+
+    private static int count(Component component, Map<String, Integer> counts) {
+        counts.merge(component.getClass().getSimpleName().isEmpty() ? component.getClass().getName()
+                : component.getClass().getSimpleName(), 1, Integer::sum);
+        int total = 1;
+        if (component instanceof Container container) {
+            for (Component child : container.getComponents()) {
+                total += count(child, counts);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return a store of sample events within a year around today, the same for every run
+     */
+    private static EventStore sampleStore(int events) {
+        EventStore store = EventStore.inMemory();
+        Random random = new Random(42);
+        long today = LocalDate.now().toEpochDay();
+        for (int i = 0; i < events; i++) {
+            store.add(today + random.nextInt(730) - 365, 8 * 60 + 30 * random.nextInt(20), 30, "Event " + i);
+        }
+        return store;
+    }
+
+    private static List<String> script(String option) {
+        List<String> commands = new ArrayList<>();
+        for (String part : option.split(",")) {
+            String[] step = part.trim().split("\\*");
+            int repeat = step.length > 1 ? Integer.parseInt(step[1]) : 1;
+            for (int i = 0; i < repeat; i++) {
+                commands.add(step[0]);
+            }
+        }
+        return commands;
+    }
+
+    private static double mean(long[] values) {
+        return values.length == 0 ? 0 : Arrays.stream(values).average().orElse(0);
+    }
+
+    private static long max(long[] values) {
+        return Arrays.stream(values).max().orElse(0);
+    }
+
+    private static <T extends java.lang.reflect.AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+}
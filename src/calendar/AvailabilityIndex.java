@@ -0,0 +1,350 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Busy days and busy 15 minute slots of resources, e.g. people or rooms, as compressed bitsets.
+ * <p>
+ * Busy days are one bit per epoch day, kept in pages of 1024 days. Pages without any busy day are
+ * not stored, so a resource costs memory only for the stretches of time it is busy. Slots are 96 bits
+ * per day, kept only for days with a busy slot. Both are found through sorted directories of primitive
+ * keys, so a lookup is a binary search that neither boxes nor allocates. Queries across resources OR
+ * the words of all resources and scan 64 days or slots at a time, so finding the next day 100 people
+ * are all free over 5 years reads about 3000 words.
+ * <p>
+ * Methods are synchronized.
+ */
+public class AvailabilityIndex {
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    // Returned when no day or slot matches
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int PAGE_WORDS = 16;
+    private static final int PAGE_DAYS = PAGE_WORDS * 64;
+    private static final int SLOT_WORDS = (SLOTS_PER_DAY + 63) / 64;
+
+    /**
+     * Word arrays of one size sorted by key. Keys are mostly added in ascending order, which appends.
+     */
+    private static final class Directory {
+        private final int words;
+        private long[] keys = new long[8];
+        private long[][] values = new long[8][];
+        private int size;
+
+        Directory(int words) {
+            this.words = words;
+        }
+
+        /**
+         * @return the words of the key or null when it has none
+         */
+        long[] get(long key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            return index >= 0 ? values[index] : null;
+        }
+
+        /**
+         * @return the words of the key, added cleared when it has none
+         */
+        long[] getOrAdd(long key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                return values[index];
+            }
+            index = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            keys[index] = key;
+            values[index] = new long[words];
+            size++;
+            return values[index];
+        }
+
+        void remove(long key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0) {
+                return;
+            }
+            size--;
+            System.arraycopy(keys, index + 1, keys, index, size - index);
+            System.arraycopy(values, index + 1, values, index, size - index);
+            values[size] = null;
+        }
+    }
+
+    /**
+     * Bitsets of a single resource.
+     */
+    private static class Resource {
+        final Directory dayPages = new Directory(PAGE_WORDS);
+        final Directory slots = new Directory(SLOT_WORDS);
+    }
+
+    private final List<Resource> resources = new ArrayList<>();
+    // Scratch page holding the OR of the pages of the queried resources
+    private final long[] union = new long[PAGE_WORDS];
+
+    /**
+     * @return index of the new resource, resources are numbered from 0
+     */
+    public synchronized int addResource() {
+        resources.add(new Resource());
+        return resources.size() - 1;
+    }
+
+    public synchronized int getResourceCount() {
+        return resources.size();
+    }
+
+    /**
+     * Marks whole days busy.
+     *
+     * @param resource     index of the resource
+     * @param fromEpochDay first busy day
+     * @param toEpochDay   last busy day
+     */
+    public synchronized void markBusy(int resource, long fromEpochDay, long toEpochDay) {
+        Resource r = resources.get(resource);
+        for (long day = fromEpochDay; day <= toEpochDay; day++) {
+            long[] page = r.dayPages.getOrAdd(Math.floorDiv(day, PAGE_DAYS));
+            int bit = Math.floorMod(day, PAGE_DAYS);
+            page[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Marks whole days free again. Pages left without busy days are dropped.
+     */
+    public synchronized void markFree(int resource, long fromEpochDay, long toEpochDay) {
+        Resource r = resources.get(resource);
+        for (long day = fromEpochDay; day <= toEpochDay; day++) {
+            long key = Math.floorDiv(day, PAGE_DAYS);
+            long[] page = r.dayPages.get(key);
+            if (page == null) {
+                // Skip to the next page
+                day = (key + 1) * PAGE_DAYS - 1;
+                continue;
+            }
+            int bit = Math.floorMod(day, PAGE_DAYS);
+            page[bit >>> 6] &= ~(1L << bit);
+            if (isEmpty(page)) {
+                r.dayPages.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Marks the slots overlapping a time span busy. Spans past midnight continue on the next days,
+     * the day itself is not marked busy.
+     *
+     * @param resource        index of the resource
+     * @param epochDay        day of the start
+     * @param startMinute     minute of the day the span starts
+     * @param durationMinutes length of the span
+     */
+    public synchronized void markBusy(int resource, long epochDay, int startMinute, int durationMinutes) {
+        Resource r = resources.get(resource);
+        long first = epochDay * SLOTS_PER_DAY + startMinute / SLOT_MINUTES;
+        long last = epochDay * SLOTS_PER_DAY + (startMinute + Math.max(1, durationMinutes) - 1) / SLOT_MINUTES;
+        for (long slot = first; slot <= last; slot++) {
+            long[] day = r.slots.getOrAdd(Math.floorDiv(slot, SLOTS_PER_DAY));
+            int bit = Math.floorMod(slot, SLOTS_PER_DAY);
+            day[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Marks the events of a store in a range of days busy: events of a whole day or more make their
+     * days busy, shorter ones their slots.
+     *
+     * @param resource     index of the resource
+     * @param store        events of the resource
+     * @param fromEpochDay first day to read
+     * @param toEpochDay   last day to read
+     */
+    public synchronized void addEvents(int resource, EventStore store, long fromEpochDay, long toEpochDay) {
+        for (long day = fromEpochDay; day <= toEpochDay; day++) {
+            if (store.countEvents(day) == 0) {
+                continue;
+            }
+            for (long id : store.eventIds(day)) {
+                EventStore.CalendarEvent event = store.get(id);
+                if (event.durationMinutes() >= 24 * 60 && event.startMinute() == 0) {
+                    markBusy(resource, day, day + event.durationMinutes() / (24 * 60) - 1);
+                }
+                else {
+                    markBusy(resource, day, event.startMinute(), event.durationMinutes());
+                }
+            }
+        }
+    }
+
+    public synchronized boolean isBusy(int resource, long epochDay) {
+        long[] page = resources.get(resource).dayPages.get(Math.floorDiv(epochDay, PAGE_DAYS));
+        int bit = Math.floorMod(epochDay, PAGE_DAYS);
+        return page != null && (page[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    /**
+     * @return the first day in the range no resource is busy on, or NONE
+     */
+    public synchronized long nextCommonFreeDay(int[] resources, long fromEpochDay, long toEpochDay) {
+        for (long key = Math.floorDiv(fromEpochDay, PAGE_DAYS); key * PAGE_DAYS <= toEpochDay; key++) {
+            long pageStart = key * PAGE_DAYS;
+            unionOf(resources, key);
+            for (int word = 0; word < PAGE_WORDS; word++) {
+                long free = ~union[word] & rangeMask(pageStart + word * 64L, fromEpochDay, toEpochDay);
+                if (free != 0) {
+                    return pageStart + word * 64L + Long.numberOfTrailingZeros(free);
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @return the first day in the range the resource is not busy on, or NONE
+     */
+    public long nextFreeDay(int resource, long fromEpochDay, long toEpochDay) {
+        return nextCommonFreeDay(new int[] {resource}, fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * @return number of days in the range no resource is busy on
+     */
+    public synchronized int commonFreeDayCount(int[] resources, long fromEpochDay, long toEpochDay) {
+        int count = 0;
+        for (long key = Math.floorDiv(fromEpochDay, PAGE_DAYS); key * PAGE_DAYS <= toEpochDay; key++) {
+            long pageStart = key * PAGE_DAYS;
+            unionOf(resources, key);
+            for (int word = 0; word < PAGE_WORDS; word++) {
+                count += Long.bitCount(~union[word] & rangeMask(pageStart + word * 64L, fromEpochDay, toEpochDay));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return number of days in the range the resource is not busy on
+     */
+    public int freeDayCount(int resource, long fromEpochDay, long toEpochDay) {
+        return commonFreeDayCount(new int[] {resource}, fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Sets free[i] to 1 when no resource is busy on day fromEpochDay + i and to 0 otherwise,
+     * e.g. to highlight the common free days of a month grid.
+     *
+     * @param resources    indexes of the resources
+     * @param fromEpochDay first day
+     * @param free         receives the flags, its length is the number of days
+     * @return number of free days
+     */
+    public synchronized int commonFreeDays(int[] resources, long fromEpochDay, int[] free) {
+        int count = 0;
+        long key = Long.MIN_VALUE;
+        for (int i = 0; i < free.length; i++) {
+            long day = fromEpochDay + i;
+            if (Math.floorDiv(day, PAGE_DAYS) != key) {
+                key = Math.floorDiv(day, PAGE_DAYS);
+                unionOf(resources, key);
+            }
+            int bit = Math.floorMod(day, PAGE_DAYS);
+            free[i] = (union[bit >>> 6] & 1L << bit) == 0 ? 1 : 0;
+            count += free[i];
+        }
+        return count;
+    }
+
+    /**
+     * Finds the first time span no resource has a busy slot in, on a day none of them is busy on.
+     *
+     * @param resources       indexes of the resources
+     * @param fromEpochDay    first day to search
+     * @param toEpochDay      last day to search
+     * @param fromMinute      first minute of the day a span may start, e.g. 8:00 as 480
+     * @param toMinute        minute of the day a span must end by, e.g. 18:00 as 1080
+     * @param durationMinutes length of the span
+     * @return start of the span in minutes since 1970-01-01 00:00, or NONE
+     */
+    public synchronized long nextCommonFreeSlot(int[] resources, long fromEpochDay, long toEpochDay,
+                                                int fromMinute, int toMinute, int durationMinutes) {
+        int firstSlot = (fromMinute + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        int endSlot = toMinute / SLOT_MINUTES;
+        int length = (durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        long[] busy = new long[SLOT_WORDS];
+        for (long day = fromEpochDay; day <= toEpochDay; day++) {
+            day = nextCommonFreeDay(resources, day, toEpochDay);
+            if (day == NONE) {
+                return NONE;
+            }
+            Arrays.fill(busy, 0);
+            for (int resource : resources) {
+                long[] slots = this.resources.get(resource).slots.get(day);
+                if (slots != null) {
+                    for (int word = 0; word < SLOT_WORDS; word++) {
+                        busy[word] |= slots[word];
+                    }
+                }
+            }
+            // Days are skipped a word at a time above, within a day the 96 slots are walked for a long enough run
+            int run = 0;
+            for (int slot = firstSlot; slot < endSlot; slot++) {
+                if ((busy[slot >>> 6] & 1L << slot) != 0) {
+                    run = 0;
+                    continue;
+                }
+                if (++run == length) {
+                    return day * 24 * 60 + (long) (slot - length + 1) * SLOT_MINUTES;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * ORs the page of all given resources into the scratch union.
+     */
+    private void unionOf(int[] resources, long key) {
+        Arrays.fill(union, 0);
+        for (int resource : resources) {
+            long[] page = this.resources.get(resource).dayPages.get(key);
+            if (page != null) {
+                for (int word = 0; word < PAGE_WORDS; word++) {
+                    union[word] |= page[word];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return bits of the 64 days starting at wordStart that lie within the range
+     */
+    private static long rangeMask(long wordStart, long fromEpochDay, long toEpochDay) {
+        long mask = -1L;
+        if (fromEpochDay > wordStart) {
+            mask = fromEpochDay - wordStart >= 64 ? 0 : mask << (fromEpochDay - wordStart);
+        }
+        if (toEpochDay < wordStart + 63) {
+            mask = toEpochDay < wordStart ? 0 : mask & (-1L >>> (63 - (toEpochDay - wordStart)));
+        }
+        return mask;
+    }
+
+    private static boolean isEmpty(long[] words) {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
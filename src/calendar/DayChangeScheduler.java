@@ -0,0 +1,184 @@
+package calendar;
+
+import javax.swing.*;
+import javax.swing.event.EventListenerList;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.EventListener;
+
+/**
+ * Process wide clock telling calendar views when "today" changes.
+ * <p>
+ * One daemon thread sleeps until the next local midnight or the next offset transition of the default
+ * time zone, whichever comes first, and then notifies all registered listeners in one event on the
+ * event dispatch thread. There is no polling: a view costs one listener entry however many views exist,
+ * and the thread waits without a timeout while no listener is registered. The zone is read again on
+ * every wake, 'refresh' wakes the thread early, e.g. after TimeZone.setDefault or a resume from sleep.
+ */
+public final class DayChangeScheduler {
+
+    /**
+     * Notified on the event dispatch thread when the local date changed.
+     */
+    @FunctionalInterface
+    public interface Listener extends EventListener {
+        /**
+         * @param todayEpochDay the new today in days since 1970-01-01
+         */
+        void dayChanged(long todayEpochDay);
+    }
+
+    private static final Object LOCK = new Object();
+    private static final EventListenerList LISTENERS = new EventListenerList();
+    private static Thread thread;
+    // Day and zone of the last wake, a change of either notifies the listeners
+    private static long lastEpochDay = Long.MIN_VALUE;
+    private static ZoneId lastZone;
+    private static long nextWakeMillis;
+    private static long wakeCount;
+    private static long notifyCount;
+
+    private DayChangeScheduler() {
+    }
+
+    /**
+     * @return today in the default time zone in days since 1970-01-01
+     */
+    public static long today() {
+        return LocalDate.now().toEpochDay();
+    }
+
+    /**
+     * Registers a listener, starting the scheduler thread on first use.
+     *
+     * @param listener the listener to add
+     */
+    public static void addListener(Listener listener) {
+        synchronized (LOCK) {
+            LISTENERS.add(Listener.class, listener);
+            if (thread == null) {
+                thread = new Thread(DayChangeScheduler::run, "day-change");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public static void removeListener(Listener listener) {
+        synchronized (LOCK) {
+            LISTENERS.remove(Listener.class, listener);
+        }
+    }
+
+    public static int getListenerCount() {
+        return LISTENERS.getListenerCount(Listener.class);
+    }
+
+    /**
+     * Wakes the scheduler to read the clock and the default time zone again, e.g. after the zone
+     * was changed with TimeZone.setDefault or the wall clock jumped while the machine was asleep.
+     * Listeners are notified when the date changed.
+     */
+    public static void refresh() {
+        synchronized (LOCK) {
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * @return wall clock time in milliseconds the scheduler sleeps until, 0 while it waits for listeners
+     */
+    public static long getNextWakeMillis() {
+        synchronized (LOCK) {
+            return nextWakeMillis;
+        }
+    }
+
+    /**
+     * @return number of times the scheduler thread woke up
+     */
+    public static long getWakeCount() {
+        synchronized (LOCK) {
+            return wakeCount;
+        }
+    }
+
+    /**
+     * @return number of day changes dispatched to the listeners
+     */
+    public static long getNotifyCount() {
+        synchronized (LOCK) {
+            return notifyCount;
+        }
+    }
+
+    /**
+     * Returns the first instant after the given one at which the local date or the zone offset changes.
+     *
+     * @param now  the current instant
+     * @param zone the time zone
+     * @return the next local midnight or offset transition, whichever is earlier
+     */
+    public static Instant nextChange(Instant now, ZoneId zone) {
+        // atStartOfDay resolves days whose midnight falls into a gap to the first valid time
+        Instant midnight = LocalDate.ofInstant(now, zone).plusDays(1).atStartOfDay(zone).toInstant();
+        ZoneOffsetTransition transition = zone.getRules().nextTransition(now);
+        if (transition != null && transition.getInstant().isBefore(midnight)) {
+            return transition.getInstant();
+        }
+        return midnight;
+    }
+
+    private static void run() {
+        synchronized (LOCK) {
+            while (true) {
+                wakeCount++;
+                ZoneId zone = ZoneId.systemDefault();
+                Instant now = Instant.now();
+                long epochDay = LocalDate.ofInstant(now, zone).toEpochDay();
+                if (lastEpochDay != Long.MIN_VALUE && (epochDay != lastEpochDay || !zone.equals(lastZone))
+                        && getListenerCount() > 0) {
+                    notifyCount++;
+                    SwingUtilities.invokeLater(() -> fireDayChanged(epochDay));
+                }
+                lastEpochDay = epochDay;
+                lastZone = zone;
+
+                try {
+                    if (getListenerCount() == 0) {
+                        nextWakeMillis = 0;
+                        LOCK.wait();
+                    }
+                    else {
+                        nextWakeMillis = nextChange(now, zone).toEpochMilli();
+                        // Waits measure elapsed time, the loop reads the wall clock again on every wake
+                        long millis = nextWakeMillis - now.toEpochMilli();
+                        LOCK.wait(Math.max(1, millis));
+                    }
+                }
+                catch (InterruptedException e) {
+                    thread = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Dispatches the new day once to each registered listener, last to first like other Swing events.
+     */
+    private static void fireDayChanged(long todayEpochDay) {
+        Object[] listeners = LISTENERS.getListenerList();
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == Listener.class) {
+                ((Listener) listeners[i + 1]).dayChanged(todayEpochDay);
+            }
+        }
+    }
+}
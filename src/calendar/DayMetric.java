@@ -0,0 +1,38 @@
+package calendar;
+
+/**
+ * Per day metric of a window of days, e.g. the event count or the booked hours, used to colour
+ * heatmaps. Values are written into a primitive array so a window costs no boxing.
+ */
+@FunctionalInterface
+public interface DayMetric {
+    /**
+     * @param fromEpochDay first day of the window
+     * @param values       receives the value of each day, its length is the window length
+     */
+    void values(long fromEpochDay, double[] values);
+
+    /**
+     * @return the number of events per day of the store
+     */
+    static DayMetric eventCount(EventStore store) {
+        return (fromEpochDay, values) -> {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = store.countEvents(fromEpochDay + i);
+            }
+        };
+    }
+
+    /**
+     * @return the hours of events per day of the store, counted on the day each event starts
+     */
+    static DayMetric bookedHours(EventStore store) {
+        return (fromEpochDay, values) -> {
+            int[] minutes = new int[values.length];
+            store.readBookedMinutes(fromEpochDay, minutes);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = minutes[i] / 60.0;
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package calendar;
+
+import java.time.LocalDate;
+import java.util.EventListener;
+
+/**
+ * Listener notified when the range of days selected in a calendar view changes,
+ * e.g. while the mouse is dragged across the day cells.
+ */
+@FunctionalInterface
+public interface DayRangeListener extends EventListener {
+
+    /**
+     * Invoked on the event dispatch thread when the selected range changed.
+     *
+     * @param from first selected date or null when the selection was cleared
+     * @param to   last selected date, never before 'from', or null when the selection was cleared
+     */
+    void rangeSelected(LocalDate from, LocalDate to);
+}
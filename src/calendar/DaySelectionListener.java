@@ -0,0 +1,19 @@
+package calendar;
+
+import java.time.LocalDate;
+import java.util.EventListener;
+
+/**
+ * Listener notified when a day cell of a calendar view is clicked.
+ * Each click is dispatched exactly once to every registered listener.
+ */
+@FunctionalInterface
+public interface DaySelectionListener extends EventListener {
+
+    /**
+     * Invoked on the event dispatch thread when a day is selected.
+     *
+     * @param date the selected date
+     */
+    void daySelected(LocalDate date);
+}
@@ -0,0 +1,207 @@
+package calendar;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histograms of the calendar views and a watchdog of the event dispatch thread.
+ * <p>
+ * The views record navigation, model build, render and paint times into the static histograms, which
+ * is always on and allocation free. Once installed the monitor also times the dispatch of every EDT
+ * event through a pushed EventQueue, flags events over the budget, and measures the queue delay by
+ * posting a probe to the EDT every 50 ms. Everything is registered with the platform MBean server
+ * under the "calendar" domain and can be dumped to System.out periodically.
+ */
+public final class EdtMonitor implements EdtMonitorMBean {
+    public static final LatencyHistogram NAVIGATION  = new LatencyHistogram("navigation");
+    public static final LatencyHistogram MODEL_BUILD = new LatencyHistogram("modelBuild");
+    public static final LatencyHistogram RENDER      = new LatencyHistogram("render");
+    public static final LatencyHistogram PAINT       = new LatencyHistogram("paint");
+    public static final LatencyHistogram QUEUE_DELAY = new LatencyHistogram("queueDelay");
+    public static final LatencyHistogram DISPATCH    = new LatencyHistogram("dispatch");
+    private static final List<LatencyHistogram> HISTOGRAMS =
+            List.of(NAVIGATION, MODEL_BUILD, RENDER, PAINT, QUEUE_DELAY, DISPATCH);
+
+    private static final long PROBE_MILLIS = 50;
+    private static final EdtMonitor INSTANCE = new EdtMonitor();
+
+    private final AtomicLong overBudgetCount = new AtomicLong();
+    private volatile long budgetNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("calendar.edt.budget", 16));
+    private volatile String lastOverBudgetEvent = "";
+    private volatile long probePosted;
+    private volatile boolean probePending;
+    private final Runnable probe = () -> {
+        QUEUE_DELAY.recordSince(probePosted);
+        probePending = false;
+    };
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> logTask;
+    private long logPeriodSeconds;
+
+    private EdtMonitor() {
+    }
+
+    /**
+     * @return the monitor, whether installed or not
+     */
+    public static EdtMonitor get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts timing EDT events and probing the queue delay and registers the MBeans. Further calls do nothing.
+     * The "calendar.edt.log" system property sets the period of the log dump in seconds.
+     *
+     * @return the monitor
+     */
+    public static synchronized EdtMonitor install() {
+        if (INSTANCE.scheduler != null) {
+            return INSTANCE;
+        }
+        INSTANCE.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "calendar-edt-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TimingEventQueue());
+        INSTANCE.scheduler.scheduleAtFixedRate(INSTANCE::postProbe, PROBE_MILLIS, PROBE_MILLIS, TimeUnit.MILLISECONDS);
+        INSTANCE.registerMBeans();
+        INSTANCE.setLogPeriodSeconds(Long.getLong("calendar.edt.log", 0));
+        return INSTANCE;
+    }
+
+    @Override
+    public long getBudgetMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(budgetNanos);
+    }
+
+    /**
+     * @param budgetMillis EDT events taking longer are counted and the last one kept for the MBean and the dump
+     */
+    @Override
+    public void setBudgetMillis(long budgetMillis) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    @Override
+    public long getOverBudgetCount() {
+        return overBudgetCount.get();
+    }
+
+    @Override
+    public String getLastOverBudgetEvent() {
+        return lastOverBudgetEvent;
+    }
+
+    @Override
+    public synchronized long getLogPeriodSeconds() {
+        return logPeriodSeconds;
+    }
+
+    /**
+     * @param seconds period of the dump to System.out, 0 to stop logging
+     */
+    @Override
+    public synchronized void setLogPeriodSeconds(long seconds) {
+        if (logTask != null) {
+            logTask.cancel(false);
+            logTask = null;
+        }
+        logPeriodSeconds = Math.max(0, seconds);
+        if (logPeriodSeconds > 0 && scheduler != null) {
+            logTask = scheduler.scheduleAtFixedRate(() -> System.out.print(dump()),
+                    logPeriodSeconds, logPeriodSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return one line per histogram and the over budget count
+     */
+    @Override
+    public String dump() {
+        StringBuilder dump = new StringBuilder();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            dump.append(histogram).append('\n');
+        }
+        dump.append("over budget (").append(getBudgetMillis()).append(" ms): ").append(overBudgetCount.get());
+        if (!lastOverBudgetEvent.isEmpty()) {
+            dump.append(", last ").append(lastOverBudgetEvent);
+        }
+        return dump.append('\n').toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        overBudgetCount.set(0);
+        lastOverBudgetEvent = "";
+    }
+
+    /**
+     * Posts the probe unless the previous one is still queued, so a stalled EDT is not flooded with probes.
+     */
+    private void postProbe() {
+        if (probePending) {
+            return;
+        }
+        probePending = true;
+        probePosted = System.nanoTime();
+        EventQueue.invokeLater(probe);
+    }
+
+    private void dispatched(AWTEvent event, long nanos) {
+        DISPATCH.record(nanos);
+        if (nanos > budgetNanos) {
+            // Only slow events pay for the description, reported through the MBean and the periodic
+            // dump rather than printed, a stalled EDT would otherwise flood the console
+            overBudgetCount.incrementAndGet();
+            lastOverBudgetEvent = String.format("%s took %.1f ms", describe(event), nanos / 1e6);
+        }
+    }
+
+    private static String describe(AWTEvent event) {
+        String source = event.getSource() == null ? "" : " on " + event.getSource().getClass().getSimpleName();
+        return event.getClass().getSimpleName() + "[" + event.getID() + "]" + source;
+    }
+
+    private void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName("calendar:type=EdtMonitor"));
+            for (LatencyHistogram histogram : HISTOGRAMS) {
+                server.registerMBean(histogram, new ObjectName("calendar:type=Latency,name=" + histogram.getName()));
+            }
+        }
+        catch (JMException e) {
+            System.err.println("Cannot register calendar MBeans: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Times the dispatch of every event. Events dispatched by a nested loop, e.g. of a modal dialog,
+     * are timed on their own and also count towards the event that opened the loop.
+     */
+    private static class TimingEventQueue extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = System.nanoTime();
+            try {
+                super.dispatchEvent(event);
+            }
+            finally {
+                INSTANCE.dispatched(event, System.nanoTime() - start);
+            }
+        }
+    }
+}
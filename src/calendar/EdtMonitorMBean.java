@@ -0,0 +1,22 @@
+package calendar;
+
+/**
+ * JMX view of the EdtMonitor, the latency histograms are registered as separate LatencyHistogram beans.
+ */
+public interface EdtMonitorMBean {
+    long getBudgetMillis();
+
+    void setBudgetMillis(long budgetMillis);
+
+    long getOverBudgetCount();
+
+    String getLastOverBudgetEvent();
+
+    long getLogPeriodSeconds();
+
+    void setLogPeriodSeconds(long seconds);
+
+    String dump();
+
+    void reset();
+}
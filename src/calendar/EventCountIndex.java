@@ -0,0 +1,208 @@
+package calendar;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per day event counts and booked minutes partitioned by month, written by many threads and read without locks.
+ * <p>
+ * Each month is an immutable snapshot of its day counts and minutes stamped with a version from a global clock.
+ * Writers replace the snapshot of a month under one of 64 striped locks, so writers of different months
+ * never wait for each other, and readers get a month with a single volatile read. A 42 day window spans
+ * at most three months, so reading it costs three lookups; its version is the highest version of its
+ * months, which changes exactly when a month of the window changes, and each month read is complete.
+ * <p>
+ * Months are kept in pages of 256 months (about 21 years) found through a small sorted directory
+ * that is copied when a page is added, so reads do not allocate.
+ */
+final class EventCountIndex {
+    private static final int STRIPES = 64;
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_MONTHS = 1 << PAGE_BITS;
+
+    /**
+     * Immutable counts and booked minutes of the days of one month.
+     */
+    private record Month(long version, int[] counts, int[] minutes) {}
+
+    /**
+     * Months of one page, slots are replaced as a whole.
+     */
+    private record Page(long key, AtomicReferenceArray<Month> months) {}
+
+    private final Object[] stripes = new Object[STRIPES];
+    private final AtomicLong clock = new AtomicLong();
+    // Sorted by key, replaced under the directory lock when a page is added
+    private volatile Page[] pages = new Page[0];
+
+    EventCountIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Adds to the counts of one day.
+     *
+     * @param epochDay the day
+     * @param delta    number of events added, negative for removed ones
+     * @param minutes  minutes booked by them, negative for removed ones
+     */
+    void add(long epochDay, int delta, int minutes) {
+        addAll(new long[] {epochDay}, new int[] {delta}, new int[] {minutes}, 1);
+    }
+
+    /**
+     * Adds to the counts of many days. Each run of days in the same month replaces that month once,
+     * so days sorted ascending replace every touched month exactly once.
+     *
+     * @param epochDays the days
+     * @param deltas    number of events added per day, or null to add one per day
+     * @param minutes   minutes booked per day, or null to add none
+     * @param count     number of days from the start of the arrays
+     */
+    void addAll(long[] epochDays, int[] deltas, int[] minutes, int count) {
+        int i = 0;
+        while (i < count) {
+            int date = MonthGridEngine.date(epochDays[i]);
+            long monthKey = monthKey(date);
+            long first = epochDays[i] - MonthGridEngine.dayOfMonth(date) + 1;
+            long next = first + MonthGridEngine.daysInMonth(MonthGridEngine.year(date), MonthGridEngine.month(date));
+            synchronized (stripes[(int) (monthKey & STRIPES - 1)]) {
+                AtomicReferenceArray<Month> months = page(monthKey, true).months();
+                int slot = (int) (monthKey & PAGE_MONTHS - 1);
+                Month month = months.get(slot);
+                int[] counts = month == null ? new int[31] : month.counts().clone();
+                int[] booked = month == null ? new int[31] : minutes == null ? month.minutes() : month.minutes().clone();
+                for (; i < count && epochDays[i] >= first && epochDays[i] < next; i++) {
+                    counts[(int) (epochDays[i] - first)] += deltas == null ? 1 : deltas[i];
+                    if (minutes != null) {
+                        booked[(int) (epochDays[i] - first)] += minutes[i];
+                    }
+                }
+                months.set(slot, new Month(clock.incrementAndGet(), counts, booked));
+            }
+        }
+    }
+
+    int count(long epochDay) {
+        int date = MonthGridEngine.date(epochDay);
+        Month month = month(monthKey(date));
+        return month == null ? 0 : month.counts()[MonthGridEngine.dayOfMonth(date) - 1];
+    }
+
+    /**
+     * Reads the counts of consecutive days without locking.
+     *
+     * @param fromEpochDay first day
+     * @param counts       receives the count of each day, its length is the number of days
+     * @return version of the window, 0 when no event was ever counted in its months
+     */
+    long read(long fromEpochDay, int[] counts) {
+        return read(fromEpochDay, counts, false);
+    }
+
+    /**
+     * Reads the booked minutes of consecutive days like 'read' reads the counts.
+     */
+    long readMinutes(long fromEpochDay, int[] minutes) {
+        return read(fromEpochDay, minutes, true);
+    }
+
+    private long read(long fromEpochDay, int[] counts, boolean minutes) {
+        long version = 0;
+        int i = 0;
+        while (i < counts.length) {
+            int date = MonthGridEngine.date(fromEpochDay + i);
+            int day = MonthGridEngine.dayOfMonth(date) - 1;
+            int days = MonthGridEngine.daysInMonth(MonthGridEngine.year(date), MonthGridEngine.month(date));
+            Month month = month(monthKey(date));
+            int n = Math.min(days - day, counts.length - i);
+            if (month == null) {
+                Arrays.fill(counts, i, i + n, 0);
+            }
+            else {
+                System.arraycopy(minutes ? month.minutes() : month.counts(), day, counts, i, n);
+                version = Math.max(version, month.version());
+            }
+            i += n;
+        }
+        return version;
+    }
+
+    /**
+     * @return version of the window without reading its counts, see 'read'
+     */
+    long version(long fromEpochDay, int days) {
+        long version = 0;
+        long day = fromEpochDay;
+        long end = fromEpochDay + days;
+        while (day < end) {
+            int date = MonthGridEngine.date(day);
+            Month month = month(monthKey(date));
+            if (month != null) {
+                version = Math.max(version, month.version());
+            }
+            day += MonthGridEngine.daysInMonth(MonthGridEngine.year(date), MonthGridEngine.month(date))
+                    - MonthGridEngine.dayOfMonth(date) + 1;
+        }
+        return version;
+    }
+
+    /**
+     * @return version of the last change of any month
+     */
+    long version() {
+        return clock.get();
+    }
+
+    private Month month(long monthKey) {
+        Page page = page(monthKey, false);
+        return page == null ? null : page.months().get((int) (monthKey & PAGE_MONTHS - 1));
+    }
+
+    /**
+     * Finds the page of a month by binary search, adding it when asked to.
+     */
+    private Page page(long monthKey, boolean create) {
+        long key = monthKey >> PAGE_BITS;
+        Page[] pages = this.pages;
+        int index = search(pages, key);
+        if (index >= 0 || !create) {
+            return index >= 0 ? pages[index] : null;
+        }
+        synchronized (this) {
+            pages = this.pages;
+            index = search(pages, key);
+            if (index >= 0) {
+                return pages[index];
+            }
+            int insert = -index - 1;
+            Page page = new Page(key, new AtomicReferenceArray<>(PAGE_MONTHS));
+            Page[] copy = new Page[pages.length + 1];
+            System.arraycopy(pages, 0, copy, 0, insert);
+            copy[insert] = page;
+            System.arraycopy(pages, insert, copy, insert + 1, pages.length - insert);
+            this.pages = copy;
+            return page;
+        }
+    }
+
+    private static int search(Page[] pages, long key) {
+        int low = 0;
+        int high = pages.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long k = pages[mid].key();
+            if (k < key) low = mid + 1;
+            else if (k > key) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    private static long monthKey(int date) {
+        return MonthGridEngine.year(date) * 12L + MonthGridEngine.month(date);
+    }
+}
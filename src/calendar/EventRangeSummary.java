@@ -0,0 +1,183 @@
+package calendar;
+
+/**
+ * Totals of any range of days from an EventStore in constant time: the number of events,
+ * the booked minutes and the free days, i.e. days without any event.
+ * <p>
+ * Each year is read once into prefix sums over its days, and the years read so far form one contiguous
+ * span with running totals per year, so a range is the difference of at most two prefix entries per
+ * end plus the running totals of the whole years in between, however many years it spans. Years are
+ * read when a range first reaches them, a few microseconds each with the lock-free reads of the store.
+ * <p>
+ * When the store changed since the last query, the version of every year in the span is compared and
+ * only changed years are read again, so ingestion costs a version check per year and no day iteration.
+ * Not thread-safe, meant to be used on the EDT.
+ */
+public class EventRangeSummary {
+
+    /**
+     * Totals of a range of days.
+     */
+    public record Summary(long fromEpochDay, long toEpochDay, int events, long bookedMinutes, int freeDays) {
+        public int days() {
+            return (int) (toEpochDay - fromEpochDay + 1);
+        }
+    }
+
+    /**
+     * Prefix sums of one year, element i holds the totals of the days before day i of the year.
+     */
+    private static final class Year {
+        final long firstEpochDay;
+        final int days;
+        final int[] events;
+        final long[] minutes;
+        final int[] free;
+        long version;
+
+        Year(int year) {
+            this.firstEpochDay = MonthGridEngine.epochDay(year, 0, 1);
+            this.days = MonthGridEngine.isLeapYear(year) ? 366 : 365;
+            this.events = new int[days + 1];
+            this.minutes = new long[days + 1];
+            this.free = new int[days + 1];
+        }
+    }
+
+    private final EventStore store;
+    // Contiguous span of read years starting at firstYear
+    private int firstYear;
+    private Year[] years = new Year[0];
+    // Totals of the years before each year of the span, with one more element for the end of the span
+    private int[] eventsBefore = new int[1];
+    private long[] minutesBefore = new long[1];
+    private int[] freeBefore = new int[1];
+    private long storeVersion = -1;
+    private long yearReadCount;
+
+    public EventRangeSummary(EventStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Totals a range of days, inclusive at both ends, in either order.
+     *
+     * @param fromEpochDay first day
+     * @param toEpochDay   last day
+     * @return totals of the range
+     */
+    public Summary summarize(long fromEpochDay, long toEpochDay) {
+        long from = Math.min(fromEpochDay, toEpochDay);
+        long to = Math.max(fromEpochDay, toEpochDay);
+        int fromYear = MonthGridEngine.year(MonthGridEngine.date(from));
+        int toYear = MonthGridEngine.year(MonthGridEngine.date(to));
+        ensureSpan(fromYear, toYear);
+        validate();
+
+        Year first = years[fromYear - firstYear];
+        Year last = years[toYear - firstYear];
+        int a = (int) (from - first.firstEpochDay);
+        int b = (int) (to - last.firstEpochDay) + 1;
+        int events;
+        long minutes;
+        int free;
+        if (fromYear == toYear) {
+            events = first.events[b] - first.events[a];
+            minutes = first.minutes[b] - first.minutes[a];
+            free = first.free[b] - first.free[a];
+        }
+        else {
+            // Rest of the first year, the whole years in between and the start of the last year
+            int middleFrom = fromYear + 1 - firstYear;
+            int middleTo = toYear - firstYear;
+            events = first.events[first.days] - first.events[a]
+                    + eventsBefore[middleTo] - eventsBefore[middleFrom] + last.events[b];
+            minutes = first.minutes[first.days] - first.minutes[a]
+                    + minutesBefore[middleTo] - minutesBefore[middleFrom] + last.minutes[b];
+            free = first.free[first.days] - first.free[a]
+                    + freeBefore[middleTo] - freeBefore[middleFrom] + last.free[b];
+        }
+        return new Summary(from, to, events, minutes, free);
+    }
+
+    /**
+     * @return number of years read from the store, including reads after changes
+     */
+    public long getYearReadCount() {
+        return yearReadCount;
+    }
+
+    /**
+     * Grows the span of read years to cover the given years.
+     */
+    private void ensureSpan(int fromYear, int toYear) {
+        if (years.length > 0 && fromYear >= firstYear && toYear < firstYear + years.length) {
+            return;
+        }
+        int newFirst = years.length == 0 ? fromYear : Math.min(firstYear, fromYear);
+        int newLast = years.length == 0 ? toYear : Math.max(firstYear + years.length - 1, toYear);
+        Year[] grown = new Year[newLast - newFirst + 1];
+        if (years.length > 0) {
+            System.arraycopy(years, 0, grown, firstYear - newFirst, years.length);
+        }
+        for (int i = 0; i < grown.length; i++) {
+            if (grown[i] == null) {
+                grown[i] = read(new Year(newFirst + i));
+            }
+        }
+        firstYear = newFirst;
+        years = grown;
+        eventsBefore = new int[grown.length + 1];
+        minutesBefore = new long[grown.length + 1];
+        freeBefore = new int[grown.length + 1];
+        accumulate();
+    }
+
+    /**
+     * Reads the years whose months changed since they were read, when the store changed at all.
+     */
+    private void validate() {
+        long version = store.getVersion();
+        if (version == storeVersion) {
+            return;
+        }
+        storeVersion = version;
+        boolean changed = false;
+        for (Year year : years) {
+            if (store.countsVersion(year.firstEpochDay, year.days) != year.version) {
+                read(year);
+                changed = true;
+            }
+        }
+        if (changed) {
+            accumulate();
+        }
+    }
+
+    private Year read(Year year) {
+        int[] counts = new int[year.days];
+        int[] booked = new int[year.days];
+        // Both reads return the same version unless a writer got in between, then the next query reads again
+        year.version = Math.min(store.readCounts(year.firstEpochDay, counts),
+                store.readBookedMinutes(year.firstEpochDay, booked));
+        for (int day = 0; day < year.days; day++) {
+            year.events[day + 1] = year.events[day] + counts[day];
+            year.minutes[day + 1] = year.minutes[day] + booked[day];
+            year.free[day + 1] = year.free[day] + (counts[day] == 0 ? 1 : 0);
+        }
+        yearReadCount++;
+        return year;
+    }
+
+    /**
+     * Recomputes the running totals of the whole years of the span.
+     */
+    private void accumulate() {
+        for (int i = 0; i < years.length; i++) {
+            Year year = years[i];
+            eventsBefore[i + 1] = eventsBefore[i] + year.events[year.days];
+            minutesBefore[i + 1] = minutesBefore[i] + year.minutes[year.days];
+            freeBefore[i + 1] = freeBefore[i] + year.free[year.days];
+        }
+    }
+}
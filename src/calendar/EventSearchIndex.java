@@ -0,0 +1,369 @@
+package calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Full text search over the titles of the events of an EventStore, e.g. "all events mentioning review".
+ * <p>
+ * Titles are split into lower case words, and each word maps to the sorted ids of the events whose title
+ * contains it. Ids are handed out in insertion order, so new events are appended to the end of their
+ * words' lists and the lists stay sorted without sorting. The index listens to the store and indexes
+ * new events on the writing thread. Removed events stay in the lists and are masked out with a bit set
+ * of removed events, which follows the store's removals in their order, so each removal costs one bit.
+ * <p>
+ * A query matches events containing all of its words, the last one as a prefix unless the query ends
+ * with a space, so it can be run on each keystroke. Matching events are grouped by day and month
+ * through a scratch array of per day counts, so a query matching a million events costs a pass over
+ * their ids and allocates only its result. Repeating the last query without a change of the store
+ * returns the last result.
+ * <p>
+ * Thread-safe, queries and updates are serialized on the index.
+ */
+public class EventSearchIndex implements AutoCloseable {
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * Events matching a query grouped by day and month, both sorted ascending.
+     */
+    public static final class Result {
+        private static final Result EMPTY = new Result("", 0, new int[0], new int[0], new int[0], new int[0]);
+
+        private final String query;
+        private final int count;
+        private final int[] days;
+        private final int[] dayCounts;
+        private final int[] months;
+        private final int[] monthCounts;
+
+        private Result(String query, int count, int[] days, int[] dayCounts, int[] months, int[] monthCounts) {
+            this.query = query;
+            this.count = count;
+            this.days = days;
+            this.dayCounts = dayCounts;
+            this.months = months;
+            this.monthCounts = monthCounts;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * @return number of matching events
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return number of months with matching events
+         */
+        public int getMonthCount() {
+            return months.length;
+        }
+
+        /**
+         * @return year of the i-th month with matching events
+         */
+        public int getYear(int i) {
+            return Math.floorDiv(months[i], 12);
+        }
+
+        /**
+         * @return zero based month of the i-th month with matching events, as in Calendar.MONTH
+         */
+        public int getMonth(int i) {
+            return Math.floorMod(months[i], 12);
+        }
+
+        /**
+         * @return number of matching events in the i-th month with matching events
+         */
+        public int getMonthEvents(int i) {
+            return monthCounts[i];
+        }
+
+        /**
+         * @return index of the first month with matching events after the given month,
+         *         wrapping around to the first one, or -1 when nothing matched
+         */
+        public int nextMonth(int year, int month) {
+            if (months.length == 0) {
+                return -1;
+            }
+            int index = Arrays.binarySearch(months, year * 12 + month + 1);
+            index = index >= 0 ? index : -index - 1;
+            return index < months.length ? index : 0;
+        }
+
+        /**
+         * @return number of matching events on the day
+         */
+        public int eventsOn(long epochDay) {
+            int index = Arrays.binarySearch(days, (int) epochDay);
+            return index >= 0 ? dayCounts[index] : 0;
+        }
+
+        /**
+         * Flags the days of a window with matching events, e.g. the 42 cells of a month grid.
+         *
+         * @param fromEpochDay first day
+         * @param flags        receives the number of matching events of each day, its length is the number of days
+         * @return number of days with matching events
+         */
+        public int matchingDays(long fromEpochDay, int[] flags) {
+            Arrays.fill(flags, 0);
+            int index = Arrays.binarySearch(days, (int) fromEpochDay);
+            int matched = 0;
+            for (int i = index >= 0 ? index : -index - 1; i < days.length && days[i] < fromEpochDay + flags.length; i++) {
+                flags[(int) (days[i] - fromEpochDay)] = dayCounts[i];
+                matched++;
+            }
+            return matched;
+        }
+    }
+
+    /**
+     * Sorted ids of the events containing a word, as event indexes, i.e. id - 1.
+     */
+    private static final class Postings {
+        int[] events = new int[4];
+        int size;
+
+        void add(int event) {
+            // An event whose title repeats the word is listed once
+            if (size > 0 && events[size - 1] == event) {
+                return;
+            }
+            if (size == events.length) {
+                events = Arrays.copyOf(events, size * 2);
+            }
+            events[size++] = event;
+        }
+    }
+
+    private final EventStore store;
+    private final EventStore.ChangeListener listener = (from, to) -> update();
+    // Words in sorted order so a prefix is a range of keys
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    // Day of each indexed event, by event index
+    private int[] eventDays = new int[1024];
+    private int indexed;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    private final long[] removedIds = new long[256];
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+    private long version;
+    // Reused by queries
+    private final BitSet matches = new BitSet();
+    private final BitSet term = new BitSet();
+    private int[] dayScratch = NO_IDS;
+    private Result lastResult = Result.EMPTY;
+    private long lastResultVersion = -1;
+
+    /**
+     * Indexes the events of a store and keeps following it until closed. Indexing a large store
+     * takes a while, so create the index off the EDT.
+     *
+     * @param store the store to index
+     */
+    public EventSearchIndex(EventStore store) {
+        this.store = store;
+        // Listen first so no event added while catching up is missed
+        store.addChangeListener(listener);
+        update();
+    }
+
+    /**
+     * Stops following the store.
+     */
+    @Override
+    public void close() {
+        store.removeChangeListener(listener);
+    }
+
+    /**
+     * Searches the titles of the live events.
+     *
+     * @param query words separated by anything but letters and digits, the last one matched as a prefix
+     *              unless the query ends with such a separator
+     * @return matching events grouped by day and month, empty for a query without words
+     */
+    public synchronized Result search(String query) {
+        if (query.equals(lastResult.getQuery()) && lastResultVersion == version) {
+            return lastResult;
+        }
+        List<String> terms = tokenize(query);
+        Result result;
+        if (terms.isEmpty()) {
+            result = new Result(query, 0, new int[0], new int[0], new int[0], new int[0]);
+        }
+        else {
+            boolean prefix = Character.isLetterOrDigit(query.codePointBefore(query.length()));
+            for (int i = 0; i < terms.size(); i++) {
+                BitSet target = i == 0 ? matches : term;
+                match(terms.get(i), prefix && i == terms.size() - 1, target);
+                if (i > 0) {
+                    matches.and(term);
+                }
+            }
+            matches.andNot(removed);
+            result = group(query);
+        }
+        lastResult = result;
+        lastResultVersion = version;
+        return result;
+    }
+
+    /**
+     * @return number of distinct words indexed
+     */
+    public synchronized int getWordCount() {
+        return words.size();
+    }
+
+    /**
+     * @return number of events indexed, including removed ones
+     */
+    public synchronized int getIndexedCount() {
+        return indexed;
+    }
+
+    /**
+     * Indexes the events added and masks the events removed since the last update.
+     * Called on the writing thread after each change of the store.
+     */
+    private synchronized void update() {
+        long maxId = store.maxId();
+        boolean changed = false;
+        for (long id = indexed + 1; id <= maxId; id++) {
+            EventStore.CalendarEvent event = store.get(id);
+            int index = (int) id - 1;
+            if (index == eventDays.length) {
+                eventDays = Arrays.copyOf(eventDays, index * 2);
+            }
+            if (event != null) {
+                int day = (int) event.epochDay();
+                eventDays[index] = day;
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+                for (String word : tokenize(event.title())) {
+                    words.computeIfAbsent(word, w -> new Postings()).add(index);
+                }
+            }
+            indexed = index + 1;
+            changed = true;
+        }
+        int n;
+        while ((n = store.removedIds(removedCount, removedIds)) > 0) {
+            for (int i = 0; i < n; i++) {
+                removed.set((int) removedIds[i] - 1);
+            }
+            removedCount += n;
+            changed = true;
+        }
+        if (changed) {
+            version++;
+        }
+    }
+
+    /**
+     * Sets the bits of the events containing a word, or any word starting with it.
+     */
+    private void match(String word, boolean prefix, BitSet target) {
+        target.clear();
+        if (!prefix) {
+            Postings postings = words.get(word);
+            if (postings != null) {
+                set(postings, target);
+            }
+            return;
+        }
+        for (Map.Entry<String, Postings> entry : words.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+            set(entry.getValue(), target);
+        }
+    }
+
+    private static void set(Postings postings, BitSet target) {
+        int[] events = postings.events;
+        for (int i = 0; i < postings.size; i++) {
+            target.set(events[i]);
+        }
+    }
+
+    /**
+     * Counts the matching events per day in the scratch array, then collects the days and months from it.
+     */
+    private Result group(String query) {
+        int count = matches.cardinality();
+        if (count == 0) {
+            return new Result(query, 0, new int[0], new int[0], new int[0], new int[0]);
+        }
+        int span = maxDay - minDay + 1;
+        if (dayScratch.length < span) {
+            dayScratch = new int[span];
+        }
+        int[] perDay = dayScratch;
+        int distinctDays = 0;
+        for (int event = matches.nextSetBit(0); event >= 0; event = matches.nextSetBit(event + 1)) {
+            if (perDay[eventDays[event] - minDay]++ == 0) {
+                distinctDays++;
+            }
+        }
+        int[] days = new int[distinctDays];
+        int[] dayCounts = new int[distinctDays];
+        int[] months = new int[distinctDays];
+        int[] monthCounts = new int[distinctDays];
+        int n = 0;
+        int monthCount = 0;
+        for (int offset = 0; n < distinctDays; offset++) {
+            if (perDay[offset] == 0) {
+                continue;
+            }
+            days[n] = minDay + offset;
+            dayCounts[n] = perDay[offset];
+            perDay[offset] = 0;
+            int date = MonthGridEngine.date(days[n]);
+            int month = MonthGridEngine.year(date) * 12 + MonthGridEngine.month(date);
+            if (monthCount == 0 || months[monthCount - 1] != month) {
+                months[monthCount++] = month;
+            }
+            monthCounts[monthCount - 1] += dayCounts[n];
+            n++;
+        }
+        return new Result(query, count, days, dayCounts,
+                Arrays.copyOf(months, monthCount), Arrays.copyOf(monthCounts, monthCount));
+    }
+
+    /**
+     * Splits text into lower case words of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                }
+            }
+            else if (start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+            i += Character.charCount(c);
+        }
+        if (start >= 0) {
+            tokens.add(text.substring(start).toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+}
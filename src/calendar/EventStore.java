@@ -0,0 +1,624 @@
+package calendar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.swing.event.EventListenerList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EventListener;
+
+/**
+ * Calendar events indexed by epoch day and persisted in an append-only, memory-mapped log.
+ * <p>
+ * Every added or removed event is appended to the log as a small binary record. On open the log is
+ * replayed by reading only the fixed-size record headers into primitive arrays, titles stay in the
+ * mapped file and are only decoded when an event is read. Events of a day are chained through an
+ * open-addressing day index, so counting the events of a 42 day window is 42 hash lookups.
+ * <p>
+ * Event ids are assigned in insertion order starting at 1 and double as indexes into the arrays.
+ * <p>
+ * Appending to the log is synchronized, the per day counts read by the views are not: they are kept
+ * in a month partitioned EventCountIndex that writers update after the append under a lock per month,
+ * so imports and sync threads may write while the EDT reads the counts of a window without ever
+ * blocking. Each read returns the version of the window, so views can skip repaints when the months
+ * they show did not change.
+ */
+public class EventStore implements Closeable {
+    private static final int MAGIC = 0x43455631; // "CEV1"
+    private static final int INITIAL_FILE_SIZE = 1 << 20;
+    // A buffer is indexed by int, so the log cannot grow past this
+    private static final int MAX_FILE_SIZE = Integer.MAX_VALUE;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    // length, type and id are common to all records
+    private static final int HEADER = 4 + 1 + 8;
+    // epochDay, startMinute, durationMinutes and the title length follow for ADD records
+    private static final int ADD_HEADER = HEADER + 8 + 4 + 4 + 2;
+    private static final int TITLE_OFFSET = ADD_HEADER;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int NO_EVENT = -1;
+
+    /**
+     * A single event as read from the store.
+     */
+    public record CalendarEvent(long id, long epochDay, int startMinute, int durationMinutes, String title) {}
+
+    /**
+     * Notified on the writing thread after events were added or removed and their counts updated.
+     */
+    @FunctionalInterface
+    public interface ChangeListener extends EventListener {
+        /**
+         * @param fromEpochDay first changed day
+         * @param toEpochDay   last changed day
+         */
+        void eventsChanged(long fromEpochDay, long toEpochDay);
+    }
+
+    private final FileChannel channel;
+    private ByteBuffer log;
+    private int end;
+
+    // Per event columns, indexed by id - 1
+    private int size;
+    private long[] eventDays = new long[1024];
+    private int[] eventOffsets = new int[1024];
+    private int[] eventMinutes = new int[1024];
+    private int[] nextInDay = new int[1024];
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    // Indexes of the removed events in the order of their removal
+    private int[] removals = new int[64];
+
+    // Open-addressing index from epoch day to the last added event of that day and the day's live count
+    private long[] dayKeys = newKeys(1024);
+    private int[] dayHeads = new int[1024];
+    private int[] dayCounts = new int[1024];
+    private int[] dayMinutes = new int[1024];
+    private int days;
+
+    // Counts read by the views without the store lock
+    private final EventCountIndex countIndex = new EventCountIndex();
+    private final EventListenerList listenerList = new EventListenerList();
+
+    private EventStore(FileChannel channel, ByteBuffer log) {
+        this.channel = channel;
+        this.log = log;
+    }
+
+    /**
+     * Opens or creates a persistent store and replays its log.
+     *
+     * @param file log file
+     * @return the opened store
+     * @throws IOException when the file cannot be read or is not an event log
+     */
+    public static EventStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = Math.max(channel.size(), INITIAL_FILE_SIZE);
+        EventStore store = new EventStore(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        store.replay();
+        return store;
+    }
+
+    /**
+     * @return a store kept in heap memory only, e.g. for benchmarks
+     */
+    public static EventStore inMemory() {
+        EventStore store = new EventStore(null, ByteBuffer.allocate(INITIAL_FILE_SIZE));
+        try {
+            store.replay();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return store;
+    }
+
+    /**
+     * Appends an event to the log and the day index.
+     *
+     * @param epochDay        day of the event
+     * @param startMinute     start as minutes after midnight
+     * @param durationMinutes length of the event in minutes
+     * @param title           event title
+     * @return id of the new event
+     */
+    public long add(long epochDay, int startMinute, int durationMinutes, String title) {
+        long id = append(epochDay, startMinute, durationMinutes, title);
+        countIndex.add(epochDay, 1, durationMinutes);
+        fireEventsChanged(epochDay, epochDay);
+        return id;
+    }
+
+    private synchronized long append(long epochDay, int startMinute, int durationMinutes, String title) {
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        int titleLength = Math.min(bytes.length, Short.MAX_VALUE);
+        // Cut an overlong title before the start of a character, not inside its continuation bytes
+        while (titleLength < bytes.length && (bytes[titleLength] & 0xC0) == 0x80) {
+            titleLength--;
+        }
+        int length = ADD_HEADER + titleLength;
+        long id = size + 1;
+        int offset = reserve(length);
+
+        // The length is written last, until then the record reads as the end of the log
+        log.put(offset + 4, ADD);
+        log.putLong(offset + 5, id);
+        log.putLong(offset + 13, epochDay);
+        log.putInt(offset + 21, startMinute);
+        log.putInt(offset + 25, durationMinutes);
+        log.putShort(offset + 29, (short) titleLength);
+        log.put(offset + TITLE_OFFSET, bytes, 0, titleLength);
+        log.putInt(offset, length);
+
+        index(epochDay, offset, durationMinutes);
+        return id;
+    }
+
+    /**
+     * Appends a batch of events under a single lock, e.g. for imports. The counts of each touched month
+     * are then replaced once and the listeners notified once for the whole batch.
+     *
+     * @param epochDays        day of each event
+     * @param startMinutes     start of each event as minutes after midnight
+     * @param durationMinutes  length of each event in minutes
+     * @param titles           title of each event
+     * @param count            number of events to add from the start of the arrays
+     * @return id of the first added event, the others follow consecutively
+     */
+    public long addAll(long[] epochDays, int[] startMinutes, int[] durationMinutes,
+                       String[] titles, int count) {
+        if (count == 0) {
+            return maxId() + 1;
+        }
+        long first;
+        synchronized (this) {
+            first = size + 1;
+            for (int i = 0; i < count; i++) {
+                append(epochDays[i], startMinutes[i], durationMinutes[i], titles[i]);
+            }
+        }
+        // Sort the days with their minutes, packed as day offset and index, so each month is replaced once
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, epochDays[i]);
+            max = Math.max(max, epochDays[i]);
+        }
+        long[] days = new long[count];
+        int[] minutes = new int[count];
+        if (max - min < Integer.MAX_VALUE) {
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = (epochDays[i] - min) << 32 | i;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < count; i++) {
+                days[i] = (keys[i] >>> 32) + min;
+                minutes[i] = durationMinutes[(int) keys[i]];
+            }
+        }
+        else {
+            System.arraycopy(epochDays, 0, days, 0, count);
+            System.arraycopy(durationMinutes, 0, minutes, 0, count);
+        }
+        countIndex.addAll(days, null, minutes, count);
+        fireEventsChanged(min, max);
+        return first;
+    }
+
+    /**
+     * Appends a removal record and drops the event from the day index.
+     *
+     * @param id id of the event
+     * @return true when the event existed and was not removed before
+     */
+    public boolean remove(long id) {
+        long epochDay;
+        int minutes;
+        synchronized (this) {
+            if (id < 1 || id > size || removed.get((int) id - 1)) {
+                return false;
+            }
+            int offset = reserve(HEADER);
+            log.put(offset + 4, REMOVE);
+            log.putLong(offset + 5, id);
+            log.putInt(offset, HEADER);
+            unindex((int) id - 1);
+            epochDay = eventDays[(int) id - 1];
+            minutes = eventMinutes[(int) id - 1];
+        }
+        countIndex.add(epochDay, -1, -minutes);
+        fireEventsChanged(epochDay, epochDay);
+        return true;
+    }
+
+    /**
+     * Counts the events of consecutive days in one call, e.g. for the 42 cells of a month grid.
+     * Never blocks, see 'readCounts'.
+     *
+     * @param fromEpochDay first day
+     * @param counts       receives the event count of each day, its length is the number of days
+     * @return total number of events in the range
+     */
+    public int countEvents(long fromEpochDay, int[] counts) {
+        countIndex.read(fromEpochDay, counts);
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Reads the event counts of consecutive days without blocking writers or being blocked by them.
+     * The counts of each month in the range are read from one complete snapshot of that month.
+     *
+     * @param fromEpochDay first day
+     * @param counts       receives the event count of each day, its length is the number of days
+     * @return version of the range, which changes whenever an event is added to or removed from one of its months
+     */
+    public long readCounts(long fromEpochDay, int[] counts) {
+        return countIndex.read(fromEpochDay, counts);
+    }
+
+    /**
+     * Reads the minutes booked by the events of consecutive days, counted on the day each event starts,
+     * without blocking like 'readCounts'.
+     *
+     * @param fromEpochDay first day
+     * @param minutes      receives the booked minutes of each day, its length is the number of days
+     * @return version of the range, the same as 'readCounts' returns
+     */
+    public long readBookedMinutes(long fromEpochDay, int[] minutes) {
+        return countIndex.readMinutes(fromEpochDay, minutes);
+    }
+
+    /**
+     * @return version of a range as returned by 'readCounts', without reading the counts
+     */
+    public long countsVersion(long fromEpochDay, int days) {
+        return countIndex.version(fromEpochDay, days);
+    }
+
+    /**
+     * @return version of the last change of any day
+     */
+    public long getVersion() {
+        return countIndex.version();
+    }
+
+    /**
+     * @return number of events on the day, never blocks
+     */
+    public int countEvents(long epochDay) {
+        return countIndex.count(epochDay);
+    }
+
+    /**
+     * Registers a listener notified on the writing thread after each add, batch or removal.
+     * Listeners should only hand the change over to their own thread, e.g. the EDT.
+     *
+     * @param listener the listener to add
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listenerList.add(ChangeListener.class, listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        listenerList.remove(ChangeListener.class, listener);
+    }
+
+    private void fireEventsChanged(long fromEpochDay, long toEpochDay) {
+        Object[] listeners = listenerList.getListenerList();
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == ChangeListener.class) {
+                ((ChangeListener) listeners[i + 1]).eventsChanged(fromEpochDay, toEpochDay);
+            }
+        }
+    }
+
+    /**
+     * @return ids of the events on the day, most recently added first
+     */
+    public synchronized long[] eventIds(long epochDay) {
+        int slot = find(epochDay);
+        if (slot < 0) {
+            return new long[0];
+        }
+        long[] ids = new long[dayCounts[slot]];
+        int n = 0;
+        for (int event = dayHeads[slot]; event != NO_EVENT; event = nextInDay[event]) {
+            if (!removed.get(event)) {
+                ids[n++] = event + 1;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Reads an event, decoding its title from the log.
+     *
+     * @param id id of the event
+     * @return the event or null when it does not exist or was removed
+     */
+    public synchronized CalendarEvent get(long id) {
+        if (id < 1 || id > size || removed.get((int) id - 1)) {
+            return null;
+        }
+        int offset = eventOffsets[(int) id - 1];
+        byte[] title = new byte[log.getShort(offset + 29)];
+        log.get(offset + TITLE_OFFSET, title);
+        return new CalendarEvent(id, log.getLong(offset + 13), log.getInt(offset + 21), log.getInt(offset + 25),
+                new String(title, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return epoch day of the event, read from the in-memory index, also for a removed event
+     * @throws IllegalArgumentException when the id was never handed out
+     */
+    public synchronized long epochDay(long id) {
+        return eventDays[checkId(id)];
+    }
+
+    /**
+     * @return duration of the event in minutes, read from the in-memory index, also for a removed event
+     * @throws IllegalArgumentException when the id was never handed out
+     */
+    public synchronized int durationMinutes(long id) {
+        return eventMinutes[checkId(id)];
+    }
+
+    /**
+     * @return index of the event in the per event columns
+     */
+    private int checkId(long id) {
+        if (id < 1 || id > size) {
+            throw new IllegalArgumentException("Unknown event id: " + id);
+        }
+        return (int) id - 1;
+    }
+
+    /**
+     * @return number of live events
+     */
+    public synchronized int size() {
+        return size - removedCount;
+    }
+
+    /**
+     * @return highest event id handed out so far, ids from 1 to this value have been used
+     */
+    public synchronized long maxId() {
+        return size;
+    }
+
+    /**
+     * @return true when the event exists and has not been removed
+     */
+    public synchronized boolean contains(long id) {
+        return id >= 1 && id <= size && !removed.get((int) id - 1);
+    }
+
+    /**
+     * Copies the ids of removed events in the order they were removed, so a reader can follow removals
+     * without rescanning all of them.
+     *
+     * @param from   number of removals the reader has already seen
+     * @param target receives the ids of the following removals
+     * @return number of ids copied, 0 when there were no more removals
+     */
+    public synchronized int removedIds(int from, long[] target) {
+        int n = Math.max(0, Math.min(target.length, removedCount - from));
+        for (int i = 0; i < n; i++) {
+            target[i] = removals[from + i] + 1L;
+        }
+        return n;
+    }
+
+    /**
+     * Forces appended records to the storage device.
+     */
+    public synchronized void flush() {
+        if (log instanceof MappedByteBuffer mapped) {
+            mapped.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Rebuilds the in-memory index from the log. Only record headers are read,
+     * titles are left in the buffer until an event is read with 'get'.
+     */
+    private void replay() throws IOException {
+        if (log.getInt(0) == 0) {
+            log.putInt(0, MAGIC);
+        }
+        else if (log.getInt(0) != MAGIC) {
+            throw new IOException("Not an event log");
+        }
+        int offset = 4;
+        int length;
+        while (offset + HEADER <= log.capacity() && (length = log.getInt(offset)) > 0) {
+            if (log.get(offset + 4) == ADD) {
+                index(log.getLong(offset + 13), offset, log.getInt(offset + 25));
+            }
+            else {
+                unindex((int) log.getLong(offset + 5) - 1);
+            }
+            offset += length;
+        }
+        end = offset;
+
+        // Counts of the replayed days, each month replaced once
+        long[] replayed = new long[days];
+        int n = 0;
+        for (int slot = 0; slot < dayKeys.length; slot++) {
+            if (dayKeys[slot] != EMPTY && dayCounts[slot] != 0) {
+                replayed[n++] = dayKeys[slot];
+            }
+        }
+        Arrays.sort(replayed, 0, n);
+        int[] deltas = new int[n];
+        int[] minutes = new int[n];
+        for (int i = 0; i < n; i++) {
+            int slot = find(replayed[i]);
+            deltas[i] = dayCounts[slot];
+            minutes[i] = dayMinutes[slot];
+        }
+        countIndex.addAll(replayed, deltas, minutes, n);
+    }
+
+    /**
+     * Reserves space for a record at the end of the log, growing the mapped file when needed.
+     *
+     * @return offset of the reserved space
+     * @throws IllegalStateException when the log would grow past 2 GiB
+     */
+    private int reserve(int length) {
+        // Keep room for the zero length that marks the end of the log
+        long required = (long) end + length + 4;
+        if (required > log.capacity()) {
+            if (required > MAX_FILE_SIZE) {
+                throw new IllegalStateException("The event log is full");
+            }
+            long capacity = log.capacity();
+            while (required > capacity) {
+                capacity *= 2;
+            }
+            log = grow((int) Math.min(capacity, MAX_FILE_SIZE));
+        }
+        int offset = end;
+        end += length;
+        return offset;
+    }
+
+    private ByteBuffer grow(int capacity) {
+        if (channel == null) {
+            ByteBuffer buffer = ByteBuffer.allocate(capacity);
+            buffer.put(log.duplicate().clear());
+            return buffer;
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Cannot grow the event log", e);
+        }
+    }
+
+    private void index(long epochDay, int offset, int durationMinutes) {
+        if (size == eventDays.length) {
+            int capacity = size * 2;
+            eventDays = Arrays.copyOf(eventDays, capacity);
+            eventOffsets = Arrays.copyOf(eventOffsets, capacity);
+            eventMinutes = Arrays.copyOf(eventMinutes, capacity);
+            nextInDay = Arrays.copyOf(nextInDay, capacity);
+        }
+        int event = size++;
+        eventDays[event] = epochDay;
+        eventOffsets[event] = offset;
+        eventMinutes[event] = durationMinutes;
+
+        int slot = findOrInsert(epochDay);
+        nextInDay[event] = dayHeads[slot];
+        dayHeads[slot] = event;
+        dayCounts[slot]++;
+        dayMinutes[slot] += durationMinutes;
+    }
+
+    private void unindex(int event) {
+        if (event < 0 || event >= size || removed.get(event)) {
+            return;
+        }
+        removed.set(event);
+        if (removedCount == removals.length) {
+            removals = Arrays.copyOf(removals, removedCount * 2);
+        }
+        removals[removedCount++] = event;
+        int slot = find(eventDays[event]);
+        dayCounts[slot]--;
+        dayMinutes[slot] -= eventMinutes[event];
+    }
+
+    private int find(long epochDay) {
+        int mask = dayKeys.length - 1;
+        for (int slot = hash(epochDay) & mask; ; slot = (slot + 1) & mask) {
+            if (dayKeys[slot] == epochDay) return slot;
+            if (dayKeys[slot] == EMPTY) return -1;
+        }
+    }
+
+    private int findOrInsert(long epochDay) {
+        // Keep the load factor at most one half
+        if (days * 2 >= dayKeys.length) {
+            rehash(dayKeys.length * 2);
+        }
+        int mask = dayKeys.length - 1;
+        int slot = hash(epochDay) & mask;
+        while (dayKeys[slot] != EMPTY) {
+            if (dayKeys[slot] == epochDay) return slot;
+            slot = (slot + 1) & mask;
+        }
+        dayKeys[slot] = epochDay;
+        dayHeads[slot] = NO_EVENT;
+        dayCounts[slot] = 0;
+        dayMinutes[slot] = 0;
+        days++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = dayKeys;
+        int[] heads = dayHeads;
+        int[] counts = dayCounts;
+        int[] minutes = dayMinutes;
+        dayKeys = newKeys(capacity);
+        dayHeads = new int[capacity];
+        dayCounts = new int[capacity];
+        dayMinutes = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                int slot = hash(keys[i]) & mask;
+                while (dayKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                dayKeys[slot] = keys[i];
+                dayHeads[slot] = heads[i];
+                dayCounts[slot] = counts[i];
+                dayMinutes[slot] = minutes[i];
+            }
+        }
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int hash(long epochDay) {
+        // Consecutive days are spread over the table by the multiplicative hash
+        long h = epochDay * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+}
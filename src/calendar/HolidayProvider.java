@@ -0,0 +1,535 @@
+package calendar;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Public holidays and closure days of many regions, compiled from a rule file into one compact table
+ * per region and year: a bitset of the 366 days of the year plus the labels of the set days ordered
+ * by day, so the label of a day is found by counting the set bits before it.
+ * <p>
+ * The rule file is parsed once. Year tables are compiled from the rules on first use and kept in a
+ * small direct mapped cache per region, so navigating costs nothing once a year was seen and moveable
+ * feasts are never computed while painting. A Selection merges the tables of the active regions into
+ * one bitset per year, so a cell is one bit test however many regions are active.
+ * <p>
+ * Rule file format, one region header followed by its rules, '#' starts a comment:
+ * <pre>
+ *   [CZ] Czechia
+ *   01-01            New Year's Day         fixed date, MM-DD
+ *   12-24..12-26     Christmas              range of fixed dates
+ *   easter+1         Easter Monday          days from Western Easter Sunday, also easter-2 or easter
+ *   orthodox+1       Orthodox Easter Monday days from Orthodox Easter Sunday
+ *   01-mon-3         Martin Luther King Day nth weekday of a month, 1 to 5
+ *   05-mon-last      Memorial Day           last weekday of a month
+ *   2026-05-07       Bridge day             a single date, e.g. a company closure
+ *   2026-08-10..2026-08-14  Summer closure  a range of single dates within one year
+ * </pre>
+ * Safe to use from any thread.
+ */
+public final class HolidayProvider {
+    private static final int CACHED_YEARS = 64;
+    private static final int WORDS = 6;
+    private static final String[] WEEKDAYS = {"sun", "mon", "tue", "wed", "thu", "fri", "sat"};
+
+    private enum Kind { DATE, RANGE, EASTER, ORTHODOX, NTH_WEEKDAY, LAST_WEEKDAY, SINGLE }
+
+    /**
+     * A compiled rule. Months are zero based, weekdays are Calendar.SUNDAY..SATURDAY.
+     */
+    private record Rule(Kind kind, int month, int day, int toMonth, int toDay, int weekday, int nth,
+                        int year, int offset, short label) {}
+
+    /**
+     * Holidays of one region in one year: the days as bits and their labels in day order.
+     */
+    private record YearTable(int year, long[] bits, short[] labels) {}
+
+    private final List<String> regions;
+    private final Map<String, Integer> regionIndexes = new HashMap<>();
+    private final List<String> regionNames;
+    private final Rule[][] rules;
+    private final String[] labels;
+    // Direct mapped by year per region, entries are immutable so races only cost a recompile
+    private final YearTable[][] cache;
+
+    private HolidayProvider(List<String> regions, List<String> regionNames, Rule[][] rules, String[] labels) {
+        this.regions = List.copyOf(regions);
+        this.regionNames = List.copyOf(regionNames);
+        this.rules = rules;
+        this.labels = labels;
+        this.cache = new YearTable[regions.size()][CACHED_YEARS];
+        for (int i = 0; i < regions.size(); i++) {
+            regionIndexes.put(regions.get(i), i);
+        }
+    }
+
+    /**
+     * Loads the rules of a file.
+     *
+     * @throws IOException when the file cannot be read or contains an invalid rule
+     */
+    public static HolidayProvider load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Loads the sample rules shipped next to this class, holidays.txt.
+     *
+     * @throws IOException when the resource is missing or invalid
+     */
+    public static HolidayProvider loadDefault() throws IOException {
+        InputStream in = HolidayProvider.class.getResourceAsStream("holidays.txt");
+        if (in == null) {
+            throw new IOException("holidays.txt not found next to " + HolidayProvider.class.getName());
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parses rules in the format described in the class comment.
+     *
+     * @throws IOException when reading fails or a line is not a valid rule
+     */
+    public static HolidayProvider parse(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<String> regions = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<List<Rule>> rules = new ArrayList<>();
+        Map<String, Short> labelIds = new LinkedHashMap<>();
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            int comment = line.indexOf('#');
+            line = (comment >= 0 ? line.substring(0, comment) : line).strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("[")) {
+                int close = line.indexOf(']');
+                if (close < 2) {
+                    throw new IOException("line " + number + ": invalid region header: " + line);
+                }
+                String region = line.substring(1, close).strip().toUpperCase(Locale.ROOT);
+                if (regions.contains(region)) {
+                    throw new IOException("line " + number + ": region defined twice: " + region);
+                }
+                regions.add(region);
+                String name = line.substring(close + 1).strip();
+                names.add(name.isEmpty() ? region : name);
+                rules.add(new ArrayList<>());
+                continue;
+            }
+            if (regions.isEmpty()) {
+                throw new IOException("line " + number + ": rule before the first region header");
+            }
+            String[] fields = line.split("\\s+", 2);
+            String label = fields.length > 1 ? fields[1].strip() : fields[0];
+            Short id = labelIds.computeIfAbsent(label, l -> (short) labelIds.size());
+            try {
+                rules.get(rules.size() - 1).add(rule(fields[0].toLowerCase(Locale.ROOT), id));
+            }
+            catch (IllegalArgumentException e) {
+                throw new IOException("line " + number + ": " + e.getMessage(), e);
+            }
+        }
+        Rule[][] compiled = new Rule[rules.size()][];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = rules.get(i).toArray(new Rule[0]);
+        }
+        return new HolidayProvider(regions, names, compiled, labelIds.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * @return region codes in file order, e.g. "CZ"
+     */
+    public List<String> getRegions() {
+        return regions;
+    }
+
+    /**
+     * @return the name given in the region header, or the code when it has none
+     */
+    public String getRegionName(String region) {
+        return regionNames.get(regionIndex(region));
+    }
+
+    public boolean isHoliday(String region, long epochDay) {
+        int date = MonthGridEngine.date(epochDay);
+        YearTable table = table(regionIndex(region), MonthGridEngine.year(date));
+        int day = (int) (epochDay - MonthGridEngine.epochDay(table.year(), Calendar.JANUARY, 1));
+        return (table.bits()[day >>> 6] & 1L << day) != 0;
+    }
+
+    /**
+     * @return label of the holiday of the region on the day, or null when it is none
+     */
+    public String label(String region, long epochDay) {
+        int date = MonthGridEngine.date(epochDay);
+        YearTable table = table(regionIndex(region), MonthGridEngine.year(date));
+        int day = (int) (epochDay - MonthGridEngine.epochDay(table.year(), Calendar.JANUARY, 1));
+        if ((table.bits()[day >>> 6] & 1L << day) == 0) {
+            return null;
+        }
+        return labels[table.labels()[rank(table.bits(), day)]];
+    }
+
+    /**
+     * Creates a view of several regions merged, e.g. the countries of a team and its company closures.
+     *
+     * @param regions region codes, unknown codes are rejected
+     * @return the merged view
+     */
+    public Selection select(String... regions) {
+        int[] indexes = new int[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            indexes[i] = regionIndex(regions[i]);
+        }
+        return new Selection(indexes);
+    }
+
+    /**
+     * Holidays of several regions merged into one bitset per year.
+     */
+    public final class Selection {
+        private final int[] regionIndexes;
+        // Merged bits of a year, direct mapped by year
+        private final YearTable[] merged = new YearTable[CACHED_YEARS];
+
+        private Selection(int[] regionIndexes) {
+            this.regionIndexes = regionIndexes;
+        }
+
+        /**
+         * @return true when the day is a holiday in any of the regions, one bit test once the year is cached
+         */
+        public boolean isHoliday(long epochDay) {
+            int year = MonthGridEngine.year(MonthGridEngine.date(epochDay));
+            int day = (int) (epochDay - MonthGridEngine.epochDay(year, Calendar.JANUARY, 1));
+            return (bits(year)[day >>> 6] & 1L << day) != 0;
+        }
+
+        /**
+         * Flags the holidays of consecutive days, e.g. the 42 cells of a month grid.
+         *
+         * @param fromEpochDay first day
+         * @param flags        receives 1 for each holiday and 0 otherwise, its length is the number of days
+         * @return number of holidays
+         */
+        public int holidays(long fromEpochDay, int[] flags) {
+            int count = 0;
+            int year = MonthGridEngine.year(MonthGridEngine.date(fromEpochDay));
+            long yearStart = MonthGridEngine.epochDay(year, Calendar.JANUARY, 1);
+            long[] bits = bits(year);
+            for (int i = 0; i < flags.length; i++) {
+                int day = (int) (fromEpochDay + i - yearStart);
+                if (day >= (MonthGridEngine.isLeapYear(year) ? 366 : 365)) {
+                    year++;
+                    yearStart = MonthGridEngine.epochDay(year, Calendar.JANUARY, 1);
+                    bits = bits(year);
+                    day = (int) (fromEpochDay + i - yearStart);
+                }
+                flags[i] = (int) (bits[day >>> 6] >>> day & 1);
+                count += flags[i];
+            }
+            return count;
+        }
+
+        /**
+         * @return labels of the day in all regions of the selection, region code first, empty when it is no holiday
+         */
+        public List<String> labels(long epochDay) {
+            List<String> result = new ArrayList<>();
+            if (!isHoliday(epochDay)) {
+                return result;
+            }
+            for (int region : regionIndexes) {
+                String label = label(regions.get(region), epochDay);
+                if (label != null) {
+                    result.add(regions.get(region) + ": " + label);
+                }
+            }
+            return result;
+        }
+
+        public int getRegionCount() {
+            return regionIndexes.length;
+        }
+
+        private long[] bits(int year) {
+            int slot = Math.floorMod(year, CACHED_YEARS);
+            YearTable table = merged[slot];
+            if (table == null || table.year() != year) {
+                long[] bits = new long[WORDS];
+                for (int region : regionIndexes) {
+                    long[] regionBits = table(region, year).bits();
+                    for (int word = 0; word < WORDS; word++) {
+                        bits[word] |= regionBits[word];
+                    }
+                }
+                table = new YearTable(year, bits, null);
+                merged[slot] = table;
+            }
+            return table.bits();
+        }
+    }
+
+    private int regionIndex(String region) {
+        Integer index = regionIndexes.get(region.toUpperCase(Locale.ROOT));
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown holiday region: " + region);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the table of a region and year, compiling it on first use.
+     */
+    private YearTable table(int region, int year) {
+        int slot = Math.floorMod(year, CACHED_YEARS);
+        YearTable table = cache[region][slot];
+        if (table == null || table.year() != year) {
+            table = compile(rules[region], year);
+            cache[region][slot] = table;
+        }
+        return table;
+    }
+
+    /**
+     * Evaluates the rules of a region for one year.
+     */
+    private static YearTable compile(Rule[] rules, int year) {
+        long yearStart = MonthGridEngine.epochDay(year, Calendar.JANUARY, 1);
+        int days = MonthGridEngine.isLeapYear(year) ? 366 : 365;
+        // Label id + 1 per day of the year, the first rule hitting a day names it
+        short[] dayLabels = new short[days];
+        for (Rule rule : rules) {
+            long first;
+            long last;
+            switch (rule.kind()) {
+                case DATE -> first = last = fixed(year, rule.month(), rule.day());
+                case RANGE -> {
+                    first = rangeStart(year, rule.month(), rule.day());
+                    last = rangeEnd(year, rule.toMonth(), rule.toDay());
+                }
+                case EASTER -> first = last = easter(year) + rule.offset();
+                case ORTHODOX -> first = last = orthodoxEaster(year) + rule.offset();
+                case NTH_WEEKDAY -> first = last = nthWeekday(year, rule.month(), rule.weekday(), rule.nth());
+                case LAST_WEEKDAY -> first = last = lastWeekday(year, rule.month(), rule.weekday());
+                default -> {
+                    first = rule.year() == year ? rangeStart(year, rule.month(), rule.day()) : Long.MIN_VALUE;
+                    last = rule.year() == year ? rangeEnd(year, rule.toMonth(), rule.toDay()) : Long.MIN_VALUE;
+                }
+            }
+            if (first == Long.MIN_VALUE) {
+                continue;
+            }
+            for (long epochDay = Math.max(first, yearStart); epochDay <= Math.min(last, yearStart + days - 1); epochDay++) {
+                int day = (int) (epochDay - yearStart);
+                if (dayLabels[day] == 0) {
+                    dayLabels[day] = (short) (rule.label() + 1);
+                }
+            }
+        }
+        long[] bits = new long[WORDS];
+        int count = 0;
+        for (int day = 0; day < days; day++) {
+            if (dayLabels[day] != 0) {
+                bits[day >>> 6] |= 1L << day;
+                count++;
+            }
+        }
+        short[] labels = new short[count];
+        for (int day = 0, n = 0; day < days; day++) {
+            if (dayLabels[day] != 0) {
+                labels[n++] = (short) (dayLabels[day] - 1);
+            }
+        }
+        return new YearTable(year, bits, labels);
+    }
+
+    /**
+     * @return number of set bits before the given bit
+     */
+    private static int rank(long[] bits, int bit) {
+        int rank = 0;
+        for (int word = 0; word < bit >>> 6; word++) {
+            rank += Long.bitCount(bits[word]);
+        }
+        return rank + Long.bitCount(bits[bit >>> 6] & (1L << bit) - 1);
+    }
+
+    /**
+     * @return epoch day of a fixed date, or Long.MIN_VALUE for February 29 outside leap years
+     */
+    private static long fixed(int year, int month, int day) {
+        if (day > MonthGridEngine.daysInMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+        return MonthGridEngine.epochDay(year, month, day);
+    }
+
+    /**
+     * @return epoch day a range starting on a fixed date starts, March 1 for February 29 outside leap years
+     */
+    private static long rangeStart(int year, int month, int day) {
+        int length = MonthGridEngine.daysInMonth(year, month);
+        return day > length ? MonthGridEngine.epochDay(year, month, length) + 1 : MonthGridEngine.epochDay(year, month, day);
+    }
+
+    /**
+     * @return epoch day a range ending on a fixed date ends, February 28 for February 29 outside leap years
+     */
+    private static long rangeEnd(int year, int month, int day) {
+        return MonthGridEngine.epochDay(year, month, Math.min(day, MonthGridEngine.daysInMonth(year, month)));
+    }
+
+    /**
+     * @return epoch day of Western Easter Sunday, by the anonymous Gregorian algorithm
+     */
+    static long easter(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int n = h + l - 7 * m + 114;
+        return MonthGridEngine.epochDay(year, n / 31 - 1, n % 31 + 1);
+    }
+
+    /**
+     * @return epoch day of Orthodox Easter Sunday, computed on the Julian calendar and moved to the Gregorian one
+     */
+    static long orthodoxEaster(int year) {
+        int a = year % 4;
+        int b = year % 7;
+        int c = year % 19;
+        int d = (19 * c + 15) % 30;
+        int e = (2 * a + 4 * b - d + 34) % 7;
+        int n = d + e + 114;
+        // The Julian date lies this many days behind the Gregorian one in the year's March
+        int julianLag = year / 100 - year / 400 - 2;
+        return MonthGridEngine.epochDay(year, n / 31 - 1, n % 31 + 1) + julianLag;
+    }
+
+    /**
+     * @return epoch day of the nth weekday of a month, or Long.MIN_VALUE when the month has no such day
+     */
+    private static long nthWeekday(int year, int month, int weekday, int nth) {
+        long first = MonthGridEngine.epochDay(year, month, 1);
+        long day = first + Math.floorMod(weekday - MonthGridEngine.dayOfWeek(first), 7) + 7L * (nth - 1);
+        return day - first < MonthGridEngine.daysInMonth(year, month) ? day : Long.MIN_VALUE;
+    }
+
+    private static long lastWeekday(int year, int month, int weekday) {
+        long last = MonthGridEngine.epochDay(year, month, MonthGridEngine.daysInMonth(year, month));
+        return last - Math.floorMod(MonthGridEngine.dayOfWeek(last) - weekday, 7);
+    }
+
+    /**
+     * Parses the date part of a rule.
+     *
+     * @throws IllegalArgumentException when it is not a rule
+     */
+    private static Rule rule(String text, short label) {
+        if (text.startsWith("easter") || text.startsWith("orthodox")) {
+            boolean orthodox = text.startsWith("orthodox");
+            String offset = text.substring(orthodox ? 8 : 6);
+            int days = offset.isEmpty() ? 0 : Integer.parseInt(offset.startsWith("+") ? offset.substring(1) : offset);
+            return new Rule(orthodox ? Kind.ORTHODOX : Kind.EASTER, 0, 0, 0, 0, 0, 0, 0, days, label);
+        }
+        if (text.contains("..")) {
+            String fromText = text.substring(0, text.indexOf(".."));
+            String toText = text.substring(text.indexOf("..") + 2);
+            int year = 0;
+            if (fromText.length() == 10 && toText.length() == 10 && fromText.startsWith(toText.substring(0, 5))) {
+                year = Integer.parseInt(fromText.substring(0, 4));
+                fromText = fromText.substring(5);
+                toText = toText.substring(5);
+            }
+            int[] from = monthDay(fromText);
+            int[] to = monthDay(toText);
+            if (to[0] < from[0] || to[0] == from[0] && to[1] < from[1]) {
+                throw new IllegalArgumentException("range must end in the same year after its start: " + text);
+            }
+            return new Rule(year == 0 ? Kind.RANGE : Kind.SINGLE, from[0], from[1], to[0], to[1], 0, 0, year, 0, label);
+        }
+        String[] parts = text.split("-");
+        if (parts.length == 3 && parts[0].length() == 4) {
+            int[] date = monthDay(parts[1] + "-" + parts[2]);
+            return new Rule(Kind.SINGLE, date[0], date[1], date[0], date[1], 0, 0, Integer.parseInt(parts[0]), 0, label);
+        }
+        if (parts.length == 3) {
+            int month = month(parts[0]);
+            int weekday = weekday(parts[1]);
+            if (parts[2].equals("last")) {
+                return new Rule(Kind.LAST_WEEKDAY, month, 0, 0, 0, weekday, 0, 0, 0, label);
+            }
+            int nth = Integer.parseInt(parts[2]);
+            if (nth < 1 || nth > 5) {
+                throw new IllegalArgumentException("weekday number must be 1 to 5 or last: " + text);
+            }
+            return new Rule(Kind.NTH_WEEKDAY, month, 0, 0, 0, weekday, nth, 0, 0, label);
+        }
+        int[] date = monthDay(text);
+        return new Rule(Kind.DATE, date[0], date[1], 0, 0, 0, 0, 0, 0, label);
+    }
+
+    /**
+     * @return zero based month and day of a MM-DD text
+     */
+    private static int[] monthDay(String text) {
+        String[] parts = text.split("-");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("not a MM-DD date: " + text);
+        }
+        int month = month(parts[0]);
+        int day = Integer.parseInt(parts[1]);
+        if (day < 1 || day > MonthGridEngine.daysInMonth(2000, month)) {
+            throw new IllegalArgumentException("day out of range: " + text);
+        }
+        return new int[] {month, day};
+    }
+
+    private static int month(String text) {
+        int month = Integer.parseInt(text);
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("month out of range: " + text);
+        }
+        return month - 1;
+    }
+
+    private static int weekday(String text) {
+        for (int i = 0; i < WEEKDAYS.length; i++) {
+            if (WEEKDAYS[i].equals(text)) {
+                return Calendar.SUNDAY + i;
+            }
+        }
+        throw new IllegalArgumentException("unknown weekday: " + text);
+    }
+}
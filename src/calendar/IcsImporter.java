@@ -0,0 +1,412 @@
+package calendar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * Streaming iCalendar (.ics) importer. The file is read through a fixed-size buffer and parsed
+ * line by line on the raw bytes, so memory use does not depend on the file size. Only the properties
+ * needed by the calendar (DTSTART, DTEND, DURATION and SUMMARY) are decoded and each finished VEVENT
+ * goes into a batch that is added to the EventStore in a single call. Properties of components nested in
+ * a VEVENT, e.g. the DURATION and SUMMARY of a VALARM, are skipped.
+ * <p>
+ * Times ending in 'Z' are converted from UTC to the default time zone, other times are taken as local
+ * wall clock times (TZID parameters are not resolved). All-day events start at midnight and last a day.
+ * An importer is not thread-safe; run one per file, normally off the EDT.
+ */
+public class IcsImporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final byte[] BEGIN_VEVENT = bytes("BEGIN:VEVENT");
+    private static final byte[] END_VEVENT   = bytes("END:VEVENT");
+    private static final byte[] DTSTART      = bytes("DTSTART");
+    private static final byte[] DTEND        = bytes("DTEND");
+    private static final byte[] DURATION     = bytes("DURATION");
+    private static final byte[] SUMMARY      = bytes("SUMMARY");
+    private static final byte[] BEGIN        = bytes("BEGIN");
+    private static final byte[] END          = bytes("END");
+
+    /**
+     * Called on the importing thread after each batch was added to the store.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * @param bytesRead    bytes of the file parsed so far
+         * @param totalBytes   size of the file
+         * @param events       events imported so far
+         * @param fromEpochDay first day touched by the batch
+         * @param toEpochDay   last day touched by the batch
+         */
+        void batchImported(long bytesRead, long totalBytes, int events, long fromEpochDay, long toEpochDay);
+    }
+
+    /**
+     * Outcome of an import.
+     */
+    public record Result(int events, int skipped, long bytes, long nanos) {
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes / (1024.0 * 1024.0) / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events (%d skipped) from %.1f MB in %.0f ms, %.1f MB/s",
+                    events, skipped, bytes / (1024.0 * 1024.0), nanos / 1e6, megabytesPerSecond());
+        }
+    }
+
+    private final EventStore store;
+    private final int batchSize;
+    private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+
+    // Current line, folded continuation lines are appended to it
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    // Current VEVENT
+    private boolean inEvent;
+    // Depth of the components nested in the current VEVENT, e.g. 1 inside a VALARM
+    private int nested;
+    private long startDay;
+    private int startMinute;
+    private long endDay;
+    private int endMinute;
+    private int durationMinutes;
+    private boolean allDay;
+    private String summary;
+
+    // Batch waiting to be added to the store
+    private final long[] batchDays;
+    private final int[] batchStarts;
+    private final int[] batchDurations;
+    private final String[] batchTitles;
+    private int batchCount;
+    private long batchFrom;
+    private long batchTo;
+    private int events;
+    private int skipped;
+
+    /**
+     * @param store     store receiving the events
+     * @param batchSize number of events added to the store at once
+     */
+    public IcsImporter(EventStore store, int batchSize) {
+        this.store = store;
+        this.batchSize = batchSize;
+        this.batchDays = new long[batchSize];
+        this.batchStarts = new int[batchSize];
+        this.batchDurations = new int[batchSize];
+        this.batchTitles = new String[batchSize];
+    }
+
+    /**
+     * Imports all VEVENTs of a file.
+     *
+     * @param file     the .ics file
+     * @param progress notified after each batch, may be null
+     * @return number of events and parse throughput
+     * @throws IOException when the file cannot be read
+     */
+    public Result importFile(Path file, Progress progress) throws IOException {
+        long start = System.nanoTime();
+        long bytesRead = 0;
+        events = 0;
+        skipped = 0;
+        resetBatch();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long total = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            boolean pending = false;
+            int n;
+            while ((n = channel.read(buffer)) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (pending) {
+                        // A line starting with a space or tab continues the previous line
+                        if (b == ' ' || b == '\t') {
+                            pending = false;
+                            continue;
+                        }
+                        processLine(progress, bytesRead + buffer.position(), total);
+                        pending = false;
+                    }
+                    if (b == '\n') {
+                        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                            lineLength--;
+                        }
+                        pending = true;
+                    }
+                    else {
+                        append(b);
+                    }
+                }
+                bytesRead += n;
+                buffer.clear();
+            }
+            if (pending || lineLength > 0) {
+                processLine(progress, bytesRead, total);
+            }
+            flushBatch(progress, bytesRead, total);
+        }
+        return new Result(events, skipped, bytesRead, System.nanoTime() - start);
+    }
+
+    private void processLine(Progress progress, long bytesRead, long total) {
+        if (matches(BEGIN_VEVENT)) {
+            inEvent = true;
+            nested = 0;
+            startDay = Long.MIN_VALUE;
+            endDay = Long.MIN_VALUE;
+            durationMinutes = -1;
+            allDay = false;
+            summary = "";
+        }
+        else if (matches(END_VEVENT)) {
+            inEvent = false;
+            finishEvent(progress, bytesRead, total);
+        }
+        else if (inEvent) {
+            int colon = valueStart();
+            if (colon < 0) {
+                // Malformed property, ignored
+            }
+            else if (isProperty(BEGIN)) {
+                nested++;
+            }
+            else if (isProperty(END)) {
+                nested = Math.max(0, nested - 1);
+            }
+            else if (nested > 0) {
+                // Property of a nested component, e.g. the SUMMARY of a VALARM
+            }
+            else if (isProperty(DTSTART)) {
+                long dateTime = parseDateTime(colon + 1);
+                if (dateTime != Long.MIN_VALUE) {
+                    startDay = Math.floorDiv(dateTime, MINUTES_PER_DAY);
+                    startMinute = Math.floorMod(dateTime, MINUTES_PER_DAY);
+                    allDay = lineLength - colon - 1 == 8;
+                }
+            }
+            else if (isProperty(DTEND)) {
+                long dateTime = parseDateTime(colon + 1);
+                if (dateTime != Long.MIN_VALUE) {
+                    endDay = Math.floorDiv(dateTime, MINUTES_PER_DAY);
+                    endMinute = Math.floorMod(dateTime, MINUTES_PER_DAY);
+                }
+            }
+            else if (isProperty(DURATION)) {
+                durationMinutes = parseDuration(colon + 1);
+            }
+            else if (isProperty(SUMMARY)) {
+                summary = unescape(new String(line, colon + 1, lineLength - colon - 1, StandardCharsets.UTF_8));
+            }
+        }
+        lineLength = 0;
+    }
+
+    private void finishEvent(Progress progress, long bytesRead, long total) {
+        if (startDay == Long.MIN_VALUE) {
+            skipped++;
+            return;
+        }
+        int minutes;
+        if (durationMinutes >= 0) {
+            minutes = durationMinutes;
+        }
+        else if (endDay != Long.MIN_VALUE) {
+            minutes = (int) Math.max(0, (endDay - startDay) * MINUTES_PER_DAY + endMinute - startMinute);
+        }
+        else {
+            minutes = allDay ? MINUTES_PER_DAY : 0;
+        }
+
+        batchDays[batchCount] = startDay;
+        batchStarts[batchCount] = startMinute;
+        batchDurations[batchCount] = minutes;
+        batchTitles[batchCount] = summary;
+        batchCount++;
+        batchFrom = Math.min(batchFrom, startDay);
+        batchTo = Math.max(batchTo, startDay);
+        if (batchCount == batchSize) {
+            flushBatch(progress, bytesRead, total);
+        }
+    }
+
+    private void flushBatch(Progress progress, long bytesRead, long total) {
+        if (batchCount == 0) {
+            return;
+        }
+        store.addAll(batchDays, batchStarts, batchDurations, batchTitles, batchCount);
+        events += batchCount;
+        if (progress != null) {
+            progress.batchImported(bytesRead, total, events, batchFrom, batchTo);
+        }
+        Arrays.fill(batchTitles, null);
+        resetBatch();
+    }
+
+    private void resetBatch() {
+        batchCount = 0;
+        batchFrom = Long.MAX_VALUE;
+        batchTo = Long.MIN_VALUE;
+    }
+
+    /**
+     * Parses 'YYYYMMDD', 'YYYYMMDDTHHMMSS' or 'YYYYMMDDTHHMMSSZ' starting at the given index.
+     *
+     * @return minutes since 1970-01-01T00:00 local time or Long.MIN_VALUE when malformed
+     */
+    private long parseDateTime(int from) {
+        int length = lineLength - from;
+        if (length < 8) {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(from, 4);
+        int month = digits(from + 4, 2);
+        int day = digits(from + 6, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return Long.MIN_VALUE;
+        }
+        long minutes = MonthGridEngine.epochDay(year, month - 1, day) * MINUTES_PER_DAY;
+        if (length >= 15 && line[from + 8] == 'T') {
+            int hour = digits(from + 9, 2);
+            int minute = digits(from + 11, 2);
+            if (hour < 0 || minute < 0) {
+                return Long.MIN_VALUE;
+            }
+            minutes += hour * 60L + minute;
+            if (length >= 16 && line[from + 15] == 'Z') {
+                int offset = zoneRules.getOffset(Instant.ofEpochSecond(minutes * 60)).getTotalSeconds();
+                minutes += offset / 60;
+            }
+        }
+        return minutes;
+    }
+
+    /**
+     * Parses an ISO 8601 duration like 'PT1H30M', 'P1D' or 'P2W' into minutes. An event cannot last
+     * a negative time, so durations with a '-' sign are rejected like malformed ones.
+     *
+     * @return minutes or -1 when malformed or negative
+     */
+    private int parseDuration(int from) {
+        int i = from;
+        if (i < lineLength && line[i] == '-') return -1;
+        if (i < lineLength && line[i] == '+') i++;
+        if (i >= lineLength || line[i] != 'P') return -1;
+        long minutes = 0;
+        int number = 0;
+        for (i++; i < lineLength; i++) {
+            byte b = line[i];
+            if (b >= '0' && b <= '9') {
+                number = number * 10 + (b - '0');
+                continue;
+            }
+            switch (b) {
+                case 'W' -> minutes += number * 7L * MINUTES_PER_DAY;
+                case 'D' -> minutes += (long) number * MINUTES_PER_DAY;
+                case 'H' -> minutes += number * 60L;
+                case 'M' -> minutes += number;
+                case 'S' -> minutes += number / 60;
+                case 'T' -> { }
+                default -> { return -1; }
+            }
+            number = 0;
+        }
+        return (int) Math.min(minutes, Integer.MAX_VALUE);
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return index of the colon separating name and parameters from the value, ignoring quoted colons
+     */
+    private int valueStart() {
+        boolean quoted = false;
+        for (int i = 0; i < lineLength; i++) {
+            if (line[i] == '"') quoted = !quoted;
+            else if (line[i] == ':' && !quoted) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return true when the line is the given property, followed by parameters or its value
+     */
+    private boolean isProperty(byte[] name) {
+        if (lineLength <= name.length || line[name.length] != ':' && line[name.length] != ';') {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if ((line[i] & 0xDF) != name[i]) return false;
+        }
+        return true;
+    }
+
+    private boolean matches(byte[] text) {
+        // Trailing whitespace is tolerated after BEGIN and END lines
+        int length = lineLength;
+        while (length > text.length && (line[length - 1] == ' ' || line[length - 1] == '\t')) {
+            length--;
+        }
+        if (length != text.length) {
+            return false;
+        }
+        for (int i = 0; i < text.length; i++) {
+            byte b = line[i];
+            if (b != text[i] && (b & 0xDF) != text[i]) return false;
+        }
+        return true;
+    }
+
+    private void append(byte b) {
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = b;
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                builder.append(next == 'n' || next == 'N' ? '\n' : next);
+            }
+            else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,163 @@
+package calendar;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, in the style of HdrHistogram.
+ * <p>
+ * Values below 64 ns have a bucket each, larger values are split into 32 buckets per power of two,
+ * so every percentile is within about 3 % of the recorded value up to about 18 minutes. Recording
+ * is a few atomic increments on preallocated arrays, it never allocates or locks and may be called
+ * from any thread, so the histograms can be left on in production.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below 2 * SUB_BUCKETS are recorded exactly
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+    private static final int MAX_SHIFT = 35;
+    private static final int BUCKETS = LINEAR + MAX_SHIFT * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param name name used in logs and as the JMX object name
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param nanos latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Retry until this value is stored or a larger one was
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given start, e.g. 'record(System.nanoTime())' at the end
+     * of a block started with 'long start = System.nanoTime()'.
+     *
+     * @param startNanos System.nanoTime at the start of the measured block
+     * @return the recorded latency in nanoseconds
+     */
+    public long recordSince(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        record(nanos);
+        return nanos;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / (n * 1000.0);
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return percentile(90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile. Reads race with recording,
+     * so the result describes a histogram that may be a few values behind.
+     *
+     * @param percentile percentile from 0 to 100
+     * @return latency in nanoseconds, 0 when nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @return one line summary in microseconds
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f us",
+                name, getCount(), getMeanMicros(), getP50Micros(), getP90Micros(), getP99Micros(), getMaxMicros());
+    }
+
+    private static int bucket(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        // Keep the SUB_BUCKET_BITS + 1 highest bits, the top one is implied by the shift
+        int shift = 64 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS + 1);
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        long top = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
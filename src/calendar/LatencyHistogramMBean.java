@@ -0,0 +1,22 @@
+package calendar;
+
+/**
+ * JMX view of a LatencyHistogram, values in microseconds.
+ */
+public interface LatencyHistogramMBean {
+    String getName();
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
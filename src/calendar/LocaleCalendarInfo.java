@@ -0,0 +1,180 @@
+package calendar;
+
+import java.time.DayOfWeek;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable calendar symbols of a locale: capitalized month and weekday names and the first day of week.
+ * Instances are interned per locale and first day of week, so after the first lookup asking for them
+ * costs a map lookup and the views never re-derive symbols from a Calendar on the hot path.
+ * <p>
+ * The first day of week defaults to the locale's, which also honours the Unicode "fw" extension
+ * (e.g. "en-US-u-fw-mon"), and can be overridden with {@link #of(Locale, int)}. The views take their
+ * symbols from {@link #ofDefault()}, which applies the {@value #FIRST_DAY_OF_WEEK_PROPERTY} system
+ * property when set, e.g. {@code -Dcalendar.firstDayOfWeek=MONDAY}.
+ */
+public final class LocaleCalendarInfo {
+    /**
+     * System property with the first day of week of the views as a java.time.DayOfWeek name.
+     */
+    public static final String FIRST_DAY_OF_WEEK_PROPERTY = "calendar.firstDayOfWeek";
+
+    // Slot 0 holds the locale's own first day of week, slots 1..7 the overrides by Calendar.SUNDAY..SATURDAY
+    private static final ConcurrentHashMap<Locale, AtomicReferenceArray<LocaleCalendarInfo>> CACHE =
+            new ConcurrentHashMap<>();
+
+    private final Locale locale;
+    private final int firstDayOfWeek;
+    private final String[] monthNames = new String[12];
+    private final String[] shortMonthNames = new String[12];
+    // Indexed by Calendar.SUNDAY..SATURDAY, slot 0 unused
+    private final String[] dayNames = new String[8];
+    // Weekday names in column order, shared by all callers
+    private final List<String> daysOfWeek;
+
+    private LocaleCalendarInfo(Locale locale, int firstDayOfWeek) {
+        Calendar calendar = Calendar.getInstance(locale);
+        this.locale = locale;
+        this.firstDayOfWeek = firstDayOfWeek > 0 ? firstDayOfWeek : calendar.getFirstDayOfWeek();
+
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        for (int month = Calendar.JANUARY; month <= Calendar.DECEMBER; month++) {
+            calendar.set(Calendar.MONTH, month);
+            monthNames[month] = displayName(calendar, Calendar.MONTH, Calendar.LONG_STANDALONE, Calendar.LONG);
+            shortMonthNames[month] = displayName(calendar, Calendar.MONTH, Calendar.SHORT_STANDALONE, Calendar.SHORT);
+        }
+        for (int day = Calendar.SUNDAY; day <= Calendar.SATURDAY; day++) {
+            calendar.set(Calendar.DAY_OF_WEEK, day);
+            dayNames[day] = displayName(calendar, Calendar.DAY_OF_WEEK, Calendar.SHORT_STANDALONE, Calendar.SHORT);
+        }
+        String[] days = new String[7];
+        for (int column = 0; column < days.length; column++) {
+            days[column] = dayNames[dayOfWeekOfColumn(column)];
+        }
+        this.daysOfWeek = List.of(days);
+    }
+
+    /**
+     * @param locale the locale
+     * @return the interned symbols of the locale with its own first day of week
+     */
+    public static LocaleCalendarInfo of(Locale locale) {
+        return of(locale, 0);
+    }
+
+    /**
+     * @param locale         the locale
+     * @param firstDayOfWeek first day of week, Calendar.SUNDAY..Calendar.SATURDAY, or 0 for the locale's own
+     * @return the interned symbols of the locale with the given first day of week
+     */
+    public static LocaleCalendarInfo of(Locale locale, int firstDayOfWeek) {
+        if (firstDayOfWeek < 0 || firstDayOfWeek > Calendar.SATURDAY) {
+            throw new IllegalArgumentException("Invalid first day of week: " + firstDayOfWeek);
+        }
+        AtomicReferenceArray<LocaleCalendarInfo> slots = CACHE.computeIfAbsent(locale, l -> new AtomicReferenceArray<>(8));
+        LocaleCalendarInfo info = slots.get(firstDayOfWeek);
+        if (info == null) {
+            // Concurrent first lookups may both build, only one instance is ever published
+            slots.compareAndSet(firstDayOfWeek, null, new LocaleCalendarInfo(locale, firstDayOfWeek));
+            info = slots.get(firstDayOfWeek);
+        }
+        return info;
+    }
+
+    /**
+     * @return the interned symbols of the current default locale with the first day of week of the
+     *         {@value #FIRST_DAY_OF_WEEK_PROPERTY} system property, or the locale's own when it is not set
+     * @throws IllegalArgumentException when the property is not a day of week
+     */
+    public static LocaleCalendarInfo ofDefault() {
+        String firstDayOfWeek = System.getProperty(FIRST_DAY_OF_WEEK_PROPERTY);
+        if (firstDayOfWeek == null || firstDayOfWeek.isBlank()) {
+            return of(Locale.getDefault());
+        }
+        try {
+            // DayOfWeek counts from MONDAY = 1, Calendar from SUNDAY = 1
+            DayOfWeek day = DayOfWeek.valueOf(firstDayOfWeek.trim().toUpperCase(Locale.ROOT));
+            return of(Locale.getDefault(), day.getValue() % 7 + 1);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid first day of week: " + firstDayOfWeek, e);
+        }
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return first day of week as one of the Calendar.SUNDAY..Calendar.SATURDAY constants
+     */
+    public int firstDayOfWeek() {
+        return firstDayOfWeek;
+    }
+
+    /**
+     * @param month zero based month as in Calendar.MONTH
+     * @return capitalized stand-alone month name
+     */
+    public String monthName(int month) {
+        return monthNames[month];
+    }
+
+    /**
+     * @param month zero based month as in Calendar.MONTH
+     * @return capitalized short stand-alone month name
+     */
+    public String shortMonthName(int month) {
+        return shortMonthNames[month];
+    }
+
+    /**
+     * @return capitalized short names of the 12 months
+     */
+    public String[] shortMonthNames() {
+        return shortMonthNames.clone();
+    }
+
+    /**
+     * @param dayOfWeek one of the Calendar.SUNDAY..Calendar.SATURDAY constants
+     * @return capitalized short stand-alone weekday name
+     */
+    public String dayName(int dayOfWeek) {
+        return dayNames[dayOfWeek];
+    }
+
+    /**
+     * @param column grid column from 0 to 6
+     * @return day of week shown in the column, Calendar.SUNDAY..Calendar.SATURDAY
+     */
+    public int dayOfWeekOfColumn(int column) {
+        return (firstDayOfWeek - 1 + column) % 7 + 1;
+    }
+
+    /**
+     * @return capitalized short weekday names in column order, starting with the first day of week,
+     *         as an unmodifiable list computed once per locale and first day of week
+     */
+    public List<String> daysOfWeek() {
+        return daysOfWeek;
+    }
+
+    /**
+     * Reads a display name and capitalizes its first letter, falling back to the format style
+     * for locales without stand-alone names.
+     */
+    private String displayName(Calendar calendar, int field, int style, int fallbackStyle) {
+        String name = calendar.getDisplayName(field, style, locale);
+        if (name == null) {
+            name = calendar.getDisplayName(field, fallbackStyle, locale);
+        }
+        if (name == null || name.isEmpty()) {
+            return String.valueOf(calendar.get(field) + (field == Calendar.MONTH ? 1 : 0));
+        }
+        return name.substring(0, 1).toUpperCase(locale) + name.substring(1);
+    }
+}
@@ -0,0 +1,247 @@
+package calendar;
+
+import javax.swing.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of computed month models keyed by year and month.
+ * <p>
+ * The months are kept in parallel arrays of int keys, models and last use stamps that are searched
+ * linearly, which for the few dozen months a view caches is faster than hashing and neither boxes
+ * the key nor allocates an entry per month.
+ * <p>
+ * 'get' computes a missing month on the calling thread. 'prefetchAround' computes the neighbouring
+ * months (one month and one year back and forth) on a shared background executor and publishes
+ * them into the cache on the event dispatch thread, so navigating to a neighbour is a cache hit.
+ * The months in flight are kept in an int array as well. Prefetching is best effort: a month whose
+ * loader throws is dropped and loaded again by the next prefetch or 'get'.
+ * Virtual threads are used when the running JDK provides them.
+ *
+ * @param <M> type of the month model
+ */
+public class MonthCache<M> {
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    /**
+     * Computes the model of a month, called on the EDT for misses and on the executor for prefetches.
+     */
+    @FunctionalInterface
+    public interface Loader<M> {
+        M load(int year, int month);
+    }
+
+    private final Loader<M> loader;
+    // year * 12 + month of each cached month, its model and the stamp of its last use
+    private final int[] keys;
+    private final Object[] models;
+    private final long[] lastUse;
+    private int size;
+    private long clock;
+    // Keys of the months being prefetched, grown when more are in flight
+    private int[] loading = new int[8];
+    private int loadingCount;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder prefetched = new LongAdder();
+
+    /**
+     * @param capacity maximum number of cached months
+     * @param loader   computes the model of a month
+     */
+    public MonthCache(int capacity, Loader<M> loader) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.loader = loader;
+        this.keys = new int[capacity];
+        this.models = new Object[capacity];
+        this.lastUse = new long[capacity];
+    }
+
+    /**
+     * Returns the model of a month, computing it on the calling thread when it is not cached.
+     *
+     * @param year  the year
+     * @param month zero based month as in Calendar.MONTH
+     * @return the model of the month
+     */
+    public M get(int year, int month) {
+        int key = key(year, month);
+        synchronized (this) {
+            int slot = indexOf(key);
+            if (slot >= 0) {
+                hits.increment();
+                lastUse[slot] = ++clock;
+                return model(slot);
+            }
+        }
+        misses.increment();
+        M model = loader.load(year, month);
+        synchronized (this) {
+            put(key, model);
+        }
+        return model;
+    }
+
+    /**
+     * Schedules the months one month and one year before and after the given month
+     * to be computed in the background.
+     *
+     * @param year  the year
+     * @param month zero based month as in Calendar.MONTH
+     */
+    public void prefetchAround(int year, int month) {
+        int key = key(year, month);
+        prefetch(key - 1);
+        prefetch(key + 1);
+        prefetch(key - 12);
+        prefetch(key + 12);
+    }
+
+    /**
+     * Drops all cached months, e.g. when the data behind them changed.
+     * Prefetches that are still running are published when they finish.
+     */
+    public synchronized void clear() {
+        Arrays.fill(models, 0, size, null);
+        size = 0;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of months computed in the background and published into the cache
+     */
+    public long getPrefetchCount() {
+        return prefetched.sum();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void prefetch(int key) {
+        synchronized (this) {
+            if (indexOf(key) >= 0 || !startLoading(key)) {
+                return;
+            }
+        }
+        EXECUTOR.execute(() -> {
+            M model;
+            try {
+                model = loader.load(Math.floorDiv(key, 12), Math.floorMod(key, 12));
+            }
+            catch (RuntimeException e) {
+                // Not left loading forever, the next prefetch tries the month again
+                synchronized (this) {
+                    stopLoading(key);
+                }
+                return;
+            }
+            SwingUtilities.invokeLater(() -> publish(key, model));
+        });
+    }
+
+    private synchronized void publish(int key, M model) {
+        stopLoading(key);
+        // A month computed on the EDT in the meantime wins
+        if (indexOf(key) < 0) {
+            put(key, model);
+            prefetched.increment();
+        }
+    }
+
+    /**
+     * @return false when the month is already being prefetched
+     */
+    private boolean startLoading(int key) {
+        for (int i = 0; i < loadingCount; i++) {
+            if (loading[i] == key) {
+                return false;
+            }
+        }
+        if (loadingCount == loading.length) {
+            loading = Arrays.copyOf(loading, loadingCount * 2);
+        }
+        loading[loadingCount++] = key;
+        return true;
+    }
+
+    private void stopLoading(int key) {
+        for (int i = 0; i < loadingCount; i++) {
+            if (loading[i] == key) {
+                loading[i] = loading[--loadingCount];
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return slot of the month or -1 when it is not cached
+     */
+    private int indexOf(int key) {
+        for (int slot = 0; slot < size; slot++) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a month, in a free slot while there is one and otherwise in place of the least recently used.
+     */
+    private void put(int key, M model) {
+        int slot = indexOf(key);
+        if (slot < 0 && size < keys.length) {
+            slot = size++;
+        }
+        else if (slot < 0) {
+            slot = 0;
+            for (int i = 1; i < size; i++) {
+                if (lastUse[i] < lastUse[slot]) {
+                    slot = i;
+                }
+            }
+        }
+        keys[slot] = key;
+        models[slot] = model;
+        lastUse[slot] = ++clock;
+    }
+
+    @SuppressWarnings("unchecked")
+    private M model(int slot) {
+        return (M) models[slot];
+    }
+
+    private static int key(int year, int month) {
+        return year * 12 + month;
+    }
+
+    /**
+     * Uses a virtual thread per task when the JDK has them (Java 21+) and otherwise
+     * a small pool of daemon threads so the cache never keeps the application alive.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(2, task -> {
+                Thread thread = new Thread(task, "month-prefetch");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package calendar;
+
+/**
+ * Immutable model of the 42 day cells shown for a month. Each cell knows its epoch day,
+ * its day of month and whether it belongs to the shown month and whether it is today,
+ * so views can render and handle clicks without formatting or parsing dates.
+ * <p>
+ * The cells themselves are the shared MonthGrid of the month, this model only adds today,
+ * so many panels showing a month compute its grid once.
+ */
+public final class MonthCells {
+    private final MonthGrid grid;
+    private final long todayEpochDay;
+    private final int todayCell;
+
+    private MonthCells(MonthGrid grid, long todayEpochDay) {
+        this.grid = grid;
+        this.todayEpochDay = todayEpochDay;
+        this.todayCell = grid.cellOf(todayEpochDay);
+    }
+
+    /**
+     * Returns the cells of a month on top of its interned grid. The cells of a grid for the last today
+     * are kept with the grid, so asking again for a month allocates nothing. Safe on any thread.
+     *
+     * @param year           the year
+     * @param month          zero based month as in Calendar.MONTH
+     * @param firstDayOfWeek first column of the grid, Calendar.SUNDAY..Calendar.SATURDAY
+     * @param todayEpochDay  epoch day of today, used to flag the today cell
+     * @return the cells of the month
+     */
+    public static MonthCells of(int year, int month, int firstDayOfWeek, long todayEpochDay) {
+        return of(MonthGrid.of(year, month, firstDayOfWeek), todayEpochDay);
+    }
+
+    private static MonthCells of(MonthGrid grid, long todayEpochDay) {
+        MonthCells cells = grid.cells;
+        if (cells == null || cells.todayEpochDay != todayEpochDay) {
+            // Racing threads may each build the cells, they are equivalent
+            cells = new MonthCells(grid, todayEpochDay);
+            grid.cells = cells;
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the same month with another today, e.g. after midnight. The grid is shared.
+     *
+     * @param todayEpochDay epoch day of today
+     * @return these cells when today is unchanged, otherwise the cells of the same grid for that today
+     */
+    public MonthCells withToday(long todayEpochDay) {
+        return todayEpochDay == this.todayEpochDay ? this : of(grid, todayEpochDay);
+    }
+
+    public long todayEpochDay() {
+        return todayEpochDay;
+    }
+
+    /**
+     * @return the cell of today or -1 when today is not shown
+     */
+    public int todayCell() {
+        return todayCell;
+    }
+
+    /**
+     * @return the shared grid of the month
+     */
+    public MonthGrid grid() {
+        return grid;
+    }
+
+    public int year() {
+        return grid.year();
+    }
+
+    public int month() {
+        return grid.month();
+    }
+
+    /**
+     * @return number of cells that make up full weeks of the month (28, 35 or 42),
+     *         cells past this index are not part of the month view
+     */
+    public int size() {
+        return grid.size();
+    }
+
+    public long epochDay(int cell) {
+        return grid.epochDay(cell);
+    }
+
+    public int dayOfMonth(int cell) {
+        return grid.dayOfMonth(cell);
+    }
+
+    public boolean isInMonth(int cell) {
+        return grid.isInMonth(cell);
+    }
+
+    public boolean isToday(int cell) {
+        return cell == todayCell;
+    }
+}
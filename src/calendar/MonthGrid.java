@@ -0,0 +1,146 @@
+package calendar;
+
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable grid of the 42 day cells of a month for a first day of week, without anything that
+ * depends on the viewer such as today. Grids are interned, so all panels and tables showing a month
+ * share a single instance, and building or reading them is safe on any thread.
+ * <p>
+ * The cells are a contiguous run of epoch days, so a grid only stores the first day and the
+ * days of month, and locating a day is a subtraction.
+ */
+public final class MonthGrid {
+    // About 1365 years of every first day of week, direct mapped by month so a lookup neither boxes
+    // a key nor allocates. Interning is only an optimization, a month whose slot was taken by another
+    // one is built again on demand
+    private static final int INTERNED_MONTHS = 1 << 14;
+    private static final AtomicReferenceArray<MonthGrid> GRIDS = new AtomicReferenceArray<>(INTERNED_MONTHS * 8);
+
+    private final int year;
+    private final int month;
+    private final int firstDayOfWeek;
+    private final int size;
+    private final long firstEpochDay;
+    // Cells of the 1st and the last day of the month
+    private final int firstInMonth;
+    private final int lastInMonth;
+    private final byte[] daysOfMonth = new byte[MonthGridEngine.CELLS];
+    // Cells of this grid for the last today asked for, so views and caches share them, see MonthCells.of
+    volatile MonthCells cells;
+
+    private MonthGrid(int year, int month, int firstDayOfWeek) {
+        this.year = year;
+        this.month = month;
+        this.firstDayOfWeek = firstDayOfWeek;
+        long first = MonthGridEngine.epochDay(year, month, 1);
+        int length = MonthGridEngine.daysInMonth(year, month);
+        int previousLength = month == Calendar.JANUARY ? 31 : MonthGridEngine.daysInMonth(year, month - 1);
+        // Same layout as MonthGridEngine.fill, without its temporary arrays
+        this.firstInMonth = Math.floorMod(MonthGridEngine.dayOfWeek(first) - firstDayOfWeek, 7);
+        this.lastInMonth = firstInMonth + length - 1;
+        this.firstEpochDay = first - firstInMonth;
+        this.size = (lastInMonth + MonthGridEngine.DAYS_OF_WEEK) / MonthGridEngine.DAYS_OF_WEEK * MonthGridEngine.DAYS_OF_WEEK;
+        for (int i = 0; i < MonthGridEngine.CELLS; i++) {
+            int day = i - firstInMonth + 1;
+            daysOfMonth[i] = (byte) (day < 1 ? day + previousLength : day > length ? day - length : day);
+        }
+    }
+
+    /**
+     * Returns the interned grid of a month, building it on first use. Concurrent first uses of a month
+     * may each build it, all but one of those grids are then dropped.
+     *
+     * @param year           the year
+     * @param month          zero based month as in Calendar.MONTH
+     * @param firstDayOfWeek first column of the grid, Calendar.SUNDAY..Calendar.SATURDAY
+     * @return the shared grid of the month
+     */
+    public static MonthGrid of(int year, int month, int firstDayOfWeek) {
+        if (month < Calendar.JANUARY || month > Calendar.DECEMBER) {
+            throw new IllegalArgumentException("Invalid month: " + month);
+        }
+        if (firstDayOfWeek < Calendar.SUNDAY || firstDayOfWeek > Calendar.SATURDAY) {
+            throw new IllegalArgumentException("Invalid first day of week: " + firstDayOfWeek);
+        }
+        int slot = Math.floorMod(year * 12 + month, INTERNED_MONTHS) * 8 + firstDayOfWeek;
+        MonthGrid grid = GRIDS.get(slot);
+        if (grid != null && grid.year == year && grid.month == month) {
+            return grid;
+        }
+        MonthGrid built = new MonthGrid(year, month, firstDayOfWeek);
+        MonthGrid witness = GRIDS.compareAndExchange(slot, grid, built);
+        // Another thread interned the month first, share its grid
+        return witness != grid && witness != null && witness.year == year && witness.month == month ? witness : built;
+    }
+
+    /**
+     * @return number of grids currently interned, counted over the whole table
+     */
+    public static int internedCount() {
+        int count = 0;
+        for (int slot = 0; slot < GRIDS.length(); slot++) {
+            if (GRIDS.get(slot) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int year() {
+        return year;
+    }
+
+    public int month() {
+        return month;
+    }
+
+    public int firstDayOfWeek() {
+        return firstDayOfWeek;
+    }
+
+    /**
+     * @return number of cells that make up full weeks of the month (28, 35 or 42)
+     */
+    public int size() {
+        return size;
+    }
+
+    public long epochDay(int cell) {
+        return firstEpochDay + cell;
+    }
+
+    public int dayOfMonth(int cell) {
+        return daysOfMonth[cell];
+    }
+
+    public boolean isInMonth(int cell) {
+        return cell >= firstInMonth && cell <= lastInMonth;
+    }
+
+    /**
+     * @param epochDay days since 1970-01-01
+     * @return cell showing the day or -1 when the day is not in the 42 cells
+     */
+    public int cellOf(long epochDay) {
+        long cell = epochDay - firstEpochDay;
+        return cell >= 0 && cell < MonthGridEngine.CELLS ? (int) cell : -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MonthGrid other
+                && year == other.year && month == other.month && firstDayOfWeek == other.firstDayOfWeek;
+    }
+
+    @Override
+    public int hashCode() {
+        return (year * 12 + month) * 8 + firstDayOfWeek;
+    }
+
+    @Override
+    public String toString() {
+        return "MonthGrid[" + year + "-" + (month + 1) + ", first day " + firstDayOfWeek + "]";
+    }
+}
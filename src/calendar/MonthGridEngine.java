@@ -0,0 +1,164 @@
+package calendar;
+
+import java.util.Calendar;
+
+/**
+ * Computes the 6 x 7 day grid of a month with plain epoch-day arithmetic.
+ * Nothing is allocated and no java.util.Calendar is touched, so a whole month
+ * costs a handful of integer operations instead of dozens of Calendar recomputations.
+ * <p>
+ * Months are zero based like Calendar.MONTH and days of week use the Calendar.SUNDAY..SATURDAY
+ * constants, so the results can be mixed freely with the existing Calendar based code.
+ * Dates are proleptic Gregorian (no Julian cutover).
+ */
+public final class MonthGridEngine {
+    public static final int DAYS_OF_WEEK   = 7;
+    public static final int WEEKS_OF_MONTH = 6;
+    public static final int CELLS          = DAYS_OF_WEEK * WEEKS_OF_MONTH;
+
+    // Days from 0000-03-01 to 1970-01-01
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private MonthGridEngine() {}
+
+    /**
+     * Returns the number of days since 1970-01-01 for the given date.
+     *
+     * @param year  the year, e.g. 2024
+     * @param month zero based month as in Calendar.MONTH
+     * @param day   day of the month starting at 1
+     * @return the epoch day of the date
+     */
+    public static long epochDay(int year, int month, int day) {
+        // Shift the year to start in March so the leap day is the last day of the year
+        int m = month + 1;
+        long y = m <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (m > 2 ? m - 3 : m + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Returns the epoch day of the date currently held by the calendar.
+     *
+     * @param calendar calendar to read year, month and day of month from
+     * @return the epoch day of the calendar date
+     */
+    public static long epochDay(Calendar calendar) {
+        return epochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Converts an epoch day back to its date. The date is packed into one int so no object is needed,
+     * read it with {@link #year(int)}, {@link #month(int)} and {@link #dayOfMonth(int)}.
+     *
+     * @param epochDay days since 1970-01-01
+     * @return the packed date
+     */
+    public static int date(long epochDay) {
+        long dayOfAll = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(dayOfAll, DAYS_PER_ERA);
+        long dayOfEra = dayOfAll - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        // Months counted from March, see 'epochDay'
+        int marchMonth = (int) ((5 * dayOfYear + 2) / 153);
+        int day = (int) (dayOfYear - (153L * marchMonth + 2) / 5 + 1);
+        int month = marchMonth < 10 ? marchMonth + 2 : marchMonth - 10;
+        int year = (int) (yearOfEra + era * 400 + (month <= Calendar.FEBRUARY ? 1 : 0));
+        return year << 9 | month << 5 | day;
+    }
+
+    /**
+     * @param date date packed by {@link #date(long)}
+     * @return the year
+     */
+    public static int year(int date) {
+        return date >> 9;
+    }
+
+    /**
+     * @param date date packed by {@link #date(long)}
+     * @return zero based month as in Calendar.MONTH
+     */
+    public static int month(int date) {
+        return date >> 5 & 0xF;
+    }
+
+    /**
+     * @param date date packed by {@link #date(long)}
+     * @return day of the month starting at 1
+     */
+    public static int dayOfMonth(int date) {
+        return date & 0x1F;
+    }
+
+    /**
+     * @param epochDay days since 1970-01-01
+     * @return day of week as one of the Calendar.SUNDAY..Calendar.SATURDAY constants
+     */
+    public static int dayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday
+        return (int) Math.floorMod(epochDay + 4, 7L) + 1;
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * @param year  the year
+     * @param month zero based month as in Calendar.MONTH
+     * @return number of days in the month
+     */
+    public static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case Calendar.FEBRUARY -> isLeapYear(year) ? 29 : 28;
+            case Calendar.APRIL, Calendar.JUNE, Calendar.SEPTEMBER, Calendar.NOVEMBER -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Fills the grid of a month into the given arrays. The grid starts on the first day of
+     * the week containing the 1st and always fills all 42 cells, overlapping into the previous
+     * and next month as needed. Any array may be null if the caller does not need it,
+     * otherwise it must hold at least {@link #CELLS} elements.
+     *
+     * @param year           the year
+     * @param month          zero based month as in Calendar.MONTH
+     * @param firstDayOfWeek first column of the grid, Calendar.SUNDAY..Calendar.SATURDAY
+     * @param daysOfMonth    receives the day of month of each cell
+     * @param monthOffsets   receives -1, 0 or 1 for cells in the previous, current or next month
+     * @param epochDays      receives the epoch day of each cell
+     * @return number of cells making up full weeks that contain the month (28, 35 or 42)
+     */
+    public static int fill(int year, int month, int firstDayOfWeek,
+                           int[] daysOfMonth, int[] monthOffsets, long[] epochDays) {
+        long first = epochDay(year, month, 1);
+        int leading = Math.floorMod(dayOfWeek(first) - firstDayOfWeek, 7);
+        int length = daysInMonth(year, month);
+        int previousLength = month == Calendar.JANUARY ? 31 : daysInMonth(year, month - 1);
+        long start = first - leading;
+
+        for (int i = 0; i < CELLS; i++) {
+            int day = i - leading + 1;
+            int offset = 0;
+            if (day < 1) {
+                day += previousLength;
+                offset = -1;
+            }
+            else if (day > length) {
+                day -= length;
+                offset = 1;
+            }
+            if (daysOfMonth  != null) daysOfMonth[i]  = day;
+            if (monthOffsets != null) monthOffsets[i] = offset;
+            if (epochDays    != null) epochDays[i]    = start + i;
+        }
+        return (leading + length + DAYS_OF_WEEK - 1) / DAYS_OF_WEEK * DAYS_OF_WEEK;
+    }
+}
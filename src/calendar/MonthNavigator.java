@@ -0,0 +1,102 @@
+package calendar;
+
+import javax.swing.*;
+
+/**
+ * Coalesces bursts of month navigation into a single render.
+ * <p>
+ * Every 'navigate' call adds its offset to the target month and reports the new target right away,
+ * so cheap feedback like header labels follows every step. The expensive render of the grid runs
+ * at most once per frame with the net offset of all calls since the last render, so holding a
+ * navigation button or scripting hundreds of steps renders only the months that are actually seen.
+ * Must be used on the event dispatch thread.
+ */
+public class MonthNavigator {
+    // One frame at 60 Hz
+    public static final int FRAME_MILLIS = 16;
+
+    /**
+     * Receives the year and month the navigator points to.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void monthChanged(int year, int month);
+    }
+
+    private final Listener targetListener;
+    private final Listener renderListener;
+    private final Timer renderTimer;
+    private int target;
+    private int rendered;
+    private long requestCount;
+    private long renderCount;
+
+    /**
+     * @param year           initial year, assumed to be rendered already
+     * @param month          initial zero based month as in Calendar.MONTH
+     * @param targetListener called on every navigation step with the new target month
+     * @param renderListener called once per frame with the latest target month when it differs from the rendered one
+     */
+    public MonthNavigator(int year, int month, Listener targetListener, Listener renderListener) {
+        this.target = year * 12 + month;
+        this.rendered = target;
+        this.targetListener = targetListener;
+        this.renderListener = renderListener;
+        this.renderTimer = new Timer(FRAME_MILLIS, e -> render());
+        this.renderTimer.setRepeats(false);
+    }
+
+    /**
+     * Moves the target month by the given number of months and schedules a render for the next frame.
+     *
+     * @param months offset in months, negative to go back
+     */
+    public void navigate(int months) {
+        requestCount++;
+        target += months;
+        targetListener.monthChanged(getYear(), getMonth());
+        if (!renderTimer.isRunning()) {
+            renderTimer.start();
+        }
+    }
+
+    /**
+     * Renders the pending target right away, e.g. before painting to an image.
+     */
+    public void flush() {
+        renderTimer.stop();
+        render();
+    }
+
+    public int getYear() {
+        return Math.floorDiv(target, 12);
+    }
+
+    public int getMonth() {
+        return Math.floorMod(target, 12);
+    }
+
+    /**
+     * @return number of 'navigate' calls
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return number of renders, at most one per frame however many navigation calls were made
+     */
+    public long getRenderCount() {
+        return renderCount;
+    }
+
+    private void render() {
+        // Navigating back and forth within a frame may end on the rendered month
+        if (target == rendered) {
+            return;
+        }
+        rendered = target;
+        renderCount++;
+        renderListener.monthChanged(getYear(), getMonth());
+    }
+}
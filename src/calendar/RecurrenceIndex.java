@@ -0,0 +1,252 @@
+package calendar;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recurring series and their occurrence counts per window of days.
+ * <p>
+ * Series keep only their rule, occurrences are expanded on demand and only inside the requested window,
+ * e.g. the 42 days of a month grid or the visible rows of a table. The counts of recently requested
+ * windows are cached, so repainting or navigating back to a month does not expand the rules again.
+ * Adding, changing or removing a series invalidates the cached windows.
+ * <p>
+ * Series ids are assigned in insertion order starting at 1. Methods are synchronized.
+ */
+public class RecurrenceIndex {
+    private static final int DEFAULT_CACHED_WINDOWS = 16;
+
+    /**
+     * A recurring series of events.
+     */
+    public record Series(long id, RecurrenceRule rule, int startMinute, int durationMinutes, String title) {}
+
+    /**
+     * Receives the occurrences of a window.
+     */
+    @FunctionalInterface
+    public interface OccurrenceConsumer {
+        void occurrence(long seriesId, long epochDay);
+    }
+
+    private record Window(long fromEpochDay, int days) {}
+
+    private Series[] series = new Series[64];
+    private int size;
+    private int liveCount;
+    // Span of all live series, windows outside it are empty without looking at any rule
+    private long firstEpochDay = Long.MAX_VALUE;
+    private long lastEpochDay = Long.MIN_VALUE;
+
+    private final Map<Window, int[]> windows;
+    // Counts of the window being expanded, reused while the window length stays the same
+    private int[] scratch = new int[MonthGridEngine.CELLS];
+    private long version;
+    private long expansionCount;
+    private long hitCount;
+
+    public RecurrenceIndex() {
+        this(DEFAULT_CACHED_WINDOWS);
+    }
+
+    /**
+     * @param cachedWindows number of windows whose counts are kept
+     */
+    public RecurrenceIndex(int cachedWindows) {
+        this.windows = new LinkedHashMap<>(cachedWindows * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Window, int[]> eldest) {
+                return size() > cachedWindows;
+            }
+        };
+    }
+
+    /**
+     * @return id of the new series
+     */
+    public synchronized long add(RecurrenceRule rule, int startMinute, int durationMinutes, String title) {
+        if (size == series.length) {
+            series = Arrays.copyOf(series, size * 2);
+        }
+        long id = size + 1;
+        series[size++] = new Series(id, rule, startMinute, durationMinutes, title);
+        liveCount++;
+        extendSpan(rule);
+        invalidate();
+        return id;
+    }
+
+    /**
+     * Replaces the rule of a series, e.g. after an exception was added.
+     *
+     * @return false when the series does not exist
+     */
+    public synchronized boolean setRule(long id, RecurrenceRule rule) {
+        Series old = get(id);
+        if (old == null) {
+            return false;
+        }
+        series[(int) id - 1] = new Series(id, rule, old.startMinute(), old.durationMinutes(), old.title());
+        extendSpan(rule);
+        invalidate();
+        return true;
+    }
+
+    /**
+     * @return false when the series does not exist
+     */
+    public synchronized boolean remove(long id) {
+        if (get(id) == null) {
+            return false;
+        }
+        series[(int) id - 1] = null;
+        liveCount--;
+        invalidate();
+        return true;
+    }
+
+    /**
+     * @return the series or null when it does not exist or was removed
+     */
+    public synchronized Series get(long id) {
+        return id < 1 || id > size ? null : series[(int) id - 1];
+    }
+
+    /**
+     * @return number of live series
+     */
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    /**
+     * Fills counts with the number of occurrences on each day of the window starting at fromEpochDay,
+     * one element per day, expanding the rules only when the window is not cached.
+     *
+     * @param fromEpochDay first day of the window
+     * @param counts       receives the per day counts, its length is the window length
+     * @return total number of occurrences in the window
+     */
+    public synchronized int countOccurrences(long fromEpochDay, int[] counts) {
+        int[] window = window(fromEpochDay, counts.length);
+        if (window == null) {
+            Arrays.fill(counts, 0);
+            return 0;
+        }
+        System.arraycopy(window, 0, counts, 0, counts.length);
+        return window[counts.length];
+    }
+
+    /**
+     * Adds the occurrence counts of the window to counts, e.g. on top of the counts of single events.
+     * Nothing is allocated unless the window has to be expanded.
+     *
+     * @param fromEpochDay first day of the window
+     * @param counts       per day counts to add to
+     * @return number of occurrences added
+     */
+    public synchronized int addOccurrenceCounts(long fromEpochDay, int[] counts) {
+        int[] window = window(fromEpochDay, counts.length);
+        if (window == null || window[counts.length] == 0) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += window[i];
+        }
+        return window[counts.length];
+    }
+
+    /**
+     * Passes the occurrences of all series in the window to the consumer, series by series.
+     * Nothing is cached or allocated per occurrence.
+     *
+     * @param fromEpochDay first day of the window
+     * @param toEpochDay   last day of the window
+     * @param consumer     receives the series id and day of each occurrence
+     */
+    public synchronized void forEachOccurrence(long fromEpochDay, long toEpochDay, OccurrenceConsumer consumer) {
+        if (toEpochDay < firstEpochDay || fromEpochDay > lastEpochDay) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            Series s = series[i];
+            if (s != null) {
+                long id = s.id();
+                s.rule().expand(fromEpochDay, toEpochDay, day -> consumer.occurrence(id, day));
+            }
+        }
+    }
+
+    /**
+     * @return number of windows expanded from the rules, windows outside the span of all series are not
+     *         expanded and not counted
+     */
+    public synchronized long getExpansionCount() {
+        return expansionCount;
+    }
+
+    /**
+     * @return number of windows served from the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return version incremented on every change of the series
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Looks up the counts of a window, expanding the rules when it is not cached.
+     *
+     * @return the per day counts with the total as an extra last element, or null when the window
+     *         is outside the span of all series and has no occurrences
+     */
+    private int[] window(long fromEpochDay, int days) {
+        if (fromEpochDay + days - 1 < firstEpochDay || fromEpochDay > lastEpochDay) {
+            return null;
+        }
+        Window window = new Window(fromEpochDay, days);
+        int[] cached = windows.get(window);
+        if (cached != null) {
+            hitCount++;
+            return cached;
+        }
+        expansionCount++;
+        if (scratch.length != days) {
+            scratch = new int[days];
+        }
+        else {
+            Arrays.fill(scratch, 0);
+        }
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            Series s = series[i];
+            if (s != null) {
+                total += s.rule().count(fromEpochDay, scratch);
+            }
+        }
+        cached = Arrays.copyOf(scratch, days + 1);
+        cached[days] = total;
+        windows.put(window, cached);
+        return cached;
+    }
+
+    /**
+     * Widens the span of all series. Removing a series leaves the span as it is, it only
+     * has to be a bound.
+     */
+    private void extendSpan(RecurrenceRule rule) {
+        firstEpochDay = Math.min(firstEpochDay, rule.getStartEpochDay());
+        lastEpochDay = Math.max(lastEpochDay, rule.getLastEpochDay());
+    }
+
+    private void invalidate() {
+        version++;
+        windows.clear();
+    }
+}
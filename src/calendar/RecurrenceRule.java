@@ -0,0 +1,456 @@
+package calendar;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable recurrence of a series of all-day occurrences, a subset of the iCalendar RRULE:
+ * FREQ=DAILY, WEEKLY, MONTHLY or YEARLY with INTERVAL, BYDAY, COUNT and UNTIL, plus EXDATE exceptions.
+ * <p>
+ * Occurrences are never materialized. A rule splits time into periods (a day, a Monday based week,
+ * a month or a year) and describes the days of a period as a bit mask, so expanding a window jumps straight to
+ * the first period that overlaps it and only visits the periods inside. COUNT is turned into the day
+ * of the last occurrence once, when the rule is built, so a window far from the start of a counted
+ * series does not replay the series either.
+ */
+public final class RecurrenceRule {
+    public enum Frequency { DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    private static final String[] DAY_CODES = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+    private static final long NO_END = Long.MAX_VALUE;
+    // 1970-01-05, the first Monday after the epoch
+    private static final long FIRST_MONDAY = 4;
+
+    private final long startEpochDay;
+    private final Frequency frequency;
+    private final int interval;
+    // Weekdays of BYDAY as bits 1 << Calendar.SUNDAY..SATURDAY, 0 when BYDAY is absent
+    private final int byDay;
+    // Ordinal of each BYDAY weekday for MONTHLY, e.g. 1 for 1MO and -1 for -1FR, 0 for every such weekday
+    private final int[] byDayOrdinals;
+    private final int count;
+    private final long untilEpochDay;
+    // Sorted EXDATE days
+    private final long[] exceptions;
+    // Last occurrence day as derived from COUNT and UNTIL
+    private final long lastEpochDay;
+    private final long startPeriod;
+
+    private RecurrenceRule(long startEpochDay, Frequency frequency, int interval, int byDay, int[] byDayOrdinals,
+                           int count, long untilEpochDay, long[] exceptions) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        if (byDay != 0 && frequency == Frequency.YEARLY) {
+            throw new IllegalArgumentException("BYDAY is not supported with FREQ=YEARLY");
+        }
+        this.startEpochDay = startEpochDay;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.byDayOrdinals = byDayOrdinals;
+        this.count = count;
+        this.untilEpochDay = untilEpochDay;
+        this.exceptions = exceptions;
+        this.startPeriod = period(startEpochDay);
+        this.lastEpochDay = count > 0 ? countedEnd() : untilEpochDay;
+    }
+
+    /**
+     * @param startEpochDay  first day of the series
+     * @param frequency      length of a period
+     * @param interval       number of periods between recurrences, 1 or more
+     * @return a rule recurring forever on the weekday, day of month or day of year of the start
+     */
+    public static RecurrenceRule of(long startEpochDay, Frequency frequency, int interval) {
+        return new RecurrenceRule(startEpochDay, frequency, interval, 0, null, 0, NO_END, new long[0]);
+    }
+
+    /**
+     * Parses the value of an RRULE property, e.g. "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;UNTIL=20271231".
+     *
+     * @param startEpochDay first day of the series, the DTSTART of the event
+     * @param rrule         rule parts separated by ';', parts outside the supported subset are rejected
+     * @return the parsed rule
+     * @throws IllegalArgumentException when the rule is malformed or uses unsupported parts
+     */
+    public static RecurrenceRule parse(long startEpochDay, String rrule) {
+        Frequency frequency = null;
+        int interval = 1;
+        int byDay = 0;
+        int[] ordinals = null;
+        int count = 0;
+        long until = NO_END;
+        for (String part : rrule.trim().split(";")) {
+            int eq = part.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Malformed rule part: " + part);
+            }
+            String name = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(eq + 1).trim().toUpperCase(Locale.ROOT);
+            try {
+                switch (name) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value);
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    case "UNTIL" -> until = parseDate(value);
+                    case "WKST" -> {
+                        // Weeks always start on Monday, the iCalendar default
+                        if (!value.equals("MO")) {
+                            throw new IllegalArgumentException("Unsupported WKST: " + value);
+                        }
+                    }
+                    case "BYDAY" -> {
+                        ordinals = new int[8];
+                        for (String day : value.split(",")) {
+                            int dayOfWeek = dayOfWeek(day.substring(day.length() - 2));
+                            byDay |= 1 << dayOfWeek;
+                            if (day.length() > 2) {
+                                int ordinal = Integer.parseInt(day.substring(0, day.length() - 2).replace("+", ""));
+                                // A month has at most five of each weekday
+                                if (ordinal == 0 || ordinal < -5 || ordinal > 5) {
+                                    throw new IllegalArgumentException("BYDAY ordinal must be 1 to 5 or -1 to -5: " + day);
+                                }
+                                ordinals[dayOfWeek] = ordinal;
+                            }
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported rule part: " + name);
+                }
+            }
+            catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Malformed rule part: " + part, e);
+            }
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("Rule without FREQ: " + rrule);
+        }
+        if (count < 0 || (count > 0 && until != NO_END)) {
+            throw new IllegalArgumentException("Invalid COUNT in rule: " + rrule);
+        }
+        if (ordinals != null && frequency != Frequency.MONTHLY) {
+            for (int ordinal : ordinals) {
+                if (ordinal != 0) {
+                    throw new IllegalArgumentException("BYDAY ordinals need FREQ=MONTHLY: " + rrule);
+                }
+            }
+        }
+        return new RecurrenceRule(startEpochDay, frequency, interval, byDay, ordinals, count, until, new long[0]);
+    }
+
+    /**
+     * @param count number of occurrences, counted from the start including excepted days
+     * @return a copy of this rule ending after the given number of occurrences
+     */
+    public RecurrenceRule withCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        return new RecurrenceRule(startEpochDay, frequency, interval, byDay, byDayOrdinals, count, NO_END, exceptions);
+    }
+
+    /**
+     * @param untilEpochDay last day an occurrence may fall on
+     * @return a copy of this rule ending on the given day
+     */
+    public RecurrenceRule withUntil(long untilEpochDay) {
+        return new RecurrenceRule(startEpochDay, frequency, interval, byDay, byDayOrdinals, 0, untilEpochDay, exceptions);
+    }
+
+    /**
+     * @param daysOfWeek Calendar.SUNDAY..SATURDAY constants
+     * @return a copy of this rule recurring on the given weekdays of each period
+     */
+    public RecurrenceRule withDays(int... daysOfWeek) {
+        int mask = 0;
+        for (int dayOfWeek : daysOfWeek) {
+            if (dayOfWeek < Calendar.SUNDAY || dayOfWeek > Calendar.SATURDAY) {
+                throw new IllegalArgumentException("Invalid day of week: " + dayOfWeek);
+            }
+            mask |= 1 << dayOfWeek;
+        }
+        return new RecurrenceRule(startEpochDay, frequency, interval, mask, null, count, untilEpochDay, exceptions);
+    }
+
+    /**
+     * @param epochDays days to leave out, the EXDATE of the event
+     * @return a copy of this rule without occurrences on the given days
+     */
+    public RecurrenceRule withExceptions(long... epochDays) {
+        long[] merged = Arrays.copyOf(exceptions, exceptions.length + epochDays.length);
+        System.arraycopy(epochDays, 0, merged, exceptions.length, epochDays.length);
+        Arrays.sort(merged);
+        return new RecurrenceRule(startEpochDay, frequency, interval, byDay, byDayOrdinals, count, untilEpochDay, merged);
+    }
+
+    public long getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return day of the last occurrence or Long.MAX_VALUE for a series without end
+     */
+    public long getLastEpochDay() {
+        return lastEpochDay;
+    }
+
+    /**
+     * Passes every occurrence in the window to the consumer in ascending order.
+     * Only the periods overlapping the window are visited.
+     *
+     * @param fromEpochDay first day of the window
+     * @param toEpochDay   last day of the window
+     * @param consumer     receives the days of the occurrences
+     * @return number of occurrences in the window
+     */
+    public int expand(long fromEpochDay, long toEpochDay, LongConsumer consumer) {
+        long from = Math.max(fromEpochDay, startEpochDay);
+        long to = Math.min(toEpochDay, lastEpochDay);
+        if (from > to) {
+            return 0;
+        }
+        int n = 0;
+        // First period of the series at or after the period containing 'from'
+        long period = startPeriod + ceilDiv(period(from) - startPeriod, interval) * interval;
+        for (; periodStart(period) <= to; period += interval) {
+            long start = periodStart(period);
+            long mask = mask(period);
+            while (mask != 0) {
+                long day = start + Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                if (day < from) {
+                    continue;
+                }
+                if (day > to) {
+                    return n;
+                }
+                if (exceptions.length == 0 || Arrays.binarySearch(exceptions, day) < 0) {
+                    consumer.accept(day);
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Adds one to counts[day - fromEpochDay] for every occurrence in the window of counts.length days.
+     *
+     * @param fromEpochDay first day of the window
+     * @param counts       per day counts to add to
+     * @return number of occurrences in the window
+     */
+    public int count(long fromEpochDay, int[] counts) {
+        return expand(fromEpochDay, fromEpochDay + counts.length - 1, day -> counts[(int) (day - fromEpochDay)]++);
+    }
+
+    /**
+     * @return the occurrence days of the period relative to the period's first day, as a bit mask
+     */
+    private long mask(long period) {
+        switch (frequency) {
+            case DAILY -> {
+                return byDay == 0 || (byDay & 1 << MonthGridEngine.dayOfWeek(period)) != 0 ? 1 : 0;
+            }
+            case WEEKLY -> {
+                // Bit 0 is Monday
+                if (byDay == 0) {
+                    return 1L << mondayIndex(startEpochDay);
+                }
+                long mask = 0;
+                for (int dayOfWeek = Calendar.SUNDAY; dayOfWeek <= Calendar.SATURDAY; dayOfWeek++) {
+                    if ((byDay & 1 << dayOfWeek) != 0) {
+                        mask |= 1L << (dayOfWeek + 5) % 7;
+                    }
+                }
+                return mask;
+            }
+            case MONTHLY -> {
+                int year = (int) Math.floorDiv(period, 12);
+                int month = Math.floorMod(period, 12);
+                int length = MonthGridEngine.daysInMonth(year, month);
+                if (byDay == 0) {
+                    // Months without the day of the start are skipped, as in RFC 5545
+                    int day = MonthGridEngine.dayOfMonth(MonthGridEngine.date(startEpochDay));
+                    return day <= length ? 1L << (day - 1) : 0;
+                }
+                return weekdaysOfMonth(MonthGridEngine.dayOfWeek(MonthGridEngine.epochDay(year, month, 1)), length);
+            }
+            default -> {
+                // YEARLY recurs on the day of the start in its month, February 29 only in leap years
+                int date = MonthGridEngine.date(startEpochDay);
+                int year = (int) period;
+                int day = MonthGridEngine.dayOfMonth(date);
+                return day <= MonthGridEngine.daysInMonth(year, MonthGridEngine.month(date)) ? 1L << (day - 1) : 0;
+            }
+        }
+    }
+
+    /**
+     * @param firstDayOfWeek weekday of the first of the month
+     * @param length         days in the month
+     * @return days of the month matching BYDAY, bit 0 is the first
+     */
+    private long weekdaysOfMonth(int firstDayOfWeek, int length) {
+        long mask = 0;
+        for (int dayOfWeek = Calendar.SUNDAY; dayOfWeek <= Calendar.SATURDAY; dayOfWeek++) {
+            if ((byDay & 1 << dayOfWeek) == 0) {
+                continue;
+            }
+            int first = Math.floorMod(dayOfWeek - firstDayOfWeek, 7);
+            int ordinal = byDayOrdinals == null ? 0 : byDayOrdinals[dayOfWeek];
+            if (ordinal == 0) {
+                for (int day = first; day < length; day += 7) {
+                    mask |= 1L << day;
+                }
+                continue;
+            }
+            int occurrences = (length - 1 - first) / 7 + 1;
+            int index = ordinal > 0 ? ordinal - 1 : occurrences + ordinal;
+            if (index >= 0 && index < occurrences) {
+                mask |= 1L << (first + index * 7);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return index of the period containing the day: the epoch day, the week since the Monday
+     *         1970-01-05, the month since year 0 or the year
+     */
+    private long period(long epochDay) {
+        return switch (frequency) {
+            case DAILY -> epochDay;
+            case WEEKLY -> Math.floorDiv(epochDay - FIRST_MONDAY, 7);
+            case MONTHLY -> {
+                int date = MonthGridEngine.date(epochDay);
+                yield MonthGridEngine.year(date) * 12L + MonthGridEngine.month(date);
+            }
+            case YEARLY -> MonthGridEngine.year(MonthGridEngine.date(epochDay));
+        };
+    }
+
+    /**
+     * @return first day of the period, for YEARLY the first of the month of the start in that year
+     */
+    private long periodStart(long period) {
+        return switch (frequency) {
+            case DAILY -> period;
+            case WEEKLY -> period * 7 + FIRST_MONDAY;
+            case MONTHLY -> MonthGridEngine.epochDay((int) Math.floorDiv(period, 12), Math.floorMod(period, 12), 1);
+            case YEARLY -> MonthGridEngine.epochDay((int) period,
+                    MonthGridEngine.month(MonthGridEngine.date(startEpochDay)), 1);
+        };
+    }
+
+    /**
+     * Walks the series period by period to find the day of the COUNT-th occurrence. Excepted days
+     * still count, so the result does not depend on the exceptions.
+     *
+     * @throws IllegalArgumentException when the series stops recurring, e.g. the fifth Monday of February every
+     *                                  second year from an odd year
+     */
+    private long countedEnd() {
+        int remaining = count;
+        // The days of a period repeat with the 400 year Gregorian cycle, a series without an occurrence
+        // for that long never recurs again
+        long cycle = switch (frequency) {
+            case DAILY -> 146097;
+            case WEEKLY -> 20871;
+            case MONTHLY -> 4800;
+            case YEARLY -> 400;
+        };
+        long empty = 0;
+        for (long period = startPeriod; ; period += interval) {
+            long start = periodStart(period);
+            long mask = mask(period);
+            if (period == startPeriod) {
+                // Days of the first period before the start are not occurrences
+                int skip = (int) (startEpochDay - start);
+                mask &= skip >= 64 ? 0 : -1L << skip;
+            }
+            int bits = Long.bitCount(mask);
+            if (bits == 0 && ++empty > cycle) {
+                throw new IllegalArgumentException("Series ends before COUNT=" + count + ": " + this);
+            }
+            if (bits > 0) {
+                empty = 0;
+            }
+            if (bits >= remaining) {
+                for (int i = 1; i < remaining; i++) {
+                    mask &= mask - 1;
+                }
+                return start + Long.numberOfTrailingZeros(mask);
+            }
+            remaining -= bits;
+        }
+    }
+
+    /**
+     * @return days since the Monday of the day's week
+     */
+    private static int mondayIndex(long epochDay) {
+        return (MonthGridEngine.dayOfWeek(epochDay) + 5) % 7;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private static int dayOfWeek(String code) {
+        for (int i = 0; i < DAY_CODES.length; i++) {
+            if (DAY_CODES[i].equals(code)) {
+                return Calendar.SUNDAY + i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown day: " + code);
+    }
+
+    /**
+     * @param value date as YYYYMMDD, optionally followed by a time
+     */
+    private static long parseDate(String value) {
+        if (value.length() < 8) {
+            throw new IllegalArgumentException("Malformed date: " + value);
+        }
+        return MonthGridEngine.epochDay(Integer.parseInt(value.substring(0, 4)),
+                Integer.parseInt(value.substring(4, 6)) - 1, Integer.parseInt(value.substring(6, 8)));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency);
+        if (interval > 1) {
+            rule.append(";INTERVAL=").append(interval);
+        }
+        if (byDay != 0) {
+            rule.append(";BYDAY=");
+            for (int dayOfWeek = Calendar.SUNDAY; dayOfWeek <= Calendar.SATURDAY; dayOfWeek++) {
+                if ((byDay & 1 << dayOfWeek) != 0) {
+                    int ordinal = byDayOrdinals == null ? 0 : byDayOrdinals[dayOfWeek];
+                    rule.append(ordinal == 0 ? "" : ordinal).append(DAY_CODES[dayOfWeek - 1]).append(',');
+                }
+            }
+            rule.setLength(rule.length() - 1);
+        }
+        if (count > 0) {
+            rule.append(";COUNT=").append(count);
+        }
+        else if (untilEpochDay != NO_END) {
+            int date = MonthGridEngine.date(untilEpochDay);
+            rule.append(String.format(";UNTIL=%04d%02d%02d", MonthGridEngine.year(date),
+                    MonthGridEngine.month(date) + 1, MonthGridEngine.dayOfMonth(date)));
+        }
+        return rule.toString();
+    }
+}
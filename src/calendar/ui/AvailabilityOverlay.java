@@ -0,0 +1,46 @@
+package calendar.ui;
+
+import calendar.AvailabilityIndex;
+import calendar.MonthGridEngine;
+
+import java.util.Arrays;
+
+/**
+ * Highlights the days on which none of a set of resources is busy.
+ */
+public class AvailabilityOverlay implements GridOverlay {
+    private final int[] freeDays = new int[MonthGridEngine.CELLS];
+    private AvailabilityIndex availability;
+    private int[] resources = new int[0];
+
+    /**
+     * @param availability busy days of the resources or null to highlight nothing
+     * @param resources    indexes of the resources in the index
+     */
+    public void setAvailability(AvailabilityIndex availability, int... resources) {
+        this.availability = availability;
+        this.resources = resources.clone();
+    }
+
+    /**
+     * @param fromEpochDay first day to search
+     * @param toEpochDay   last day to search
+     * @return the first day in the range all resources are free on, or AvailabilityIndex.NONE when there is
+     *         none or no index is set
+     */
+    public long nextCommonFreeDay(long fromEpochDay, long toEpochDay) {
+        return availability == null ? AvailabilityIndex.NONE
+                : availability.nextCommonFreeDay(resources, fromEpochDay, toEpochDay);
+    }
+
+    @Override
+    public void refresh(CalendarGrid grid, long fromEpochDay) {
+        if (availability != null && resources.length > 0) {
+            availability.commonFreeDays(resources, fromEpochDay, freeDays);
+        }
+        else {
+            Arrays.fill(freeDays, 0);
+        }
+        grid.setHighlights(freeDays);
+    }
+}
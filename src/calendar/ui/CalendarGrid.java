@@ -0,0 +1,642 @@
+package calendar.ui;
+
+import calendar.DayRangeListener;
+import calendar.DaySelectionListener;
+import calendar.EdtMonitor;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.time.LocalDate;
+
+/**
+ * Lightweight calendar grid that paints the 6 x 7 day cells itself instead of using a button per cell.
+ * Hit-testing, hover and keyboard focus are handled here, so changing the month only swaps the
+ * cell model and repaints the cells that changed in one region, without any layout pass.
+ * <p>
+ * Cells are coloured like the former buttons:
+ *      - GRAY        for different months from the current
+ *      - LIGHT_GRAY  for the current month
+ *      - WHITE       for "today"
+ * <p>
+ * Dragging across cells or shift-clicking selects a range of days. The range is kept as epoch days,
+ * so it survives navigation and a shift-click in another month extends it across months.
+ */
+public class CalendarGrid extends JComponent {
+    // Selection start and end when no range is selected
+    public static final long NO_SELECTION = Long.MIN_VALUE;
+    private static final int CELL_SIZE = 50;
+    private static final int NONE = -1;
+    private static final Color BADGE = new Color(0x2050A0);
+    private static final Color HIGHLIGHT = new Color(0xB8DDB0);
+    private static final Color OTHER_MONTH_HIGHLIGHT = new Color(0x7FA078);
+    private static final Color SELECTION = new Color(0x603070C0, true);
+    private static final Color HOLIDAY = new Color(0xB01818);
+    private static final Color SEARCH_MATCH = new Color(0xE08000);
+
+    private MonthCells cells;
+    private int hoverCell = NONE;
+    private int pressedCell = NONE;
+    private int focusCell = 0;
+    private int lastUpdatedCells;
+    private long updateCount;
+    private long updatedCellTotal;
+    private final int[] eventCounts = new int[MonthGridEngine.CELLS];
+    private final int[] highlights = new int[MonthGridEngine.CELLS];
+    private final int[] holidays = new int[MonthGridEngine.CELLS];
+    private final int[] searchMatches = new int[MonthGridEngine.CELLS];
+    // Selected range as the day the selection started at and the day it was extended to
+    private long selectionAnchor = NO_SELECTION;
+    private long selectionLead = NO_SELECTION;
+    private final int[] selected = new int[MonthGridEngine.CELLS];
+    private final int[] selectedScratch = new int[MonthGridEngine.CELLS];
+    // Heatmap colour bucket per cell, painted from cached images while a scale is set
+    private final int[] heatBuckets = new int[MonthGridEngine.CELLS];
+    private final int[] bucketScratch = new int[MonthGridEngine.CELLS];
+    private CellImageCache cellImages;
+    private Font badgeFont;
+
+    public CalendarGrid() {
+        setOpaque(true);
+        setFocusable(true);
+        setFont(UIManager.getFont("Button.font"));
+        setPreferredSize(new Dimension(CELL_SIZE * MonthGridEngine.DAYS_OF_WEEK, CELL_SIZE * MonthGridEngine.WEEKS_OF_MONTH));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) return;
+                requestFocusInWindow();
+                pressedCell = cellAt(e.getX(), e.getY());
+                if (pressedCell != NONE) {
+                    setFocusCell(pressedCell);
+                    long day = cells.epochDay(pressedCell);
+                    setSelection(e.isShiftDown() && selectionAnchor != NO_SELECTION ? selectionAnchor : day, day);
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (pressedCell == NONE) return;
+                // Dragging past an edge selects up to the edge cell
+                int cell = cellAt(Math.max(0, Math.min(getWidth() - 1, e.getX())),
+                        Math.max(0, Math.min(getHeight() - 1, e.getY())));
+                if (cell == NONE) {
+                    // Below the last week of the month
+                    cell = cells.size() - 1;
+                }
+                setHoverCell(cell);
+                setSelection(selectionAnchor, cells.epochDay(cell));
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) return;
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell != NONE && cell == pressedCell) {
+                    fireDaySelected(cell);
+                }
+                pressedCell = NONE;
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHoverCell(cellAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHoverCell(NONE);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) { repaintCell(focusCell); }
+
+            @Override
+            public void focusLost(FocusEvent e) { repaintCell(focusCell); }
+        });
+        installKeyboardActions();
+    }
+
+    /**
+     * Replaces the shown cells. Only cells whose day or state differs from the previous model
+     * are repainted, as one region covering all of them, and nothing is repainted when no cell changed.
+     * The size of the component never changes, so no layout pass is needed.
+     *
+     * @param cells the cells of the month to show
+     */
+    public void setCells(MonthCells cells) {
+        MonthCells previous = this.cells;
+        this.cells = cells;
+        if (focusCell >= cells.size()) {
+            focusCell = cells.size() - 1;
+        }
+
+        Rectangle dirty = null;
+        int changed = 0;
+        for (int i = 0; i < MonthGridEngine.CELLS; i++) {
+            if (previous == null || !sameCell(previous, cells, i)) {
+                Rectangle r = getCellBounds(i);
+                dirty = dirty == null ? r : dirty.union(r);
+                changed++;
+            }
+        }
+        lastUpdatedCells = changed;
+        updateCount++;
+        updatedCellTotal += changed;
+        if (dirty != null) {
+            repaint(dirty);
+        }
+        updateSelectedCells();
+    }
+
+    /**
+     * Selects a range of days, which may reach beyond the shown month. Only cells whose selected state
+     * changed are repainted and the listeners are notified when the range changed.
+     *
+     * @param anchorEpochDay day the selection started at
+     * @param leadEpochDay   day the selection was extended to, before or after the anchor
+     */
+    public void setSelection(long anchorEpochDay, long leadEpochDay) {
+        if (anchorEpochDay == selectionAnchor && leadEpochDay == selectionLead) {
+            return;
+        }
+        long from = getSelectionStart();
+        long to = getSelectionEnd();
+        selectionAnchor = anchorEpochDay;
+        selectionLead = leadEpochDay;
+        updateSelectedCells();
+        if (from != getSelectionStart() || to != getSelectionEnd()) {
+            fireRangeSelected();
+        }
+    }
+
+    public void clearSelection() {
+        if (selectionAnchor != NO_SELECTION) {
+            setSelection(NO_SELECTION, NO_SELECTION);
+        }
+    }
+
+    /**
+     * @return first selected epoch day or NO_SELECTION
+     */
+    public long getSelectionStart() {
+        return Math.min(selectionAnchor, selectionLead);
+    }
+
+    /**
+     * @return last selected epoch day or NO_SELECTION
+     */
+    public long getSelectionEnd() {
+        return selectionAnchor == NO_SELECTION ? NO_SELECTION : Math.max(selectionAnchor, selectionLead);
+    }
+
+    private void updateSelectedCells() {
+        long from = getSelectionStart();
+        long to = getSelectionEnd();
+        for (int i = 0; i < MonthGridEngine.CELLS; i++) {
+            long day = cells != null && i < cells.size() ? cells.epochDay(i) : NO_SELECTION;
+            selectedScratch[i] = from != NO_SELECTION && day >= from && day <= to ? 1 : 0;
+        }
+        updateCellValues(selected, selectedScratch);
+    }
+
+    /**
+     * Moves the "today" colour to another day of the shown cells, e.g. after midnight. Only the cell
+     * losing and the cell gaining the colour are painted, each on its own: the repaint manager would
+     * merge two requests into one region, which may span whole rows when today wraps to the next week.
+     *
+     * @param todayEpochDay epoch day of the new today
+     */
+    public void setToday(long todayEpochDay) {
+        if (cells == null || cells.todayEpochDay() == todayEpochDay) {
+            return;
+        }
+        int previous = cells.todayCell();
+        cells = cells.withToday(todayEpochDay);
+        paintCellNow(previous);
+        paintCellNow(cells.todayCell());
+    }
+
+    private void paintCellNow(int cell) {
+        if (cell < 0 || cell >= cells.size()) {
+            return;
+        }
+        if (isShowing()) {
+            paintImmediately(getCellBounds(cell));
+        }
+        else {
+            repaint(getCellBounds(cell));
+        }
+    }
+
+    /**
+     * @return number of cells repainted by the last 'setCells' call
+     */
+    public int getLastUpdatedCellCount() {
+        return lastUpdatedCells;
+    }
+
+    /**
+     * @return number of 'setCells' calls
+     */
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    /**
+     * @return number of cells repainted by all 'setCells' calls
+     */
+    public long getUpdatedCellTotal() {
+        return updatedCellTotal;
+    }
+
+    public MonthCells getCells() {
+        return cells;
+    }
+
+    /**
+     * Sets the number of events shown as a badge in each cell. Only cells whose count changed
+     * are repainted, as one region.
+     *
+     * @param counts event count per cell, at least 42 elements
+     */
+    public void setEventCounts(int[] counts) {
+        updateCellValues(eventCounts, counts);
+    }
+
+    /**
+     * Highlights cells, e.g. the days a query found free. Only cells whose highlight changed
+     * are repainted, as one region.
+     *
+     * @param highlighted non-zero for each highlighted cell, at least 42 elements
+     */
+    public void setHighlights(int[] highlighted) {
+        updateCellValues(highlights, highlighted);
+    }
+
+    /**
+     * Marks holidays, painting their day numbers in red. Only cells whose mark changed are repainted, as one region.
+     *
+     * @param holidayFlags non-zero for each holiday cell, at least 42 elements
+     */
+    public void setHolidays(int[] holidayFlags) {
+        updateCellValues(holidays, holidayFlags);
+    }
+
+    /**
+     * Marks the days with events matching a search with a bar along the bottom of the cell.
+     * Only cells whose mark changed are repainted, as one region.
+     *
+     * @param matches non-zero for each cell with matching events, at least 42 elements
+     */
+    public void setSearchMatches(int[] matches) {
+        updateCellValues(searchMatches, matches);
+    }
+
+    /**
+     * Switches the grid to heatmap mode, colouring each cell by the bucket of its value instead of the
+     * plain in-month/other-month colours. Cells are blitted from images cached per bucket, state and size,
+     * and only cells whose bucket changed are repainted.
+     *
+     * @param values metric value per cell, at least 42 elements, ignored when scale is null
+     * @param scale  colour scale of the values or null to leave heatmap mode
+     */
+    public void setHeatmap(double[] values, ColorScale scale) {
+        if (scale == null) {
+            if (cellImages != null) {
+                cellImages = null;
+                repaint();
+            }
+            return;
+        }
+        if (cellImages == null || cellImages.getScale() != scale) {
+            cellImages = new CellImageCache(scale);
+            repaint();
+        }
+        for (int i = 0; i < MonthGridEngine.CELLS; i++) {
+            bucketScratch[i] = scale.bucket(values[i]);
+        }
+        updateCellValues(heatBuckets, bucketScratch);
+    }
+
+    /**
+     * @return the images of the heatmap cells or null when not in heatmap mode
+     */
+    public CellImageCache getCellImageCache() {
+        return cellImages;
+    }
+
+    /**
+     * Copies per-cell values into the grid's array and repaints the union of the cells that changed.
+     *
+     * @return number of changed cells
+     */
+    protected int updateCellValues(int[] target, int[] values) {
+        Rectangle dirty = null;
+        int changed = 0;
+        for (int i = 0; i < MonthGridEngine.CELLS; i++) {
+            if (target[i] != values[i]) {
+                target[i] = values[i];
+                Rectangle r = getCellBounds(i);
+                dirty = dirty == null ? r : dirty.union(r);
+                changed++;
+            }
+        }
+        if (dirty != null) {
+            repaint(dirty);
+        }
+        return changed;
+    }
+
+    /**
+     * Registers a listener to be notified when a day cell is clicked or selected with the keyboard.
+     *
+     * @param listener the listener to add
+     */
+    public void addDaySelectionListener(DaySelectionListener listener) {
+        listenerList.add(DaySelectionListener.class, listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeDaySelectionListener(DaySelectionListener listener) {
+        listenerList.remove(DaySelectionListener.class, listener);
+    }
+
+    /**
+     * @return all registered day selection listeners
+     */
+    public DaySelectionListener[] getDaySelectionListeners() {
+        return listenerList.getListeners(DaySelectionListener.class);
+    }
+
+    /**
+     * Registers a listener to be notified when the selected range of days changes.
+     *
+     * @param listener the listener to add
+     */
+    public void addDayRangeListener(DayRangeListener listener) {
+        listenerList.add(DayRangeListener.class, listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeDayRangeListener(DayRangeListener listener) {
+        listenerList.remove(DayRangeListener.class, listener);
+    }
+
+    protected void fireRangeSelected() {
+        LocalDate from = selectionAnchor == NO_SELECTION ? null : LocalDate.ofEpochDay(getSelectionStart());
+        LocalDate to = selectionAnchor == NO_SELECTION ? null : LocalDate.ofEpochDay(getSelectionEnd());
+        Object[] listeners = listenerList.getListenerList();
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == DayRangeListener.class) {
+                ((DayRangeListener) listeners[i + 1]).rangeSelected(from, to);
+            }
+        }
+    }
+
+    /**
+     * Dispatches the date of a selected cell once to each registered listener.
+     *
+     * @param cell index of the selected cell
+     */
+    protected void fireDaySelected(int cell) {
+        Object[] listeners = listenerList.getListenerList();
+        if (listeners.length == 0) {
+            return;
+        }
+        LocalDate date = LocalDate.ofEpochDay(cells.epochDay(cell));
+        // Listeners are stored as class/listener pairs, notified last to first like other Swing events
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == DaySelectionListener.class) {
+                ((DaySelectionListener) listeners[i + 1]).daySelected(date);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the enabled cell at the given point.
+     *
+     * @return cell index or -1 when the point is outside of the cells in use
+     */
+    public int cellAt(int x, int y) {
+        if (cells == null || x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return NONE;
+        }
+        int column = x * MonthGridEngine.DAYS_OF_WEEK / getWidth();
+        int row = y * MonthGridEngine.WEEKS_OF_MONTH / getHeight();
+        int cell = row * MonthGridEngine.DAYS_OF_WEEK + column;
+        return cell < cells.size() ? cell : NONE;
+    }
+
+    /**
+     * Returns the bounds of a cell. Cell edges are computed from the component size so the cells
+     * always fill the component exactly.
+     */
+    public Rectangle getCellBounds(int cell) {
+        int column = cell % MonthGridEngine.DAYS_OF_WEEK;
+        int row = cell / MonthGridEngine.DAYS_OF_WEEK;
+        int x0 = column * getWidth() / MonthGridEngine.DAYS_OF_WEEK;
+        int x1 = (column + 1) * getWidth() / MonthGridEngine.DAYS_OF_WEEK;
+        int y0 = row * getHeight() / MonthGridEngine.WEEKS_OF_MONTH;
+        int y1 = (row + 1) * getHeight() / MonthGridEngine.WEEKS_OF_MONTH;
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            if (cells == null) {
+                return;
+            }
+
+            // Only cells intersecting the clip are painted, so hover and focus changes stay cheap
+            Rectangle clip = g2.getClipBounds();
+            FontMetrics metrics = g2.getFontMetrics(getFont());
+            g2.setFont(getFont());
+            for (int i = 0; i < cells.size(); i++) {
+                Rectangle r = getCellBounds(i);
+                if (clip == null || clip.intersects(r)) {
+                    paintCell(g2, i, r, metrics);
+                }
+            }
+        }
+        finally {
+            g2.dispose();
+            EdtMonitor.PAINT.recordSince(start);
+        }
+    }
+
+    /**
+     * Paints a single cell with its state colour, or its cached heatmap image, a raised edge and the centered day number.
+     */
+    protected void paintCell(Graphics2D g2, int cell, Rectangle r, FontMetrics metrics) {
+        if (cellImages != null) {
+            int state = (cells.isInMonth(cell) ? CellImageCache.IN_MONTH : 0)
+                    | (cells.isToday(cell) ? CellImageCache.TODAY : 0)
+                    | (cell == hoverCell ? CellImageCache.HOVER : 0)
+                    | (cell == pressedCell ? CellImageCache.PRESSED : 0);
+            g2.drawImage(cellImages.get(heatBuckets[cell], state, r.width, r.height), r.x, r.y, null);
+        }
+        else {
+            Color background = cellBackground(cell);
+            if (cell == pressedCell && cell == hoverCell) {
+                background = background.darker();
+            }
+            g2.setColor(background);
+            g2.fillRect(r.x + 1, r.y + 1, r.width - 2, r.height - 2);
+            g2.setColor(cell == hoverCell ? Color.DARK_GRAY : Color.GRAY.darker());
+            g2.drawRect(r.x + 1, r.y + 1, r.width - 3, r.height - 3);
+        }
+        if (selected[cell] != 0) {
+            g2.setColor(SELECTION);
+            g2.fillRect(r.x + 1, r.y + 1, r.width - 2, r.height - 2);
+        }
+
+        String text = String.valueOf(cells.dayOfMonth(cell));
+        g2.setColor(holidays[cell] != 0 ? HOLIDAY : getForeground());
+        g2.drawString(text,
+                r.x + (r.width - metrics.stringWidth(text)) / 2,
+                r.y + (r.height - metrics.getHeight()) / 2 + metrics.getAscent());
+
+        if (searchMatches[cell] != 0) {
+            g2.setColor(SEARCH_MATCH);
+            g2.fillRect(r.x + 6, r.y + r.height - 8, r.width - 12, 3);
+        }
+
+        if (eventCounts[cell] > 0) {
+            paintBadge(g2, r, String.valueOf(eventCounts[cell]));
+        }
+
+        if (cell == focusCell && isFocusOwner()) {
+            g2.setColor(UIManager.getColor("Button.focus") != null ? UIManager.getColor("Button.focus") : Color.BLUE);
+            g2.drawRect(r.x + 4, r.y + 4, r.width - 9, r.height - 9);
+        }
+    }
+
+    /**
+     * Paints a small count in the top right corner of a cell.
+     */
+    protected void paintBadge(Graphics2D g2, Rectangle r, String text) {
+        if (badgeFont == null) {
+            badgeFont = getFont().deriveFont(getFont().getSize2D() * 0.75f);
+        }
+        Font font = g2.getFont();
+        g2.setFont(badgeFont);
+        FontMetrics metrics = g2.getFontMetrics();
+        g2.setColor(BADGE);
+        g2.drawString(text, r.x + r.width - metrics.stringWidth(text) - 5, r.y + metrics.getAscent() + 3);
+        g2.setFont(font);
+    }
+
+    /**
+     * @return the background colour of a cell for its today/highlighted/current month/other month state
+     */
+    protected Color cellBackground(int cell) {
+        if (cells.isToday(cell)) {
+            return Color.WHITE;
+        }
+        else if (!cells.isInMonth(cell)) {
+            return highlights[cell] != 0 ? OTHER_MONTH_HIGHLIGHT : Color.GRAY;
+        }
+        return highlights[cell] != 0 ? HIGHLIGHT : Color.LIGHT_GRAY;
+    }
+
+    /**
+     * Two cells look the same when both are outside of the month view or both show
+     * the same day in the same state.
+     */
+    private static boolean sameCell(MonthCells a, MonthCells b, int cell) {
+        boolean inA = cell < a.size();
+        boolean inB = cell < b.size();
+        if (!inA || !inB) {
+            return inA == inB;
+        }
+        return a.dayOfMonth(cell) == b.dayOfMonth(cell)
+                && a.isInMonth(cell) == b.isInMonth(cell)
+                && a.isToday(cell) == b.isToday(cell);
+    }
+
+    private void setHoverCell(int cell) {
+        if (cell != hoverCell) {
+            int previous = hoverCell;
+            hoverCell = cell;
+            repaintCell(previous);
+            repaintCell(cell);
+        }
+    }
+
+    private void setFocusCell(int cell) {
+        if (cell != focusCell) {
+            int previous = focusCell;
+            focusCell = cell;
+            repaintCell(previous);
+            repaintCell(cell);
+        }
+    }
+
+    private void repaintCell(int cell) {
+        if (cell != NONE) {
+            repaint(getCellBounds(cell));
+        }
+    }
+
+    /**
+     * Arrow keys move the focused cell and space or enter select it, escape clears the selected range.
+     */
+    private void installKeyboardActions() {
+        InputMap inputMap = getInputMap(WHEN_FOCUSED);
+        ActionMap actionMap = getActionMap();
+        bindMove(inputMap, actionMap, "LEFT", -1);
+        bindMove(inputMap, actionMap, "RIGHT", 1);
+        bindMove(inputMap, actionMap, "UP", -MonthGridEngine.DAYS_OF_WEEK);
+        bindMove(inputMap, actionMap, "DOWN", MonthGridEngine.DAYS_OF_WEEK);
+
+        inputMap.put(KeyStroke.getKeyStroke("SPACE"), "select");
+        inputMap.put(KeyStroke.getKeyStroke("ENTER"), "select");
+        actionMap.put("select", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (cells != null && focusCell >= 0 && focusCell < cells.size()) {
+                    fireDaySelected(focusCell);
+                }
+            }
+        });
+
+        inputMap.put(KeyStroke.getKeyStroke("ESCAPE"), "clearSelection");
+        actionMap.put("clearSelection", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                clearSelection();
+            }
+        });
+    }
+
+    private void bindMove(InputMap inputMap, ActionMap actionMap, String key, int delta) {
+        String name = "move" + key;
+        inputMap.put(KeyStroke.getKeyStroke(key), name);
+        actionMap.put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (cells != null) {
+                    setFocusCell(Math.max(0, Math.min(cells.size() - 1, focusCell + delta)));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package calendar.ui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Prerendered heatmap cell backgrounds keyed by colour bucket, cell state and size, so painting
+ * a heatmap cell is a blit plus its day number. Each cell size has a table of images indexed by
+ * bucket and state, so a lookup neither hashes nor boxes. Each cache belongs to one ColorScale.
+ * Must be used on the event dispatch thread.
+ */
+public class CellImageCache {
+    public static final int IN_MONTH = 1;
+    public static final int TODAY    = 2;
+    public static final int HOVER    = 4;
+    public static final int PRESSED  = 8;
+    private static final int STATES = 16;
+    // Few sizes are ever in use, the limit only guards against endless resizing
+    private static final int MAX_SIZES = 8;
+
+    private final ColorScale scale;
+    // Per size, the images at bucket * STATES + state, the most recently used size first
+    private final int[] widths = new int[MAX_SIZES];
+    private final int[] heights = new int[MAX_SIZES];
+    private final Image[][] images = new Image[MAX_SIZES][];
+    private int sizes;
+    private long hitCount;
+    private long missCount;
+
+    public CellImageCache(ColorScale scale) {
+        this.scale = scale;
+    }
+
+    public ColorScale getScale() {
+        return scale;
+    }
+
+    /**
+     * @param bucket colour bucket of the cell's value
+     * @param state  combination of IN_MONTH, TODAY, HOVER and PRESSED
+     * @param width  cell width
+     * @param height cell height
+     * @return the cell background with its border, rendered on first use
+     */
+    public Image get(int bucket, int state, int width, int height) {
+        Image[] table = images[0];
+        if (sizes == 0 || widths[0] != width || heights[0] != height) {
+            table = table(width, height);
+        }
+        int index = bucket * STATES + state;
+        Image image = table[index];
+        if (image == null) {
+            missCount++;
+            image = render(bucket, state, width, height);
+            table[index] = image;
+        }
+        else {
+            hitCount++;
+        }
+        return image;
+    }
+
+    /**
+     * Moves the table of the given size to the front, creating it when missing. When all slots
+     * are taken the least recently used size is dropped.
+     */
+    private Image[] table(int width, int height) {
+        int slot = 0;
+        while (slot < sizes && (widths[slot] != width || heights[slot] != height)) {
+            slot++;
+        }
+        Image[] table;
+        if (slot < sizes) {
+            table = images[slot];
+        }
+        else {
+            table = new Image[scale.buckets() * STATES];
+            slot = sizes < MAX_SIZES ? sizes++ : MAX_SIZES - 1;
+        }
+        System.arraycopy(widths, 0, widths, 1, slot);
+        System.arraycopy(heights, 0, heights, 1, slot);
+        System.arraycopy(images, 0, images, 1, slot);
+        widths[0] = width;
+        heights[0] = height;
+        images[0] = table;
+        return table;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Paints the cell the way CalendarGrid paints its plain cells: a filled rectangle with an edge,
+     * days of other months darker, today with a white inner frame.
+     */
+    private Image render(int bucket, int state, int width, int height) {
+        GraphicsConfiguration configuration = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        Image image = configuration != null
+                ? configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = (Graphics2D) image.getGraphics();
+        try {
+            Color background = scale.color(bucket);
+            if ((state & IN_MONTH) == 0) {
+                background = background.darker();
+            }
+            if ((state & PRESSED) != 0 && (state & HOVER) != 0) {
+                background = background.darker();
+            }
+            g2.setColor(background);
+            g2.fillRect(1, 1, width - 2, height - 2);
+            g2.setColor((state & HOVER) != 0 ? Color.DARK_GRAY : Color.GRAY.darker());
+            g2.drawRect(1, 1, width - 3, height - 3);
+            if ((state & TODAY) != 0) {
+                g2.setColor(Color.WHITE);
+                g2.drawRect(2, 2, width - 5, height - 5);
+                g2.drawRect(3, 3, width - 7, height - 7);
+            }
+        }
+        finally {
+            g2.dispose();
+        }
+        return image;
+    }
+}
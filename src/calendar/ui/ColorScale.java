@@ -0,0 +1,73 @@
+package calendar.ui;
+
+import java.awt.*;
+
+/**
+ * Maps metric values to a small number of colour buckets for heatmaps. Views cache their
+ * cell images per bucket, so a scale should have few buckets, e.g. 8 to 16.
+ */
+public interface ColorScale {
+    /**
+     * @return number of buckets, colours are indexed from 0 to buckets - 1
+     */
+    int buckets();
+
+    /**
+     * @param value metric value of a day
+     * @return bucket of the value, 0 to buckets - 1
+     */
+    int bucket(double value);
+
+    /**
+     * @param bucket bucket index
+     * @return colour of the bucket
+     */
+    Color color(int bucket);
+
+    /**
+     * Creates a scale splitting [min, max] into equal buckets, with colours interpolated between
+     * the given stops. Values outside the range fall into the first or last bucket.
+     *
+     * @param min     value of the first bucket
+     * @param max     value of the last bucket
+     * @param buckets number of buckets, 2 or more
+     * @param stops   two or more colours from the lowest to the highest value
+     * @return the scale
+     */
+    static ColorScale linear(double min, double max, int buckets, Color... stops) {
+        if (buckets < 2 || stops.length < 2 || !(max > min)) {
+            throw new IllegalArgumentException("Invalid scale: " + min + ".." + max + " in " + buckets + " buckets");
+        }
+        Color[] colors = new Color[buckets];
+        for (int i = 0; i < buckets; i++) {
+            double position = (double) i / (buckets - 1) * (stops.length - 1);
+            int stop = Math.min((int) position, stops.length - 2);
+            double t = position - stop;
+            Color a = stops[stop];
+            Color b = stops[stop + 1];
+            colors[i] = new Color(
+                    (int) Math.round(a.getRed() + (b.getRed() - a.getRed()) * t),
+                    (int) Math.round(a.getGreen() + (b.getGreen() - a.getGreen()) * t),
+                    (int) Math.round(a.getBlue() + (b.getBlue() - a.getBlue()) * t));
+        }
+        return new ColorScale() {
+            @Override
+            public int buckets() {
+                return buckets;
+            }
+
+            @Override
+            public int bucket(double value) {
+                if (!(value > min)) {
+                    return 0;
+                }
+                return Math.min(buckets - 1, (int) ((value - min) / (max - min) * (buckets - 1) + 0.5));
+            }
+
+            @Override
+            public Color color(int bucket) {
+                return colors[bucket];
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package calendar.ui;
+
+import calendar.EventStore;
+import calendar.MonthGridEngine;
+import calendar.RecurrenceIndex;
+
+import java.util.Arrays;
+
+/**
+ * Event counts of the cells, read from the store in one range query that never waits for writers,
+ * plus the occurrences of recurring series expanded for the 42 days only.
+ */
+public class EventCountOverlay implements GridOverlay {
+    private final int[] counts = new int[MonthGridEngine.CELLS];
+    private EventStore store;
+    private RecurrenceIndex recurrences;
+    // Version of the counts shown in the grid, -1 when none were read from the store
+    private long shownVersion = -1;
+
+    public EventStore getStore() {
+        return store;
+    }
+
+    /**
+     * @param store the store whose events are counted or null to count none
+     */
+    public void setStore(EventStore store) {
+        this.store = store;
+    }
+
+    public RecurrenceIndex getRecurrences() {
+        return recurrences;
+    }
+
+    /**
+     * @param recurrences the series whose occurrences are added to the store's events or null for none
+     */
+    public void setRecurrences(RecurrenceIndex recurrences) {
+        this.recurrences = recurrences;
+    }
+
+    /**
+     * @param fromEpochDay day of the first cell
+     * @return true when events were added to or removed from one of the months in view since the last refresh
+     */
+    public boolean isStale(long fromEpochDay) {
+        return store != null && store.countsVersion(fromEpochDay, MonthGridEngine.CELLS) != shownVersion;
+    }
+
+    @Override
+    public void refresh(CalendarGrid grid, long fromEpochDay) {
+        if (store != null) {
+            shownVersion = store.readCounts(fromEpochDay, counts);
+        }
+        else {
+            shownVersion = -1;
+            Arrays.fill(counts, 0);
+        }
+        if (recurrences != null) {
+            recurrences.addOccurrenceCounts(fromEpochDay, counts);
+        }
+        grid.setEventCounts(counts);
+    }
+}
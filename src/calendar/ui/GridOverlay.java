@@ -0,0 +1,16 @@
+package calendar.ui;
+
+/**
+ * A per day layer of a CalendarGrid, e.g. event counts or holidays. The view showing the grid refreshes
+ * all its overlays when it shows another month, and one overlay on its own when that overlay's data changes.
+ */
+public interface GridOverlay {
+
+    /**
+     * Reads the layer of the 42 cells and hands it to the grid, which repaints only the cells whose value changed.
+     *
+     * @param grid         the grid showing the month
+     * @param fromEpochDay day of the first cell
+     */
+    void refresh(CalendarGrid grid, long fromEpochDay);
+}
@@ -0,0 +1,32 @@
+package calendar.ui;
+
+import calendar.DayMetric;
+import calendar.MonthGridEngine;
+
+/**
+ * Colours the cells by a per day metric instead of the today/current month/other month colours.
+ */
+public class HeatmapOverlay implements GridOverlay {
+    private final double[] values = new double[MonthGridEngine.CELLS];
+    private DayMetric metric;
+    private ColorScale scale;
+
+    /**
+     * @param metric per day metric, e.g. DayMetric.eventCount(store), or null to leave heatmap mode
+     * @param scale  colour scale of the metric
+     */
+    public void setHeatmap(DayMetric metric, ColorScale scale) {
+        this.metric = metric;
+        this.scale = scale;
+    }
+
+    @Override
+    public void refresh(CalendarGrid grid, long fromEpochDay) {
+        if (metric == null || scale == null) {
+            grid.setHeatmap(null, null);
+            return;
+        }
+        metric.values(fromEpochDay, values);
+        grid.setHeatmap(values, scale);
+    }
+}
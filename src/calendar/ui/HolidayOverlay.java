@@ -0,0 +1,40 @@
+package calendar.ui;
+
+import calendar.HolidayProvider;
+import calendar.MonthGridEngine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Marks the holidays of the active regions, one bit test per cell however many regions are active.
+ */
+public class HolidayOverlay implements GridOverlay {
+    private final int[] flags = new int[MonthGridEngine.CELLS];
+    private HolidayProvider.Selection holidays;
+
+    /**
+     * @param holidays holidays of the active regions or null to mark none
+     */
+    public void setHolidays(HolidayProvider.Selection holidays) {
+        this.holidays = holidays;
+    }
+
+    /**
+     * @return labels of the holidays on the day in the active regions, empty when it is none
+     */
+    public List<String> labels(long epochDay) {
+        return holidays == null ? List.of() : holidays.labels(epochDay);
+    }
+
+    @Override
+    public void refresh(CalendarGrid grid, long fromEpochDay) {
+        if (holidays != null) {
+            holidays.holidays(fromEpochDay, flags);
+        }
+        else {
+            Arrays.fill(flags, 0);
+        }
+        grid.setHolidays(flags);
+    }
+}
@@ -0,0 +1,114 @@
+package calendar.ui;
+
+import calendar.LocaleCalendarInfo;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Paints a month the way CalendarPanel shows it, a header with the month and year, the weekday names
+ * and the 42 day cells with their event counts, into an image without any Swing component. Works
+ * in headless mode.
+ * <p>
+ * A renderer reuses one image and its fonts for every month, so it is not thread-safe. Use one renderer
+ * per thread, and write or copy the returned image before rendering the next month.
+ */
+public class MonthImageRenderer {
+    public static final int CELL_SIZE = 50;
+    private static final int HEADER_HEIGHT = 40;
+    private static final int WEEKDAY_HEIGHT = 20;
+    private static final Color BADGE = new Color(0x2050A0);
+    private static final String[] DAY_TEXT = new String[32];
+
+    static {
+        for (int day = 1; day < DAY_TEXT.length; day++) {
+            DAY_TEXT[day] = String.valueOf(day);
+        }
+    }
+
+    private final LocaleCalendarInfo calendarInfo;
+    private final List<String> daysOfWeek;
+    private final BufferedImage image;
+    private final Font titleFont;
+    private final Font dayFont;
+    private final Font badgeFont;
+
+    /**
+     * @param calendarInfo month and weekday names and the first day of week
+     */
+    public MonthImageRenderer(LocaleCalendarInfo calendarInfo) {
+        this.calendarInfo = calendarInfo;
+        this.daysOfWeek = calendarInfo.daysOfWeek();
+        this.image = new BufferedImage(CELL_SIZE * MonthGridEngine.DAYS_OF_WEEK,
+                HEADER_HEIGHT + WEEKDAY_HEIGHT + CELL_SIZE * MonthGridEngine.WEEKS_OF_MONTH, BufferedImage.TYPE_INT_RGB);
+        this.titleFont = new Font(Font.SANS_SERIF, Font.BOLD, 18);
+        this.dayFont = new Font(Font.SANS_SERIF, Font.BOLD, 14);
+        this.badgeFont = dayFont.deriveFont(Font.PLAIN, 10f);
+    }
+
+    /**
+     * Paints a month into the renderer's image.
+     *
+     * @param title  text above the month, e.g. the resource name, or null
+     * @param cells  the cells of the month
+     * @param counts event count per cell, at least 42 elements, or null
+     * @return the renderer's image, overwritten by the next call
+     */
+    public BufferedImage render(String title, MonthCells cells, int[] counts) {
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setColor(Color.WHITE);
+            g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+            // Header: resource, month and year
+            String header = calendarInfo.monthName(cells.month()) + " " + cells.year();
+            if (title != null) {
+                header = title + " - " + header;
+            }
+            g2.setFont(titleFont);
+            g2.setColor(Color.BLACK);
+            drawCentered(g2, header, 0, 0, image.getWidth(), HEADER_HEIGHT);
+
+            g2.setFont(dayFont);
+            g2.setColor(Color.DARK_GRAY);
+            for (int column = 0; column < MonthGridEngine.DAYS_OF_WEEK; column++) {
+                drawCentered(g2, daysOfWeek.get(column), column * CELL_SIZE, HEADER_HEIGHT, CELL_SIZE, WEEKDAY_HEIGHT);
+            }
+
+            int top = HEADER_HEIGHT + WEEKDAY_HEIGHT;
+            for (int cell = 0; cell < cells.size(); cell++) {
+                int x = cell % MonthGridEngine.DAYS_OF_WEEK * CELL_SIZE;
+                int y = top + cell / MonthGridEngine.DAYS_OF_WEEK * CELL_SIZE;
+                // Same colours as CalendarGrid: today WHITE, other months GRAY, the month LIGHT_GRAY
+                g2.setColor(cells.isToday(cell) ? Color.WHITE : cells.isInMonth(cell) ? Color.LIGHT_GRAY : Color.GRAY);
+                g2.fillRect(x + 1, y + 1, CELL_SIZE - 2, CELL_SIZE - 2);
+                g2.setColor(Color.GRAY.darker());
+                g2.drawRect(x + 1, y + 1, CELL_SIZE - 3, CELL_SIZE - 3);
+                g2.setColor(Color.BLACK);
+                g2.setFont(dayFont);
+                drawCentered(g2, DAY_TEXT[cells.dayOfMonth(cell)], x, y, CELL_SIZE, CELL_SIZE);
+                if (counts != null && counts[cell] > 0) {
+                    g2.setFont(badgeFont);
+                    g2.setColor(BADGE);
+                    String text = String.valueOf(counts[cell]);
+                    FontMetrics metrics = g2.getFontMetrics();
+                    g2.drawString(text, x + CELL_SIZE - metrics.stringWidth(text) - 5, y + metrics.getAscent() + 3);
+                }
+            }
+        }
+        finally {
+            g2.dispose();
+        }
+        return image;
+    }
+
+    private static void drawCentered(Graphics2D g2, String text, int x, int y, int width, int height) {
+        FontMetrics metrics = g2.getFontMetrics();
+        g2.drawString(text, x + (width - metrics.stringWidth(text)) / 2,
+                y + (height - metrics.getHeight()) / 2 + metrics.getAscent());
+    }
+}
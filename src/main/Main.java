@@ -1,5 +1,14 @@
 package main;
 
+import calendar.DayChangeScheduler;
+import calendar.EdtMonitor;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthCache;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+import calendar.MonthNavigator;
+import calendar.ui.CalendarGrid;
+
 import javax.swing.*;
 import javax.swing.border.BevelBorder;
 import javax.swing.border.EtchedBorder;
@@ -7,18 +16,23 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.DateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Locale;
 
 class CalendarPanel extends JPanel implements ActionListener {
     private static final String LEFT_ARROW  = "<";
     private static final String RIGHT_ARROW = ">";
+    private static final int MONTH_CACHE_SIZE = 32;
 
     private final DateFormat df;
-    private final Calendar calendar;
-    private final ArrayList<JButton> CalendarButtons = new ArrayList<>();
+    private final LocaleCalendarInfo calendarInfo;
+    private final MonthCache<MonthCells> monthCache;
+    private final MonthNavigator navigator;
+    // Registered with the day change scheduler while the panel is displayable
+    private final DayChangeScheduler.Listener dayChangeListener = this::dayChanged;
 
+    private CalendarGrid grid;
+    // Read by the month loader on the prefetch threads
+    private volatile long todayEpochDay;
     private JLabel yearLabel;
     private JLabel monthLabel;
     private int currentMonth;
@@ -27,12 +41,26 @@ class CalendarPanel extends JPanel implements ActionListener {
     public CalendarPanel() {
         // Initialize date formatter to the default locale
         df = DateFormat.getDateInstance(DateFormat.SHORT);
-        // Initialize and set Calendar
-        this.calendar = Calendar.getInstance();
-        this.calendar.setMinimalDaysInFirstWeek(1);
+        // Today, only read here, the panel keeps no mutable Calendar of its own
+        Calendar calendar = Calendar.getInstance();
+        // Month and weekday names and the first day of week of the default locale
+        this.calendarInfo = LocaleCalendarInfo.ofDefault();
         // Get initial month and year
         this.currentMonth = calendar.get(Calendar.MONTH);
         this.currentYear = calendar.get(Calendar.YEAR);
+        // Today follows the day change scheduler after midnight
+        this.todayEpochDay = MonthGridEngine.epochDay(calendar);
+        // Month models are cached and the neighbouring months prefetched in the background
+        int firstDayOfWeek = calendarInfo.firstDayOfWeek();
+        this.monthCache = new MonthCache<>(MONTH_CACHE_SIZE,
+                (year, month) -> {
+                    long start = System.nanoTime();
+                    MonthCells cells = MonthCells.of(year, month, firstDayOfWeek, this.todayEpochDay);
+                    EdtMonitor.MODEL_BUILD.recordSince(start);
+                    return cells;
+                });
+        // Navigation updates the header on every step but renders the grid at most once per frame
+        this.navigator = new MonthNavigator(currentYear, currentMonth, this::setHeaderText, this::showMonth);
         // Set layout manager
         this.setLayout(new GridBagLayout());
         GridBagConstraints c = new GridBagConstraints();
@@ -51,14 +79,15 @@ class CalendarPanel extends JPanel implements ActionListener {
         c.gridy = 1;
         this.add(calendarGrid(), c);
 
-        // Fill buttons with corresponding days for the current month
+        // Fill the header and the grid with the current month
+        setHeaderText(currentYear, currentMonth);
         setComponentsText(getDaysOfMonthList());
     }
 
     /**
      * Creates a header with controls to operate the calendar. Each button
      * increments/decrements year/month respectively via action listener.
-     * Pressing each button initializes revalidation of the class panel.
+     * Pressing each button refreshes the labels and the calendar grid.
      *
      * @return JPanel containing buttons and labels to control and display
      *         current year and month.
@@ -124,116 +153,150 @@ class CalendarPanel extends JPanel implements ActionListener {
     }
 
     /**
-     * Creates calendar cells for each possible day in a month in self-contained JPanel
-     * and adds each new button to a list for reference by 'setComponentsText' method.
+     * Creates the calendar grid that paints a cell for each possible day in a month.
+     * The grid is kept for reference by 'setComponentsText' method.
      *
-     * @return JPanel containing buttons organized in a grid of (maximum) 6 weeks by 7 days
+     * @return CalendarGrid painting (maximum) 6 weeks by 7 days
      */
-    private JPanel calendarGrid() {
-        JPanel grid = new JPanel(new GridLayout(6, 7));
-//        grid.setBorder(BorderFactory.createLoweredBevelBorder());
-        for (int i = 0; i < (6 * 7); i++) {
-            JButton button = new JButton();
-            button.setPreferredSize(new Dimension(50, 50));
-            grid.add(button);
-            CalendarButtons.add(button);
-        }
+    private CalendarGrid calendarGrid() {
+        this.grid = new CalendarGrid();
         return grid;
     }
 
     /**
-     * Returns a list of days in the current month with overlaps to make full weeks.
-     * Calendar is set to start on Monday of the first week of the month.
+     * Returns the cells of the current month with overlaps to make full weeks.
+     * The grid is computed by MonthGridEngine and starts on the locale's first day of the first week of the month.
+     * Months are taken from the month cache and only built here when they were not prefetched.
+     * Months cached before a day change get the new today without being built again.
      *
-     * @return  a list containing the days of the current month
-     *          with overlaps to other months to make up for a full week
-     * <p>
-     * TODO: Create an array of Date objects that can be used to parse data from, like day for the calendar cell.
-     *       Save this array to the class instance and refer to it in conjunction with
-     *       respective button to call other methods in the future.
+     * @return  the cells of the current month
      */
-    private ArrayList<Integer> getDaysOfMonthList() {
-        ArrayList<Integer> list = new ArrayList<>();
-        calendar.set(Calendar.WEEK_OF_MONTH, 1);
-        calendar.set(Calendar.DAY_OF_WEEK, Calendar.MONDAY);
+    private MonthCells getDaysOfMonthList() {
+        return monthCache.get(currentYear, currentMonth).withToday(todayEpochDay);
+    }
 
-        // Condition checks if isFullWeek is divisible by 7 and if the Calendar month is different
-        // from the currentMonth meaning that the end of month and week has been reached.
-        int isFullWeek = 1;
-        do {
-            list.add(calendar.get(Calendar.DAY_OF_MONTH));
-            calendar.add(Calendar.DAY_OF_MONTH, 1);
-        } while (! (isFullWeek++ % 7 == 0 && calendar.get(Calendar.MONTH) != currentMonth));
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DayChangeScheduler.addListener(dayChangeListener);
+        // The date may have changed while the panel was not displayable
+        dayChanged(DayChangeScheduler.today());
+    }
 
-        // Set calendar back to current month and year in case of overlap to next month/year
-        calendar.set(Calendar.YEAR, currentYear);
-        calendar.set(Calendar.MONTH, currentMonth);
-        return list;
+    @Override
+    public void removeNotify() {
+        DayChangeScheduler.removeListener(dayChangeListener);
+        super.removeNotify();
+    }
+
+    /**
+     * Moves the "today" colour after midnight, the grid paints only the old and the new today cell.
+     */
+    private void dayChanged(long todayEpochDay) {
+        if (todayEpochDay != this.todayEpochDay) {
+            this.todayEpochDay = todayEpochDay;
+            grid.setToday(todayEpochDay);
+        }
     }
 
     /**
-     * Sets the text of calendar buttons to each consecutive day from the daysOfMonth list.
-     * When the list gets out of bounds, exception is caught and the respective button gets disabled and its text
-     * field set to empty string.
+     * Hands the cells of the current month to the grid, which repaints only the cells
+     * that changed in one region. The grid keeps its size, so no layout pass is needed.
+     * The neighbouring months are then prefetched so the next navigation is a cache hit.
      *
-     * @param daysOfMonth a list containing days of the current month with overlaps to make up a full week
-     * <p>
-     * TODO: Use List of Date objects to parse days from and set each button to respective date.
-     *       The date will determine the cell color:
-     *                    - DARK_GREY   for different months from the current
-     *                    - LIGHT_GREY  for the current month
-     *                    - WHITE       for "today"
+     * @param cells the cells returned by the 'getDaysOfMonthList' method
      */
-    private void setComponentsText(ArrayList<Integer> daysOfMonth) {
-        String yearName  = String.valueOf(calendar.get(Calendar.YEAR));
-        //noinspection MagicConstant
-        String monthName = calendar.getDisplayName(
-                Calendar.MONTH,
-                Calendar.LONG_STANDALONE,
-                Locale.getDefault());
+    private void setComponentsText(MonthCells cells) {
+        // Set calendar grid cells to current month days
+        grid.setCells(cells);
+        monthCache.prefetchAround(cells.year(), cells.month());
+    }
+
+    /**
+     * Makes the given month current and sets the header labels to it. Called by the navigator on every
+     * navigation step, so the labels follow each click even when the grid render is coalesced.
+     *
+     * @param year  the year
+     * @param month zero based month as in Calendar.MONTH
+     */
+    private void setHeaderText(int year, int month) {
+        currentYear  = year;
+        currentMonth = month;
 
         // Set year label text to current year
-        yearLabel.setText(yearName);
+        yearLabel.setText(String.valueOf(year));
         // set month label text to current month
-        monthLabel.setText(monthName.substring(0, 1).toUpperCase() + monthName.substring(1));
-        // Set calendar grid text to current month days
-        for (int i = 0; i < CalendarButtons.size(); i++) {
-            JButton button = CalendarButtons.get(i);
-            try {
-                button.setText(String.valueOf(daysOfMonth.get(i)));
-                button.setEnabled(true);
-            }
-            catch (Exception ArrayIndexOutOfBoundsException) {
-                button.setText("");
-                button.setEnabled(false);
-            }
-        }
-        this.revalidate();
+        monthLabel.setText(getMonthName());
+    }
+
+    /**
+     * Renders the grid of a month, called by the navigator at most once per frame with the latest month.
+     *
+     * @param year  the year
+     * @param month zero based month as in Calendar.MONTH
+     */
+    private void showMonth(int year, int month) {
+        long start = System.nanoTime();
+        setComponentsText(getDaysOfMonthList());
+        EdtMonitor.RENDER.recordSince(start);
+    }
+
+    /**
+     * @return the calendar grid, e.g. to read how many cells each navigation repainted
+     */
+    public CalendarGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return the navigator coalescing header navigation, e.g. to read its request and render counters
+     */
+    public MonthNavigator getNavigator() {
+        return navigator;
+    }
+
+    /**
+     * @return the cache of month models, e.g. to read its hit and miss counters
+     */
+    public MonthCache<MonthCells> getMonthCache() {
+        return monthCache;
+    }
+
+    /**
+     * Returns the capitalized stand-alone name of the current month in the default locale.
+     * Names are computed once per locale by LocaleCalendarInfo, so this is an array lookup.
+     *
+     * @return capitalized name of the current month
+     */
+    private String getMonthName() {
+        return calendarInfo.monthName(currentMonth);
     }
 
     /**
      * Action listener method to iterate through the calendar by year or month
-     * forwards or backwards by the respective button
+     * forwards or backwards by the respective button. Steps go through the navigator,
+     * which coalesces bursts of clicks into one grid render per frame
      *
      * @param e the event to be processed
      */
     @Override
     public void actionPerformed(ActionEvent e) {
+        long start = System.nanoTime();
         switch (e.getActionCommand()) {
-            case "prevYear"     -> calendar.add(Calendar.YEAR,    -1);
-            case "nextYear"     -> calendar.add(Calendar.YEAR,    1);
-            case "prevMonth"    -> calendar.add(Calendar.MONTH,   -1);
-            case "nextMonth"    -> calendar.add(Calendar.MONTH,   1);
+            case "prevYear"     -> navigator.navigate(-12);
+            case "nextYear"     -> navigator.navigate(12);
+            case "prevMonth"    -> navigator.navigate(-1);
+            case "nextMonth"    -> navigator.navigate(1);
         }
-        currentYear  =  calendar.get(Calendar.YEAR);
-        currentMonth =  calendar.get(Calendar.MONTH);
-        setComponentsText(getDaysOfMonthList());
+        EdtMonitor.NAVIGATION.recordSince(start);
     }
 }
 
 public class Main {
 
     private static void createAndShowGUI() {
+        // Time EDT events and expose the latency histograms through JMX
+        EdtMonitor.install();
         // Create and set up the window.
         JFrame frame = new JFrame("Calendar");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -0,0 +1,205 @@
+package render;
+
+import bench.Options;
+import calendar.EventStore;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+import calendar.ui.MonthImageRenderer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders the month calendars of many resources to PNG files without a display.
+ * <p>
+ * Every (resource, month) pair is one job. The jobs are split across a ForkJoinPool and every worker
+ * thread keeps its own MonthImageRenderer, so the image and fonts are created once per thread and
+ * reused for every month it renders. Month grids come from the shared, thread-safe MonthGrid.
+ * Files are written as {@code <out>/<resource>-<yyyy-MM>.png}.
+ * <p>
+ * Usage: {@code java render.BatchRenderer [options]}, headless mode is switched on automatically.
+ * <pre>
+ *   -resources file|n      file with one resource name per line, or a number of sample resources (10)
+ *   -from yyyy-MM          first month (the current month)
+ *   -months n              number of months per resource (12)
+ *   -out dir               output directory (calendars)
+ *   -events dir            directory with an event log '<resource>.events' per resource, optional
+ *   -threads n             worker threads (the number of cores)
+ *   -compression q         PNG compression quality from 0 to 1, lower is smaller but slower (0.75)
+ * </pre>
+ */
+public class BatchRenderer {
+    // Jobs rendered by a single task, below this a task renders instead of splitting
+    private static final int SPLIT_THRESHOLD = 4;
+
+    private record Job(String resource, int year, int month) {}
+
+    private final List<Job> jobs;
+    private final Path out;
+    private final Path events;
+    private final ImageWriteParam writeParam;
+    private final LocaleCalendarInfo calendarInfo = LocaleCalendarInfo.ofDefault();
+    private final long todayEpochDay = LocalDate.now().toEpochDay();
+    private final ThreadLocal<MonthImageRenderer> renderers =
+            ThreadLocal.withInitial(() -> new MonthImageRenderer(calendarInfo));
+    // PNG writers are looked up once per thread instead of once per image
+    private final ThreadLocal<ImageWriter> writers =
+            ThreadLocal.withInitial(() -> ImageIO.getImageWritersByFormatName("png").next());
+    private final Map<String, EventStore> stores = new HashMap<>();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private BatchRenderer(List<Job> jobs, Path out, Path events, float compression) {
+        this.jobs = jobs;
+        this.out = out;
+        this.events = events;
+        // The parameters are only read while writing, so all threads share them
+        this.writeParam = writers.get().getDefaultWriteParam();
+        this.writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        this.writeParam.setCompressionQuality(compression);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Map<String, String> options = Options.parse(args);
+        List<String> resources = resources(options.getOrDefault("resources", "10"));
+        YearMonth from = options.containsKey("from") ? YearMonth.parse(options.get("from")) : YearMonth.now();
+        int months = Integer.parseInt(options.getOrDefault("months", "12"));
+        Path out = Path.of(options.getOrDefault("out", "calendars"));
+        Path events = options.containsKey("events") ? Path.of(options.get("events")) : null;
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        float compression = Float.parseFloat(options.getOrDefault("compression", "0.75"));
+
+        List<Job> jobs = new ArrayList<>(resources.size() * months);
+        for (String resource : resources) {
+            for (int i = 0; i < months; i++) {
+                YearMonth month = from.plusMonths(i);
+                jobs.add(new Job(resource, month.getYear(), month.getMonthValue() - 1));
+            }
+        }
+        Files.createDirectories(out);
+
+        BatchRenderer renderer = new BatchRenderer(jobs, out, events, compression);
+        renderer.openEventStores(resources);
+        System.out.printf("# %d resources x %d months = %d images on %d threads%n",
+                resources.size(), months, jobs.size(), threads);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(renderer.new RenderTask(0, jobs.size()));
+        }
+        finally {
+            pool.shutdown();
+            renderer.closeEventStores();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d images, %.1f MB in %.2f s: %.1f images/s%n", renderer.rendered.get(),
+                renderer.bytesWritten.get() / 1e6, seconds, renderer.rendered.get() / seconds);
+    }
+
+    /**
+     * Renders and writes jobs [from, to), splitting in halves until few enough jobs are left.
+     */
+    private class RenderTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        RenderTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    render(jobs.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RenderTask(from, middle), new RenderTask(middle, to));
+        }
+    }
+
+    private void render(Job job) {
+        MonthCells cells = MonthCells.of(job.year(), job.month(), calendarInfo.firstDayOfWeek(), todayEpochDay);
+        int[] counts = null;
+        EventStore store = stores.get(job.resource());
+        if (store != null) {
+            counts = new int[MonthGridEngine.CELLS];
+            store.countEvents(cells.epochDay(0), counts);
+        }
+        Path file = out.resolve(String.format("%s-%04d-%02d.png", fileName(job.resource()), job.year(), job.month() + 1));
+        ImageWriter writer = writers.get();
+        try (OutputStream fileStream = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+             ImageOutputStream stream = new MemoryCacheImageOutputStream(fileStream)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(renderers.get().render(job.resource(), cells, counts), null, null), writeParam);
+            stream.flush();
+            bytesWritten.addAndGet(stream.getStreamPosition());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+        rendered.incrementAndGet();
+    }
+
+    /**
+     * Opens the event logs of the resources that have one. EventStore is synchronized, so the workers share them.
+     */
+    private void openEventStores(List<String> resources) throws IOException {
+        if (events == null) {
+            return;
+        }
+        for (String resource : resources) {
+            Path log = events.resolve(fileName(resource) + ".events");
+            if (Files.exists(log)) {
+                stores.put(resource, EventStore.open(log));
+            }
+        }
+    }
+
+    private void closeEventStores() throws IOException {
+        for (EventStore store : stores.values()) {
+            store.close();
+        }
+    }
+
+    private static List<String> resources(String option) throws IOException {
+        if (option.chars().allMatch(Character::isDigit)) {
+            int count = Integer.parseInt(option);
+            List<String> resources = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                resources.add("Room " + i);
+            }
+            return resources;
+        }
+        return Files.readAllLines(Path.of(option)).stream().map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static String fileName(String resource) {
+        return resource.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
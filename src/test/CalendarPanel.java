@@ -0,0 +1,587 @@
+package test;
+
+import calendar.AvailabilityIndex;
+import calendar.DayChangeScheduler;
+import calendar.DayMetric;
+import calendar.DaySelectionListener;
+import calendar.EdtMonitor;
+import calendar.EventRangeSummary;
+import calendar.EventSearchIndex;
+import calendar.EventStore;
+import calendar.HolidayProvider;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthCache;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+import calendar.MonthNavigator;
+import calendar.RecurrenceIndex;
+import calendar.ui.AvailabilityOverlay;
+import calendar.ui.CalendarGrid;
+import calendar.ui.ColorScale;
+import calendar.ui.EventCountOverlay;
+import calendar.ui.GridOverlay;
+import calendar.ui.HeatmapOverlay;
+import calendar.ui.HolidayOverlay;
+import test.components.EventSearchBar;
+
+import javax.swing.*;
+import javax.swing.border.EtchedBorder;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CalendarPanel extends JPanel implements ActionListener {
+    private static final String LEFT_ARROW  = "<";
+    private static final String RIGHT_ARROW = ">";
+    private static final int MONTH_CACHE_SIZE = 32;
+
+    private final LocaleCalendarInfo calendarInfo;
+    // Registered with the day change scheduler while the panel is displayable
+    private final DayChangeScheduler.Listener dayChangeListener = this::dayChanged;
+    private final MonthCache<MonthCells> monthCache;
+    private final MonthNavigator navigator;
+
+    private final EventCountOverlay eventCounts = new EventCountOverlay();
+    private final AvailabilityOverlay availability = new AvailabilityOverlay();
+    private final HolidayOverlay holidays = new HolidayOverlay();
+    private final EventSearchBar searchBar = new EventSearchBar();
+    private final HeatmapOverlay heatmap = new HeatmapOverlay();
+    // Layers of the grid, all refreshed when another month is shown
+    private final List<GridOverlay> overlays = List.of(eventCounts, availability, holidays, searchBar, heatmap);
+    // Changes written by other threads, coalesced into one refresh on the EDT
+    private final EventStore.ChangeListener storeListener = this::storeChanged;
+    private final AtomicBoolean storeChangePending = new AtomicBoolean();
+
+    private CalendarGrid grid;
+    private MonthCells cells;
+    private EventStore eventStore;
+    // Totals of the selected range of days, null without a store
+    private EventRangeSummary rangeSummary;
+    private EventRangeSummary.Summary selectionSummary;
+    // Read by the month loader on the prefetch threads
+    private volatile long todayEpochDay;
+    private JLabel yearLabel;
+    private JLabel monthLabel;
+    private JLabel summaryLabel;
+    private int currentYear;
+    private int currentMonth;
+
+    public CalendarPanel(Calendar today) {
+        // Month and weekday names and the first day of week of the default locale
+        this.calendarInfo = LocaleCalendarInfo.ofDefault();
+        // Start at the month of today, the panel keeps no mutable Calendar of its own
+        this.currentYear = today.get(Calendar.YEAR);
+        this.currentMonth = today.get(Calendar.MONTH);
+        // Today follows the day change scheduler after midnight
+        this.todayEpochDay = MonthGridEngine.epochDay(today);
+        // Month models are cached and the neighbouring months prefetched in the background,
+        // the loader only reads the today epoch day so it is safe off the EDT
+        int firstDayOfWeek = calendarInfo.firstDayOfWeek();
+        this.monthCache = new MonthCache<>(MONTH_CACHE_SIZE,
+                (year, month) -> {
+                    long start = System.nanoTime();
+                    MonthCells cells = MonthCells.of(year, month, firstDayOfWeek, this.todayEpochDay);
+                    EdtMonitor.MODEL_BUILD.recordSince(start);
+                    return cells;
+                });
+        // Navigation updates the header on every step but renders the grid at most once per frame
+        this.navigator = new MonthNavigator(currentYear, currentMonth, this::setHeaderText, this::showMonth);
+        // Set layout manager
+        this.setLayout(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(10, 10, 10, 10);
+
+        // Calendar header
+        c.gridx = 0;
+        c.gridy = 0;
+        c.fill = GridBagConstraints.HORIZONTAL;
+        this.add(calendarHeader(), c);
+
+        // Calendar grid cells
+        c.gridx = 0;
+        c.gridy = 1;
+        this.add(calendarGrid(), c);
+
+        // Totals of the selected range of days
+        c.gridy = 2;
+        c.insets = new Insets(0, 10, 10, 10);
+        this.add(summaryLabel(), c);
+
+        // Search of the event titles, Enter shows the next month with matches
+        searchBar.addChangeListener(e -> refresh(searchBar));
+        searchBar.addActionListener(e -> showNextSearchMonth());
+        c.gridy = 3;
+        this.add(searchBar, c);
+
+        // Fill the header and the grid with the current month
+        setHeaderText(currentYear, currentMonth);
+        setComponentsText(getDateList());
+    }
+
+    /**
+     * Creates a header with controls to operate the calendar. Each button
+     * increments/decrements year/month respectively via action listener.
+     * Pressing each button refreshes the labels and the calendar grid.
+     *
+     * @return JPanel containing buttons and labels to control and display
+     *         current year and month.
+     */
+    private JPanel calendarHeader() {
+        JPanel header = new JPanel(new GridBagLayout());
+        header.setBorder(BorderFactory.createEtchedBorder(EtchedBorder.LOWERED));
+        GridBagConstraints c = new GridBagConstraints();
+        JSeparator separator = new JSeparator(SwingConstants.HORIZONTAL);
+
+        this.yearLabel = new JLabel();
+        this.monthLabel = new JLabel();
+
+        JButton prevYear = new JButton(LEFT_ARROW);
+        prevYear.setPreferredSize(new Dimension(50, 25));
+        prevYear.addActionListener(this);
+        prevYear.setActionCommand("prevYear");
+
+        JButton prevMonth = new JButton(LEFT_ARROW);
+        prevMonth.setPreferredSize(new Dimension(50, 25));
+        prevMonth.addActionListener(this);
+        prevMonth.setActionCommand("prevMonth");
+
+        JButton nextYear = new JButton(RIGHT_ARROW);
+        nextYear.setPreferredSize(new Dimension(50, 25));
+        nextYear.addActionListener(this);
+        nextYear.setActionCommand("nextYear");
+
+        JButton nextMonth = new JButton(RIGHT_ARROW);
+        nextMonth.setPreferredSize(new Dimension(50, 25));
+        nextMonth.addActionListener(this);
+        nextMonth.setActionCommand("nextMonth");
+
+        c.insets = new Insets(1, 1, 1, 1);
+
+        // Previous buttons column
+        c.weightx = 0.0;
+        c.anchor = GridBagConstraints.LINE_START;
+        c.gridx = 0;
+        c.gridy = 0; header.add(prevYear, c);
+        c.gridy = 2; header.add(prevMonth, c);
+
+        // Next buttons column
+        c.anchor = GridBagConstraints.LINE_END;
+        c.gridx = 2;
+        c.gridy = 0; header.add(nextYear, c);
+        c.gridy = 2; header.add(nextMonth, c);
+
+        // Labels column
+        c.weightx = 1.0;
+        c.anchor = GridBagConstraints.CENTER;
+        c.gridx = 1;
+        c.gridy = 0; header.add(this.yearLabel, c);
+        c.gridy = 2; header.add(this.monthLabel, c);
+
+        // Separator
+
+        c.insets = new Insets(1, 0, 1, 0);
+        c.anchor = GridBagConstraints.CENTER;
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.gridwidth = 3;
+        c.gridx = 0;
+        c.gridy = 1; header.add(separator, c);
+
+        return header;
+    }
+
+    /**
+     * Creates the calendar grid that paints a cell for each possible day in a month.
+     * The grid is kept for reference by 'setComponentsText' method.
+     *
+     * @return CalendarGrid painting (maximum) 6 weeks by 7 days
+     */
+    private CalendarGrid calendarGrid() {
+        this.grid = new CalendarGrid();
+        grid.addDayRangeListener((from, to) -> refreshSelectionSummary());
+        return grid;
+    }
+
+    /**
+     * Creates the label showing the totals of the selected days, it keeps one line of height when empty.
+     */
+    private JLabel summaryLabel() {
+        this.summaryLabel = new JLabel(" ");
+        summaryLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        return summaryLabel;
+    }
+
+    /**
+     * Navigates to the next month after the current one with events matching the search, wrapping around
+     * to the first such month.
+     *
+     * @return false when nothing matches
+     */
+    public boolean showNextSearchMonth() {
+        EventSearchIndex.Result result = searchBar.getResult();
+        int next = result == null ? -1 : result.nextMonth(navigator.getYear(), navigator.getMonth());
+        if (next < 0) {
+            return false;
+        }
+        navigator.navigate(result.getYear(next) * 12 + result.getMonth(next)
+                - (navigator.getYear() * 12 + navigator.getMonth()));
+        navigator.flush();
+        return true;
+    }
+
+    /**
+     * Shows the totals of the selected days. The totals come from per year prefix sums,
+     * so a drag across several years costs the same per mouse move as one within a week.
+     */
+    public void refreshSelectionSummary() {
+        long from = grid.getSelectionStart();
+        long to = grid.getSelectionEnd();
+        if (from == CalendarGrid.NO_SELECTION) {
+            selectionSummary = null;
+            summaryLabel.setText(" ");
+            return;
+        }
+        int days = (int) (to - from + 1);
+        if (rangeSummary == null) {
+            selectionSummary = null;
+            summaryLabel.setText(days == 1 ? "1 day" : days + " days");
+            return;
+        }
+        selectionSummary = rangeSummary.summarize(from, to);
+        summaryLabel.setText(String.format("%d %s: %d events, %.1f h booked, %d free",
+                days, days == 1 ? "day" : "days", selectionSummary.events(),
+                selectionSummary.bookedMinutes() / 60.0, selectionSummary.freeDays()));
+    }
+
+    /**
+     * @return totals of the selected days or null when nothing is selected or no store is set
+     */
+    public EventRangeSummary.Summary getSelectionSummary() {
+        return selectionSummary;
+    }
+
+    /**
+     * Returns the cell model of the current month with overlaps to make up full weeks.
+     * The grid is computed by MonthGridEngine and starts on the locale's first day of the first week of the month.
+     * Months are taken from the month cache and only built here when they were not prefetched.
+     * Months cached before a day change get the new today without being built again.
+     * This method is used as an argument for the 'setComponentsText' method.
+     *
+     * @return  the cells of the current month
+     */
+    private MonthCells getDateList() {
+        return monthCache.get(currentYear, currentMonth).withToday(todayEpochDay);
+    }
+
+    /**
+     * Listens for day changes while the panel is displayable, so hidden or disposed panels
+     * are neither woken nor kept alive by the scheduler.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DayChangeScheduler.addListener(dayChangeListener);
+        // The date may have changed while the panel was not displayable
+        dayChanged(DayChangeScheduler.today());
+    }
+
+    @Override
+    public void removeNotify() {
+        DayChangeScheduler.removeListener(dayChangeListener);
+        super.removeNotify();
+    }
+
+    /**
+     * Moves the "today" colour after midnight. The grid paints only the old and the new today cell.
+     *
+     * @param todayEpochDay the new today
+     */
+    private void dayChanged(long todayEpochDay) {
+        if (todayEpochDay == this.todayEpochDay) {
+            return;
+        }
+        this.todayEpochDay = todayEpochDay;
+        if (cells != null) {
+            cells = cells.withToday(todayEpochDay);
+            grid.setToday(todayEpochDay);
+        }
+    }
+
+    /**
+     * Stores the cell model on the panel and hands the cells and every overlay to the grid, which repaints only
+     * the cells that changed in one region. The grid keeps its size, so no layout pass is needed.
+     * The neighbouring months are then prefetched so the next navigation is a cache hit.
+     *
+     * @param cells the cell model returned by the 'getDateList' method
+     */
+    private void setComponentsText(MonthCells cells) {
+        this.cells = cells;
+        // Set calendar grid cells to current month days
+        grid.setCells(cells);
+        for (GridOverlay overlay : overlays) {
+            overlay.refresh(grid, cells.epochDay(0));
+        }
+        monthCache.prefetchAround(cells.year(), cells.month());
+    }
+
+    /**
+     * Sets the store whose events are counted in the grid cells. Events added by other threads,
+     * e.g. imports or sync, are shown when they change one of the months in view.
+     *
+     * @param eventStore the store or null to show no events
+     */
+    public void setEventStore(EventStore eventStore) {
+        if (this.eventStore != null) {
+            this.eventStore.removeChangeListener(storeListener);
+        }
+        this.eventStore = eventStore;
+        this.rangeSummary = eventStore == null ? null : new EventRangeSummary(eventStore);
+        if (eventStore != null) {
+            eventStore.addChangeListener(storeListener);
+        }
+        eventCounts.setStore(eventStore);
+        refresh(eventCounts);
+        refreshSelectionSummary();
+        searchBar.setEventStore(eventStore);
+    }
+
+    /**
+     * Called on the writing thread. Only the first change after a refresh posts to the EDT,
+     * so a bulk load costs the EDT one version check per event cycle however many events arrive.
+     */
+    private void storeChanged(long fromEpochDay, long toEpochDay) {
+        if (storeChangePending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                storeChangePending.set(false);
+                refreshIfCountsChanged();
+                refreshSelectionSummary();
+                // The index was updated on the writing thread, an unchanged index returns the last result
+                searchBar.search();
+            });
+        }
+    }
+
+    /**
+     * Reads the counts again only when the version of the shown window changed,
+     * i.e. when events were added to or removed from one of the months in view.
+     */
+    private void refreshIfCountsChanged() {
+        if (cells != null && eventCounts.isStale(cells.epochDay(0))) {
+            refresh(eventCounts);
+            refresh(heatmap);
+        }
+    }
+
+    public EventStore getEventStore() {
+        return eventStore;
+    }
+
+    /**
+     * Sets the recurring series whose occurrences are counted in the grid cells on top of the store's events.
+     * Only the 42 days of the shown month are expanded.
+     *
+     * @param recurrences the series or null to show none
+     */
+    public void setRecurrences(RecurrenceIndex recurrences) {
+        eventCounts.setRecurrences(recurrences);
+        refresh(eventCounts);
+    }
+
+    public RecurrenceIndex getRecurrences() {
+        return eventCounts.getRecurrences();
+    }
+
+    /**
+     * Refreshes the event counts when events were added or removed on days visible in the grid.
+     *
+     * @param fromEpochDay first changed day
+     * @param toEpochDay   last changed day
+     */
+    public void eventsChanged(long fromEpochDay, long toEpochDay) {
+        if (cells != null && toEpochDay >= cells.epochDay(0)
+                && fromEpochDay <= cells.epochDay(MonthGridEngine.CELLS - 1)) {
+            refreshIfCountsChanged();
+        }
+    }
+
+    /**
+     * Makes the given month current and sets the header labels to it. Called by the navigator on every
+     * navigation step, so the labels follow each click even when the grid render is coalesced.
+     *
+     * @param year  the year
+     * @param month zero based month as in Calendar.MONTH
+     */
+    private void setHeaderText(int year, int month) {
+        currentYear  = year;
+        currentMonth = month;
+
+        // Set year label text to current year
+        yearLabel.setText(String.valueOf(year));
+        // set month label text to current month
+        monthLabel.setText(getMonthName());
+    }
+
+    /**
+     * Renders the grid of a month, called by the navigator at most once per frame with the latest month.
+     *
+     * @param year  the year
+     * @param month zero based month as in Calendar.MONTH
+     */
+    private void showMonth(int year, int month) {
+        long start = System.nanoTime();
+        setComponentsText(getDateList());
+        EdtMonitor.RENDER.recordSince(start);
+    }
+
+    /**
+     * @return the calendar grid, e.g. to read how many cells each navigation repainted
+     */
+    public CalendarGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Switches the grid to heatmap mode, colouring each day by a per day metric instead of the
+     * today/current month/other month colours.
+     *
+     * @param metric per day metric, e.g. DayMetric.eventCount(store), or null to leave heatmap mode
+     * @param scale  colour scale of the metric
+     */
+    public void setHeatmap(DayMetric metric, ColorScale scale) {
+        heatmap.setHeatmap(metric, scale);
+        refresh(heatmap);
+    }
+
+    /**
+     * Highlights the days of the shown month on which none of the given resources is busy.
+     *
+     * @param availability busy days of the resources or null to highlight nothing
+     * @param resources    indexes of the resources in the index
+     */
+    public void setAvailability(AvailabilityIndex availability, int... resources) {
+        this.availability.setAvailability(availability, resources);
+        refresh(this.availability);
+    }
+
+    /**
+     * Marks the holidays of the given regions in the grid.
+     *
+     * @param holidays holidays of the active regions or null to mark none
+     */
+    public void setHolidays(HolidayProvider.Selection holidays) {
+        this.holidays.setHolidays(holidays);
+        refresh(this.holidays);
+    }
+
+    /**
+     * @return labels of the holidays on the day in the active regions, empty when it is none
+     */
+    public List<String> getHolidayLabels(LocalDate date) {
+        return holidays.labels(date.toEpochDay());
+    }
+
+    /**
+     * Navigates to the month of the first day on or after the given one that all resources set with
+     * 'setAvailability' are free on. The day is highlighted together with the other free days of its month.
+     *
+     * @param fromEpochDay first day to search
+     * @param days         number of days to search
+     * @return the free day or AvailabilityIndex.NONE when there is none in the range
+     */
+    public long showNextCommonFreeDay(long fromEpochDay, int days) {
+        long day = availability.nextCommonFreeDay(fromEpochDay, fromEpochDay + days - 1);
+        if (day != AvailabilityIndex.NONE) {
+            int date = MonthGridEngine.date(day);
+            navigator.navigate(MonthGridEngine.year(date) * 12 + MonthGridEngine.month(date)
+                    - (navigator.getYear() * 12 + navigator.getMonth()));
+            navigator.flush();
+        }
+        return day;
+    }
+
+    /**
+     * @return the search field over the event titles of the store
+     */
+    public EventSearchBar getSearchBar() {
+        return searchBar;
+    }
+
+    /**
+     * Hands the layer of the shown month to the grid again after the overlay's data changed.
+     */
+    private void refresh(GridOverlay overlay) {
+        if (cells != null) {
+            overlay.refresh(grid, cells.epochDay(0));
+        }
+    }
+
+    /**
+     * @return the navigator coalescing header navigation, e.g. to read its request and render counters
+     */
+    public MonthNavigator getNavigator() {
+        return navigator;
+    }
+
+    /**
+     * @return the cache of month models, e.g. to read its hit and miss counters
+     */
+    public MonthCache<MonthCells> getMonthCache() {
+        return monthCache;
+    }
+
+    /**
+     * Registers a listener to be notified when a day cell is clicked.
+     *
+     * @param listener the listener to add
+     */
+    public void addDaySelectionListener(DaySelectionListener listener) {
+        grid.addDaySelectionListener(listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeDaySelectionListener(DaySelectionListener listener) {
+        grid.removeDaySelectionListener(listener);
+    }
+
+    /**
+     * @return all registered day selection listeners
+     */
+    public DaySelectionListener[] getDaySelectionListeners() {
+        return grid.getDaySelectionListeners();
+    }
+
+    /**
+     * Returns the capitalized stand-alone name of the current month in the default locale.
+     * Names are computed once per locale by LocaleCalendarInfo, so this is an array lookup.
+     *
+     * @return capitalized name of the current month
+     */
+    private String getMonthName() {
+        return calendarInfo.monthName(currentMonth);
+    }
+
+    /**
+     * Action listener method to iterate through the calendar by year or month
+     * forwards or backwards by the respective button. Steps go through the navigator,
+     * which coalesces bursts of clicks into one grid render per frame. Clicks on day cells are
+     * dispatched to the day selection listeners by the grid itself.
+     *
+     * @param e the event to be processed
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        long start = System.nanoTime();
+        switch (e.getActionCommand()) {
+            case "prevYear"     -> navigator.navigate(-12);
+            case "nextYear"     -> navigator.navigate(12);
+            case "prevMonth"    -> navigator.navigate(-1);
+            case "nextMonth"    -> navigator.navigate(1);
+        }
+        EdtMonitor.NAVIGATION.recordSince(start);
+    }
+}
@@ -0,0 +1,134 @@
+package test.components;
+
+import calendar.MonthGridEngine;
+import calendar.ui.ColorScale;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+
+/**
+ * Renderer for CalendarTableModel cells. The day is read through the model's primitive accessors
+ * and the text comes from precomputed strings, so rendering a cell allocates nothing.
+ * <p>
+ * The first day of each month also shows the month name and months alternate between two shades
+ * so month boundaries stay visible while scrolling, with "today" painted WHITE.
+ * Occurrence counts of the visible rows, when set, are painted in the top right corner of the cell.
+ * In heatmap mode the shades are replaced by the colour of each day's metric value.
+ */
+public class CalendarCellRenderer extends DefaultTableCellRenderer {
+    private static final Color EVEN_MONTH = Color.LIGHT_GRAY;
+    private static final Color ODD_MONTH  = new Color(0xE4E4E4);
+    private static final Color BADGE      = new Color(0x2050A0);
+    private static final String[] DAY_TEXT = new String[32];
+    private static final String[] COUNT_TEXT = new String[100];
+
+    static {
+        for (int day = 1; day < DAY_TEXT.length; day++) {
+            DAY_TEXT[day] = String.valueOf(day);
+        }
+        for (int count = 1; count < COUNT_TEXT.length; count++) {
+            COUNT_TEXT[count] = String.valueOf(count);
+        }
+    }
+
+    private final String[] firstDayText = new String[12];
+    private long todayEpochDay;
+    private long countsFromEpochDay;
+    private int[] counts;
+    // Count of the cell being rendered
+    private int count;
+    private ColorScale heatmapScale;
+    private long heatmapFromEpochDay;
+    private double[] heatmapValues;
+
+    /**
+     * @param monthNames    short names of the 12 months, shown on the first day of each month
+     * @param todayEpochDay epoch day painted as "today"
+     */
+    public CalendarCellRenderer(String[] monthNames, long todayEpochDay) {
+        this.todayEpochDay = todayEpochDay;
+        for (int month = 0; month < firstDayText.length; month++) {
+            firstDayText[month] = "1 " + monthNames[month];
+        }
+        setHorizontalAlignment(SwingConstants.CENTER);
+    }
+
+    public void setToday(long todayEpochDay) {
+        this.todayEpochDay = todayEpochDay;
+    }
+
+    /**
+     * @param fromEpochDay day of the first count
+     * @param counts       per day counts from fromEpochDay on, kept by reference, or null to paint none
+     */
+    public void setOccurrenceCounts(long fromEpochDay, int[] counts) {
+        this.countsFromEpochDay = fromEpochDay;
+        this.counts = counts;
+    }
+
+    public boolean hasOccurrenceCounts() {
+        return counts != null;
+    }
+
+    /**
+     * @param scale        colour scale of the values or null to leave heatmap mode
+     * @param fromEpochDay day of the first value
+     * @param values       per day values from fromEpochDay on, kept by reference
+     */
+    public void setHeatmap(ColorScale scale, long fromEpochDay, double[] values) {
+        this.heatmapScale = scale;
+        this.heatmapFromEpochDay = fromEpochDay;
+        this.heatmapValues = values;
+    }
+
+    public boolean isHeatmap() {
+        return heatmapScale != null;
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        // The value is ignored, the label text is set below from the model's primitives
+        super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+        if (!(table.getModel() instanceof CalendarTableModel model)) {
+            setText(value == null ? "" : value.toString());
+            return this;
+        }
+
+        int modelColumn = table.convertColumnIndexToModel(column);
+        long epochDay = model.epochDay(row, modelColumn);
+        long index = epochDay - countsFromEpochDay;
+        count = counts != null && index >= 0 && index < counts.length ? counts[(int) index] : 0;
+        int date = model.date(row, modelColumn);
+        int day = MonthGridEngine.dayOfMonth(date);
+        int month = MonthGridEngine.month(date);
+        setText(day == 1 ? firstDayText[month] : DAY_TEXT[day]);
+
+        if (!isSelected) {
+            long heatmapIndex = epochDay - heatmapFromEpochDay;
+            if (epochDay == todayEpochDay) {
+                setBackground(Color.WHITE);
+            }
+            else if (heatmapScale != null && heatmapIndex >= 0 && heatmapIndex < heatmapValues.length) {
+                // Bucket colours are shared instances, so setting them allocates nothing
+                setBackground(heatmapScale.color(heatmapScale.bucket(heatmapValues[(int) heatmapIndex])));
+            }
+            else {
+                setBackground((month & 1) == 0 ? EVEN_MONTH : ODD_MONTH);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (count > 0) {
+            String text = count < COUNT_TEXT.length ? COUNT_TEXT[count] : "99+";
+            FontMetrics metrics = g.getFontMetrics();
+            g.setColor(BADGE);
+            g.drawString(text, getWidth() - metrics.stringWidth(text) - 2, metrics.getAscent());
+        }
+    }
+}
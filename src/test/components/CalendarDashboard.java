@@ -0,0 +1,404 @@
+package test.components;
+
+import calendar.DayChangeScheduler;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+import calendar.MonthNavigator;
+import calendar.ui.CalendarGrid;
+
+import javax.swing.*;
+import javax.swing.border.EtchedBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EventListener;
+import java.util.List;
+
+/**
+ * Dashboard of one month calendar per resource, e.g. per room or person, navigated together.
+ * <p>
+ * The calendars are virtualised: no component is built per resource. The tile view paints only
+ * the tiles intersecting the clip, each through one shared CalendarGrid used as a rubber stamp
+ * the way JTable paints its cells. All tiles show the same MonthCells, which in turn share the
+ * interned MonthGrid, so navigating costs one model and a repaint of the visible tiles however
+ * many resources there are. Event counts are only read for tiles as they are painted and kept
+ * until the month changes.
+ */
+public class CalendarDashboard extends JPanel {
+    private static final String LEFT_ARROW  = "<";
+    private static final String RIGHT_ARROW = ">";
+    private static final int CELL_WIDTH  = 32;
+    private static final int CELL_HEIGHT = 26;
+    private static final int GAP = 10;
+
+    /**
+     * Supplies the event counts of a resource.
+     */
+    @FunctionalInterface
+    public interface EventSource {
+        /**
+         * @param resource     index of the resource
+         * @param fromEpochDay first day of the window
+         * @param counts       receives the per day counts, its length is the window length
+         */
+        void countEvents(int resource, long fromEpochDay, int[] counts);
+    }
+
+    /**
+     * Notified when a day of a resource calendar was clicked.
+     */
+    @FunctionalInterface
+    public interface ResourceDayListener extends EventListener {
+        void daySelected(int resource, LocalDate date);
+    }
+
+    private final List<String> resources;
+    private final EventSource events;
+    private final LocaleCalendarInfo calendarInfo;
+    private final MonthNavigator navigator;
+    // Registered with the day change scheduler while the dashboard is displayable
+    private final DayChangeScheduler.Listener dayChangeListener = this::dayChanged;
+    private final TileView tiles;
+    private final JLabel monthLabel = new JLabel();
+    // Counts of the resources painted since the last month change by resource index, null until painted
+    private final int[][] eventCounts;
+    private int countedResources;
+    private long todayEpochDay;
+    private MonthCells cells;
+
+    /**
+     * @param resources names of the resources, one calendar each
+     * @param events    counts of the resources or null to show no events
+     */
+    public CalendarDashboard(List<String> resources, EventSource events) {
+        super(new BorderLayout());
+        this.resources = List.copyOf(resources);
+        this.eventCounts = new int[this.resources.size()][];
+        this.events = events;
+        this.calendarInfo = LocaleCalendarInfo.ofDefault();
+        LocalDate today = LocalDate.now();
+        this.todayEpochDay = today.toEpochDay();
+        int year = today.getYear();
+        int month = today.getMonthValue() - 1;
+        this.navigator = new MonthNavigator(year, month, this::setHeaderText, this::showMonth);
+        this.tiles = new TileView();
+
+        add(dashboardHeader(), BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(tiles);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(CELL_HEIGHT);
+        add(scrollPane, BorderLayout.CENTER);
+
+        setHeaderText(year, month);
+        showMonth(year, month);
+    }
+
+    /**
+     * Creates the header with one pair of year and month buttons navigating all calendars.
+     */
+    private JPanel dashboardHeader() {
+        JPanel header = new JPanel(new FlowLayout(FlowLayout.CENTER, 4, 2));
+        header.setBorder(BorderFactory.createEtchedBorder(EtchedBorder.LOWERED));
+        header.add(navigationButton(LEFT_ARROW + LEFT_ARROW, -12));
+        header.add(navigationButton(LEFT_ARROW, -1));
+        monthLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        monthLabel.setPreferredSize(new Dimension(160, 25));
+        header.add(monthLabel);
+        header.add(navigationButton(RIGHT_ARROW, 1));
+        header.add(navigationButton(RIGHT_ARROW + RIGHT_ARROW, 12));
+        return header;
+    }
+
+    private JButton navigationButton(String text, int months) {
+        JButton button = new JButton(text);
+        button.setPreferredSize(new Dimension(50, 25));
+        button.addActionListener(e -> navigator.navigate(months));
+        return button;
+    }
+
+    private void setHeaderText(int year, int month) {
+        monthLabel.setText(calendarInfo.monthName(month) + " " + year);
+    }
+
+    /**
+     * Shows a month in all calendars, called by the navigator at most once per frame.
+     */
+    private void showMonth(int year, int month) {
+        this.cells = MonthCells.of(year, month, calendarInfo.firstDayOfWeek(), todayEpochDay);
+        clearEventCounts();
+        tiles.repaint();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DayChangeScheduler.addListener(dayChangeListener);
+        // The date may have changed while the dashboard was not displayable
+        dayChanged(DayChangeScheduler.today());
+    }
+
+    @Override
+    public void removeNotify() {
+        DayChangeScheduler.removeListener(dayChangeListener);
+        super.removeNotify();
+    }
+
+    /**
+     * Moves the "today" colour after midnight. In each visible tile only the old and the new today
+     * cell are painted, each on its own so the repaint manager does not merge them into whole tiles.
+     */
+    private void dayChanged(long todayEpochDay) {
+        if (todayEpochDay == this.todayEpochDay) {
+            return;
+        }
+        this.todayEpochDay = todayEpochDay;
+        if (cells == null) {
+            return;
+        }
+        int previous = cells.todayCell();
+        cells = cells.withToday(todayEpochDay);
+        tiles.paintCell(previous);
+        tiles.paintCell(cells.todayCell());
+    }
+
+    /**
+     * Drops the cached event counts and repaints the visible tiles, e.g. after events were imported.
+     */
+    public void refreshEventCounts() {
+        clearEventCounts();
+        tiles.repaint();
+    }
+
+    private void clearEventCounts() {
+        Arrays.fill(eventCounts, null);
+        countedResources = 0;
+    }
+
+    /**
+     * @return the navigator moving all calendars, e.g. to navigate from scripts
+     */
+    public MonthNavigator getNavigator() {
+        return navigator;
+    }
+
+    public MonthCells getCells() {
+        return cells;
+    }
+
+    public int getResourceCount() {
+        return resources.size();
+    }
+
+    /**
+     * @return number of tiles painted by the last paint, at most the visible ones
+     */
+    public int getPaintedTileCount() {
+        return tiles.paintedTiles;
+    }
+
+    /**
+     * @return number of resources whose events were counted since the last month change
+     */
+    public int getCountedResourceCount() {
+        return countedResources;
+    }
+
+    public void addResourceDayListener(ResourceDayListener listener) {
+        listenerList.add(ResourceDayListener.class, listener);
+    }
+
+    public void removeResourceDayListener(ResourceDayListener listener) {
+        listenerList.remove(ResourceDayListener.class, listener);
+    }
+
+    protected void fireDaySelected(int resource, int cell) {
+        LocalDate date = LocalDate.ofEpochDay(cells.epochDay(cell));
+        Object[] listeners = listenerList.getListenerList();
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == ResourceDayListener.class) {
+                ((ResourceDayListener) listeners[i + 1]).daySelected(resource, date);
+            }
+        }
+    }
+
+    /**
+     * @return the counts of the resource for the shown cells, read on first use after a month change
+     */
+    private int[] countsOf(int resource) {
+        int[] counts = eventCounts[resource];
+        if (counts == null) {
+            counts = new int[MonthGridEngine.CELLS];
+            events.countEvents(resource, cells.epochDay(0), counts);
+            eventCounts[resource] = counts;
+            countedResources++;
+        }
+        return counts;
+    }
+
+    /**
+     * Scrollable view laying out the tiles in as many columns as fit the viewport width.
+     */
+    private class TileView extends JComponent implements Scrollable {
+        private final CalendarGrid stamp = new CalendarGrid();
+        private final CellRendererPane rendererPane = new CellRendererPane();
+        private final int gridWidth = CELL_WIDTH * MonthGridEngine.DAYS_OF_WEEK;
+        private final int gridHeight = CELL_HEIGHT * MonthGridEngine.WEEKS_OF_MONTH;
+        private final int titleHeight;
+        private final int[] noEvents = new int[MonthGridEngine.CELLS];
+        private int columns = 1;
+        private int paintedTiles;
+
+        TileView() {
+            setOpaque(true);
+            setBackground(UIManager.getColor("Panel.background"));
+            add(rendererPane);
+            stamp.setFont(stamp.getFont().deriveFont(11f));
+            titleHeight = getFontMetrics(getFont() != null ? getFont() : stamp.getFont()).getHeight() + 2;
+
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    int column = e.getX() / tileWidth();
+                    int row = e.getY() / tileHeight();
+                    int resource = row * columns + column;
+                    int x = e.getX() - column * tileWidth();
+                    int y = e.getY() - row * tileHeight() - titleHeight;
+                    if (cells == null || column >= columns || resource >= resources.size()
+                            || x >= gridWidth || y < 0 || y >= gridHeight) {
+                        return;
+                    }
+                    int cell = y / CELL_HEIGHT * MonthGridEngine.DAYS_OF_WEEK + x / CELL_WIDTH;
+                    if (cell < cells.size()) {
+                        fireDaySelected(resource, cell);
+                    }
+                }
+            });
+        }
+
+        /**
+         * The height depends on the number of columns, which depends on the width,
+         * so a width fitting another number of columns lays the view out again.
+         */
+        @Override
+        public void setBounds(int x, int y, int width, int height) {
+            super.setBounds(x, y, width, height);
+            int fit = Math.max(1, width / tileWidth());
+            if (fit != columns) {
+                columns = fit;
+                revalidate();
+                repaint();
+            }
+        }
+
+        private int tileWidth() {
+            return gridWidth + GAP;
+        }
+
+        private int tileHeight() {
+            return titleHeight + gridHeight + GAP;
+        }
+
+        /**
+         * Paints one cell in every visible tile.
+         */
+        void paintCell(int cell) {
+            if (cell < 0 || cell >= cells.size()) {
+                return;
+            }
+            Rectangle visible = getVisibleRect();
+            int cellX = cell % MonthGridEngine.DAYS_OF_WEEK * CELL_WIDTH;
+            int cellY = titleHeight + cell / MonthGridEngine.DAYS_OF_WEEK * CELL_HEIGHT;
+            int firstRow = visible.y / tileHeight();
+            int lastRow = (visible.y + visible.height - 1) / tileHeight();
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = 0; column < columns && row * columns + column < resources.size(); column++) {
+                    Rectangle r = new Rectangle(column * tileWidth() + cellX, row * tileHeight() + cellY,
+                            CELL_WIDTH, CELL_HEIGHT);
+                    if (!r.intersects(visible)) {
+                        continue;
+                    }
+                    if (isShowing()) {
+                        paintImmediately(r);
+                    }
+                    else {
+                        repaint(r);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            int rows = (resources.size() + columns - 1) / columns;
+            return new Dimension(columns * tileWidth(), rows * tileHeight());
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            paintedTiles = 0;
+            if (cells == null) {
+                return;
+            }
+            stamp.setCells(cells);
+
+            // Only the rows and columns intersecting the clip are painted
+            int firstRow = clip.y / tileHeight();
+            int lastRow = (clip.y + clip.height - 1) / tileHeight();
+            int firstColumn = clip.x / tileWidth();
+            int lastColumn = Math.min(columns - 1, (clip.x + clip.width - 1) / tileWidth());
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int resource = row * columns + column;
+                    if (resource >= resources.size()) {
+                        break;
+                    }
+                    int x = column * tileWidth();
+                    int y = row * tileHeight();
+                    g.setColor(getForeground());
+                    g.setFont(getFont());
+                    g.drawString(resources.get(resource), x, y + metrics.getAscent());
+                    stamp.setEventCounts(events == null ? noEvents : countsOf(resource));
+                    rendererPane.paintComponent(g, stamp, this, x, y + titleHeight, gridWidth, gridHeight, true);
+                    paintedTiles++;
+                }
+            }
+        }
+
+        @Override
+        public Dimension getPreferredScrollableViewportSize() {
+            return new Dimension(3 * tileWidth(), 2 * tileHeight());
+        }
+
+        @Override
+        public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+            return orientation == SwingConstants.VERTICAL ? CELL_HEIGHT : CELL_WIDTH;
+        }
+
+        @Override
+        public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+            // Whole rows of tiles per block
+            int tile = orientation == SwingConstants.VERTICAL ? tileHeight() : tileWidth();
+            int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+            return Math.max(tile, extent / tile * tile);
+        }
+
+        @Override
+        public boolean getScrollableTracksViewportWidth() {
+            return true;
+        }
+
+        @Override
+        public boolean getScrollableTracksViewportHeight() {
+            return false;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package test.components;
 
+import calendar.DayChangeScheduler;
+import calendar.DayMetric;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthGridEngine;
+import calendar.RecurrenceIndex;
+import calendar.ui.ColorScale;
+
 import javax.swing.*;
-import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.text.DateFormat;
 import java.util.*;
@@ -11,100 +17,257 @@ public class CalendarTable extends JPanel{
     private final int MAX_DAYS_OF_WEEK   = 7;
     private final int MAX_WEEKS_OF_MONTH = 6;
     DateFormat df;
-    Calendar calendar;
+    LocaleCalendarInfo calendarInfo;
     int currentYear;
     int currentMonth;
-    Object[] daysOfWeek;    // JTable column names
-    Object[][] daysOfMonth; // JTable row data
+    List<String> daysOfWeek;    // JTable column names
+    CalendarTableModel model;   // JTable row data, computed on demand
+    JTable calendarTable;
+    CalendarCellRenderer renderer;
+    RecurrenceIndex recurrences;
+    int[] visibleCounts = new int[0];
+    DayMetric heatmapMetric;
+    ColorScale heatmapScale;
+    double[] visibleValues = new double[0];
+    long todayEpochDay;
+    // Registered with the day change scheduler while the table is displayable
+    DayChangeScheduler.Listener dayChangeListener = this::dayChanged;
 
     public CalendarTable() {
         this.df = DateFormat.getDateInstance();
-        this.calendar = Calendar.getInstance();
-        this.calendar.setMinimalDaysInFirstWeek(1);
+        // Today, only read here, the table keeps no mutable Calendar of its own
+        Calendar calendar = Calendar.getInstance();
+        this.calendarInfo = LocaleCalendarInfo.ofDefault();
         this.currentYear = calendar.get(Calendar.YEAR);
         this.currentMonth = calendar.get(Calendar.MONTH);
         this.daysOfWeek = getDaysOfWeek();
-        this.daysOfMonth = getDaysOfMonth(getDateList());
+        this.model = new CalendarTableModel(daysOfWeek.toArray(), calendarInfo.firstDayOfWeek());
 
-        JTable calendarTable = new JTable(daysOfMonth, daysOfWeek);
+        calendarTable = new JTable(model);
         JScrollPane tablePane = new JScrollPane(calendarTable);
 
-        /* DefaultTableCellRenderer is a subclass of JLabel and thus inherits its methods
-            - setHorizontalAlignment aligns the label content horizontally
-
+        /* CalendarCellRenderer is a DefaultTableCellRenderer and thus a JLabel
+            - it reads each day from the model's primitives instead of boxed cell values
          */
-        DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
-        centerRenderer.setHorizontalAlignment( SwingConstants.CENTER );
-        calendarTable.setDefaultRenderer(Object.class, centerRenderer);
+        this.todayEpochDay = MonthGridEngine.epochDay(calendar);
+        this.renderer = new CalendarCellRenderer(calendarInfo.shortMonthNames(), todayEpochDay);
+        calendarTable.setDefaultRenderer(Integer.class, renderer);
+        calendarTable.setDefaultRenderer(Object.class, renderer);
         calendarTable.setFillsViewportHeight(true);
-
+        calendarTable.setCellSelectionEnabled(true);
+        calendarTable.getTableHeader().setReorderingAllowed(false);
+        calendarTable.setPreferredScrollableViewportSize(new Dimension(
+                MAX_DAYS_OF_WEEK * 60, MAX_WEEKS_OF_MONTH * calendarTable.getRowHeight()));
 
         this.add(tablePane);
 
-        System.out.println(Arrays.deepToString(getDaysOfMonth(getDateList())));
+        // Occurrences are only expanded and metrics only read for the rows in view
+        tablePane.getViewport().addChangeListener(e -> refreshVisibleRows());
+
+        // Start with the first week of the current month at the top once the table is laid out
+        SwingUtilities.invokeLater(() -> scrollToDate(MonthGridEngine.epochDay(currentYear, currentMonth, 1)));
+    }
+
+    /**
+     * Scrolls the table so that the week containing the given day is the first visible row.
+     *
+     * @param epochDay days since 1970-01-01
+     */
+    public void scrollToDate(long epochDay) {
+        int row = model.rowOf(epochDay);
+        if (!(calendarTable.getParent() instanceof JViewport viewport)) {
+            return;
+        }
+        int y = Math.min(row * calendarTable.getRowHeight(),
+                Math.max(0, calendarTable.getHeight() - viewport.getExtentSize().height));
+        viewport.setViewPosition(new Point(0, y));
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DayChangeScheduler.addListener(dayChangeListener);
+        // The date may have changed while the table was not displayable
+        dayChanged(DayChangeScheduler.today());
+    }
+
+    @Override
+    public void removeNotify() {
+        DayChangeScheduler.removeListener(dayChangeListener);
+        super.removeNotify();
+    }
+
+    /**
+     * Moves the "today" colour after midnight, repainting only the old and the new today cell.
+     */
+    private void dayChanged(long todayEpochDay) {
+        if (todayEpochDay == this.todayEpochDay) {
+            return;
+        }
+        long previous = this.todayEpochDay;
+        this.todayEpochDay = todayEpochDay;
+        renderer.setToday(todayEpochDay);
+        repaintDay(previous);
+        repaintDay(todayEpochDay);
+    }
+
+    private void repaintDay(long epochDay) {
+        int row = model.rowOf(epochDay);
+        if (row < 0 || row >= model.getRowCount()) {
+            return;
+        }
+        int column = (int) (epochDay - model.epochDay(row, 0));
+        Rectangle r = calendarTable.getCellRect(row, column, true);
+        // Painted each on its own, the repaint manager would merge the two cells into one region
+        if (calendarTable.isShowing()) {
+            calendarTable.paintImmediately(r);
+        }
+        else {
+            calendarTable.repaint(r);
+        }
+    }
+
+    /**
+     * Sets the recurring series whose occurrences are counted in the visible cells.
+     *
+     * @param recurrences the series or null to show none
+     */
+    public void setRecurrences(RecurrenceIndex recurrences) {
+        this.recurrences = recurrences;
+        refreshOccurrenceCounts();
+    }
+
+    /**
+     * Counts the occurrences of the visible rows in one window and hands them to the renderer.
+     * The window covers only the rows in the viewport, so the rules are never expanded for the
+     * thousands of weeks the table can scroll to.
+     */
+    public void refreshOccurrenceCounts() {
+        if (updateOccurrenceCounts()) {
+            repaintView();
+        }
+    }
+
+    /**
+     * @return true when the renderer's counts changed and the view needs a repaint
+     */
+    private boolean updateOccurrenceCounts() {
+        if (recurrences == null || !(calendarTable.getParent() instanceof JViewport viewport)) {
+            // Cleared once, scrolling without series then repaints nothing
+            if (!renderer.hasOccurrenceCounts()) {
+                return false;
+            }
+            renderer.setOccurrenceCounts(0, null);
+            return true;
+        }
+        VisibleWindow window = visibleWindow(viewport);
+        if (window == null) {
+            return false;
+        }
+        if (visibleCounts.length != window.days()) {
+            visibleCounts = new int[window.days()];
+        }
+        long fromEpochDay = model.epochDay(window.firstRow(), 0);
+        recurrences.countOccurrences(fromEpochDay, visibleCounts);
+        renderer.setOccurrenceCounts(fromEpochDay, visibleCounts);
+        return true;
     }
 
     /**
-     * Parses ordered days of week in short form into an array according to current locale's first day.
+     * Colours each day by a per day metric, e.g. the event count, instead of the alternating month shades.
      *
-     * @return A String array of short form days of week in a default locale
+     * @param metric per day metric or null to leave heatmap mode
+     * @param scale  colour scale of the metric
+     */
+    public void setHeatmap(DayMetric metric, ColorScale scale) {
+        this.heatmapMetric = metric;
+        this.heatmapScale = scale;
+        refreshHeatmap();
+    }
+
+    /**
+     * Reads the metric of the visible rows in one window and hands it to the renderer.
      */
-    private Object[] getDaysOfWeek() {
-        Map<String, Integer> daysOfWeekMap = calendar.getDisplayNames(
-                Calendar.DAY_OF_WEEK,
-                Calendar.SHORT_STANDALONE,
-                Locale.getDefault());
-        Object[] array = new String[7];
-
-        if (calendar.getFirstDayOfWeek() == Calendar.MONDAY) {
-                    daysOfWeekMap.forEach((day, idx) -> {
-                        // Capitalize first letter of a day
-                        day = day.substring(0, 1).toUpperCase() + day.substring(1);
-                        // Put Sunday at the end of the array
-                        if (idx == Calendar.SUNDAY) {
-                            array[array.length - 1] = day;
-                        // Shift all other days to`  the start of the array
-                        } else {
-                            array[idx - 2] = day;
-                        }
-                    });
-        }
-        else { daysOfWeekMap.forEach((day, idx) -> array[idx - 1] = day); }
-
-        return array;
-    }
-
-    private List<Integer> getDateList() {
-        ArrayList<Integer> list = new ArrayList<>();
-        calendar.set(Calendar.WEEK_OF_MONTH, 1);
-        calendar.set(Calendar.DAY_OF_WEEK, Calendar.MONDAY);
-
-        // Condition checks if the calendar has reached next month at the beginning of a new week
-        do {
-            // Extract the date string for the current day and add it to the list
-            list.add(calendar.get(Calendar.DAY_OF_MONTH));
-            // Increment day of the calendar
-            calendar.add(Calendar.DAY_OF_MONTH, 1);
-        } while (! (calendar.get(Calendar.DAY_OF_WEEK) == Calendar.MONDAY &&
-                calendar.get(Calendar.MONTH) != currentMonth));
-        // Set calendar back to current month and year in case of overlap to the next month/year
-        calendar.set(Calendar.YEAR, currentYear);
-        calendar.set(Calendar.MONTH, currentMonth);
-        return list;
-    }
-
-    private Object[][] getDaysOfMonth(List<Integer> dateList) {
-        Object[][] array = new Object[MAX_WEEKS_OF_MONTH][MAX_DAYS_OF_WEEK];
-        ListIterator<Integer> iterator = dateList.listIterator();
-
-        for (int week = 0; week < MAX_WEEKS_OF_MONTH; week++) {
-            for (int day = 0; day < MAX_DAYS_OF_WEEK; day++) {
-                if (iterator.hasNext()){
-                    array[week][day] = iterator.next();
-                }
+    public void refreshHeatmap() {
+        if (updateHeatmap()) {
+            repaintView();
+        }
+    }
+
+    /**
+     * @return true when the renderer's heatmap changed and the view needs a repaint
+     */
+    private boolean updateHeatmap() {
+        if (heatmapMetric == null || heatmapScale == null
+                || !(calendarTable.getParent() instanceof JViewport viewport)) {
+            if (!renderer.isHeatmap()) {
+                return false;
             }
+            renderer.setHeatmap(null, 0, null);
+            return true;
+        }
+        VisibleWindow window = visibleWindow(viewport);
+        if (window == null) {
+            return false;
+        }
+        if (visibleValues.length != window.days()) {
+            visibleValues = new double[window.days()];
+        }
+        long fromEpochDay = model.epochDay(window.firstRow(), 0);
+        heatmapMetric.values(fromEpochDay, visibleValues);
+        renderer.setHeatmap(heatmapScale, fromEpochDay, visibleValues);
+        return true;
+    }
+
+    /**
+     * Rows in the viewport: the first one and the number of days they cover.
+     */
+    private record VisibleWindow(int firstRow, int days) {}
+
+    /**
+     * @return the rows in the viewport or null when the table has no rows there
+     */
+    private VisibleWindow visibleWindow(JViewport viewport) {
+        Rectangle view = viewport.getViewRect();
+        int firstRow = calendarTable.rowAtPoint(new Point(0, view.y));
+        int lastRow = calendarTable.rowAtPoint(new Point(0, view.y + view.height - 1));
+        if (firstRow < 0) {
+            return null;
+        }
+        if (lastRow < 0) {
+            lastRow = model.getRowCount() - 1;
+        }
+        return new VisibleWindow(firstRow, (lastRow - firstRow + 1) * MAX_DAYS_OF_WEEK);
+    }
+
+    /**
+     * Re-reads the occurrence counts and the heatmap of the rows in view after a scroll or resize
+     * and repaints the view once for both, or not at all when neither is shown.
+     */
+    private void refreshVisibleRows() {
+        boolean changed = updateOccurrenceCounts();
+        if (updateHeatmap() || changed) {
+            repaintView();
         }
-        return array;
+    }
+
+    private void repaintView() {
+        if (calendarTable.getParent() instanceof JViewport viewport) {
+            calendarTable.repaint(viewport.getViewRect());
+        }
+        else {
+            calendarTable.repaint();
+        }
+    }
+
+    /**
+     * Returns ordered days of week in short form according to the current locale's first day.
+     * The names are computed once per locale by LocaleCalendarInfo.
+     *
+     * @return An unmodifiable list of short form days of week in a default locale
+     */
+    private List<String> getDaysOfWeek() {
+        return calendarInfo.daysOfWeek();
     }
 }
 
@@ -0,0 +1,102 @@
+package test.components;
+
+import calendar.MonthGridEngine;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Virtual table model with one row per week, from the first week of MIN_YEAR to the last week of MAX_YEAR.
+ * Rows are computed on demand from their epoch-week index and only a small ring of recently
+ * read rows is kept, so scrolling across centuries costs no more memory than showing one month.
+ * <p>
+ * Renderers should read the primitive accessors ('dayOfMonth', 'date', 'epochDay') instead of 'getValueAt'.
+ * The boxed value is only a day of month, which always comes from the Integer cache.
+ */
+public class CalendarTableModel extends AbstractTableModel {
+    public static final int MIN_YEAR = 1;
+    public static final int MAX_YEAR = 9999;
+
+    // Must be a power of two larger than the number of visible rows
+    private static final int CACHE_ROWS = 128;
+    private static final int DAYS = MonthGridEngine.DAYS_OF_WEEK;
+
+    private final Object[] columnNames;
+    private final long firstEpochDay;
+    private final int rowCount;
+
+    // Direct mapped row cache, the packed dates of row 'cachedRows[slot]' start at 'slot * DAYS'
+    private final int[] cachedRows = new int[CACHE_ROWS];
+    private final int[] cachedDates = new int[CACHE_ROWS * DAYS];
+
+    /**
+     * @param columnNames    names of the 7 day columns, starting with the first day of week
+     * @param firstDayOfWeek first column of the table, Calendar.SUNDAY..Calendar.SATURDAY
+     */
+    public CalendarTableModel(Object[] columnNames, int firstDayOfWeek) {
+        this.columnNames = columnNames.clone();
+        long first = MonthGridEngine.epochDay(MIN_YEAR, 0, 1);
+        long last = MonthGridEngine.epochDay(MAX_YEAR, 11, 31);
+        this.firstEpochDay = first - Math.floorMod(MonthGridEngine.dayOfWeek(first) - firstDayOfWeek, DAYS);
+        this.rowCount = (int) ((last - firstEpochDay) / DAYS + 1);
+        Arrays.fill(cachedRows, -1);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return DAYS;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return String.valueOf(columnNames[column]);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return dayOfMonth(row, column);
+    }
+
+    /**
+     * @return epoch day shown in the cell
+     */
+    public long epochDay(int row, int column) {
+        return firstEpochDay + (long) row * DAYS + column;
+    }
+
+    /**
+     * @return the table row showing the week that contains the epoch day
+     */
+    public int rowOf(long epochDay) {
+        return (int) Math.floorDiv(epochDay - firstEpochDay, DAYS);
+    }
+
+    /**
+     * @return date of the cell packed by MonthGridEngine.date
+     */
+    public int date(int row, int column) {
+        int slot = row & (CACHE_ROWS - 1);
+        if (cachedRows[slot] != row) {
+            long epochDay = epochDay(row, 0);
+            for (int day = 0; day < DAYS; day++) {
+                cachedDates[slot * DAYS + day] = MonthGridEngine.date(epochDay + day);
+            }
+            cachedRows[slot] = row;
+        }
+        return cachedDates[slot * DAYS + column];
+    }
+
+    public int dayOfMonth(int row, int column) {
+        return MonthGridEngine.dayOfMonth(date(row, column));
+    }
+}
@@ -0,0 +1,192 @@
+package test.components;
+
+import calendar.EventSearchIndex;
+import calendar.EventStore;
+import calendar.MonthGridEngine;
+import calendar.ui.CalendarGrid;
+import calendar.ui.GridOverlay;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A search field over the event titles of a store and a label counting its matches. The index is built
+ * off the EDT whenever the store is set, and the search runs on each keystroke. As a grid overlay it marks
+ * the days with matching events.
+ * <p>
+ * Change listeners are notified when the result changes, action listeners when Enter is pressed.
+ */
+public class EventSearchBar extends JPanel implements GridOverlay {
+    private final JTextField field = new JTextField(14);
+    private final JLabel countLabel = new JLabel(" ");
+    private final int[] matches = new int[MonthGridEngine.CELLS];
+    private EventStore store;
+    // Title search over the store, built off the EDT, null until built
+    private EventSearchIndex index;
+    private EventSearchIndex.Result result;
+
+    public EventSearchBar() {
+        super(new BorderLayout(5, 0));
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                search();
+            }
+        });
+        add(new JLabel("Search"), BorderLayout.LINE_START);
+        add(field, BorderLayout.CENTER);
+        add(countLabel, BorderLayout.LINE_END);
+    }
+
+    /**
+     * Closes the index of the previous store and indexes the titles of the new one in the background.
+     *
+     * @param store the store to search or null to search nothing
+     */
+    public void setEventStore(EventStore store) {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        this.store = store;
+        if (store != null) {
+            buildIndex(store);
+        }
+        search();
+    }
+
+    /**
+     * Sets the text of the search field, which runs the search like typing it.
+     *
+     * @param query words to search the event titles for, the last one as a prefix
+     */
+    public void setText(String query) {
+        field.setText(query);
+    }
+
+    /**
+     * Searches the event titles for the text of the search field. A query is a few lookups in the index
+     * plus a pass over the matching events, within a frame even when a million events match.
+     */
+    public void search() {
+        String query = field.getText();
+        if (query.isBlank() || index == null) {
+            result = null;
+            countLabel.setText(query.isBlank() || store == null ? " " : "indexing...");
+        }
+        else {
+            result = index.search(query);
+            countLabel.setText(String.format("%d %s in %d %s", result.getCount(),
+                    result.getCount() == 1 ? "event" : "events", result.getMonthCount(),
+                    result.getMonthCount() == 1 ? "month" : "months"));
+        }
+        fireStateChanged();
+    }
+
+    /**
+     * @return events matching the text of the search field grouped by month, or null without a search
+     */
+    public EventSearchIndex.Result getResult() {
+        return result;
+    }
+
+    /**
+     * @return the title search of the store, null until it is built in the background
+     */
+    public EventSearchIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public void refresh(CalendarGrid grid, long fromEpochDay) {
+        if (result != null) {
+            result.matchingDays(fromEpochDay, matches);
+        }
+        else {
+            Arrays.fill(matches, 0);
+        }
+        grid.setSearchMatches(matches);
+    }
+
+    /**
+     * @param listener notified when Enter is pressed in the search field
+     */
+    public void addActionListener(ActionListener listener) {
+        field.addActionListener(listener);
+    }
+
+    public void removeActionListener(ActionListener listener) {
+        field.removeActionListener(listener);
+    }
+
+    /**
+     * @param listener notified on the EDT after each search, e.g. to refresh the overlay
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listenerList.add(ChangeListener.class, listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listenerList.remove(ChangeListener.class, listener);
+    }
+
+    private void fireStateChanged() {
+        Object[] listeners = listenerList.getListenerList();
+        ChangeEvent event = null;
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == ChangeListener.class) {
+                if (event == null) {
+                    event = new ChangeEvent(this);
+                }
+                ((ChangeListener) listeners[i + 1]).stateChanged(event);
+            }
+        }
+    }
+
+    /**
+     * Indexes the titles of the store in the background and runs the pending search when done.
+     * A failure is shown in place of the match count, its cause as the tooltip.
+     */
+    private void buildIndex(EventStore store) {
+        new SwingWorker<EventSearchIndex, Void>() {
+            @Override
+            protected EventSearchIndex doInBackground() {
+                return new EventSearchIndex(store);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    EventSearchIndex built = get();
+                    if (store != EventSearchBar.this.store) {
+                        built.close();
+                        return;
+                    }
+                    index = built;
+                    search();
+                }
+                catch (InterruptedException | ExecutionException e) {
+                    countLabel.setText("not indexed");
+                    countLabel.setToolTipText(e.getMessage());
+                }
+            }
+        }.execute();
+    }
+}
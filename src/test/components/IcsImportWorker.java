@@ -0,0 +1,68 @@
+package test.components;
+
+import calendar.EventStore;
+import calendar.IcsImporter;
+
+import javax.swing.*;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs an IcsImporter off the EDT. Progress is reported through the SwingWorker 'progress' property
+ * and the day range of every imported batch is passed to the listener on the EDT, so views can
+ * refresh the cells of the visible month while the rest of the file is still being parsed.
+ */
+public class IcsImportWorker extends SwingWorker<IcsImporter.Result, long[]> {
+    private static final int BATCH_SIZE = 2048;
+
+    /**
+     * Notified on the EDT when events were added to the store.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param fromEpochDay first day that received events
+         * @param toEpochDay   last day that received events
+         */
+        void eventsImported(long fromEpochDay, long toEpochDay);
+    }
+
+    private final Path file;
+    private final EventStore store;
+    private final Listener listener;
+
+    /**
+     * @param file     the .ics file to import
+     * @param store    store receiving the events
+     * @param listener notified on the EDT after each batch
+     */
+    public IcsImportWorker(Path file, EventStore store, Listener listener) {
+        this.file = file;
+        this.store = store;
+        this.listener = listener;
+    }
+
+    @Override
+    protected IcsImporter.Result doInBackground() throws Exception {
+        IcsImporter importer = new IcsImporter(store, BATCH_SIZE);
+        return importer.importFile(file, (bytesRead, totalBytes, events, from, to) -> {
+            setProgress(totalBytes == 0 ? 100 : (int) Math.min(100, bytesRead * 100 / totalBytes));
+            publish(new long[] {from, to});
+        });
+    }
+
+    /**
+     * Merges the batches published since the last call into one range, so a fast import
+     * refreshes the view once per EDT turn instead of once per batch.
+     */
+    @Override
+    protected void process(List<long[]> ranges) {
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (long[] range : ranges) {
+            from = Math.min(from, range[0]);
+            to = Math.max(to, range[1]);
+        }
+        listener.eventsImported(from, to);
+    }
+}
@@ -0,0 +1,219 @@
+package test.components;
+
+import calendar.DayChangeScheduler;
+import calendar.DayMetric;
+import calendar.EdtMonitor;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthGrid;
+import calendar.MonthGridEngine;
+import calendar.ui.CellImageCache;
+import calendar.ui.ColorScale;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Heatmap of a whole year: the 12 month grids side by side, every day cell coloured by a per day metric.
+ * <p>
+ * The metric is read once per year into one primitive window covering the cells of all 12 grids, and
+ * every cell is a blit from a CellImageCache plus a precomputed day number, so the 500 odd cells of
+ * a year redraw well within a frame.
+ */
+public class YearHeatmap extends JComponent {
+    private static final int CELL_SIZE = 20;
+    private static final int MONTH_COLUMNS = 4;
+    private static final int GAP = 8;
+    private static final String[] DAY_TEXT = new String[32];
+
+    static {
+        for (int day = 1; day < DAY_TEXT.length; day++) {
+            DAY_TEXT[day] = String.valueOf(day);
+        }
+    }
+
+    private final LocaleCalendarInfo calendarInfo = LocaleCalendarInfo.ofDefault();
+    // Registered with the day change scheduler while the heatmap is displayable
+    private final DayChangeScheduler.Listener dayChangeListener = this::dayChanged;
+    private long todayEpochDay = LocalDate.now().toEpochDay();
+    private final int titleHeight;
+    private int year;
+    private DayMetric metric;
+    private CellImageCache cellImages;
+    // Metric of every day from the first cell of January to the last cell of December
+    private long fromEpochDay;
+    private double[] values = new double[0];
+    private long lastPaintNanos;
+
+    /**
+     * @param year   the year to show
+     * @param metric per day metric or null to show the scale's first colour
+     * @param scale  colour scale of the metric
+     */
+    public YearHeatmap(int year, DayMetric metric, ColorScale scale) {
+        this.metric = metric;
+        this.cellImages = new CellImageCache(scale);
+        setOpaque(true);
+        setBackground(UIManager.getColor("Panel.background"));
+        setForeground(UIManager.getColor("Label.foreground"));
+        setFont(UIManager.getFont("Label.font").deriveFont(10f));
+        this.titleHeight = getFontMetrics(getFont()).getHeight() + 2;
+        int monthWidth = CELL_SIZE * MonthGridEngine.DAYS_OF_WEEK + GAP;
+        int monthHeight = titleHeight + CELL_SIZE * MonthGridEngine.WEEKS_OF_MONTH + GAP;
+        setPreferredSize(new Dimension(MONTH_COLUMNS * monthWidth, 12 / MONTH_COLUMNS * monthHeight));
+        setYear(year);
+    }
+
+    /**
+     * Shows another year, reading its metric in one window.
+     */
+    public void setYear(int year) {
+        this.year = year;
+        refresh();
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * @param metric per day metric or null to show the scale's first colour
+     * @param scale  colour scale of the metric
+     */
+    public void setMetric(DayMetric metric, ColorScale scale) {
+        this.metric = metric;
+        if (scale != cellImages.getScale()) {
+            cellImages = new CellImageCache(scale);
+        }
+        refresh();
+    }
+
+    /**
+     * Reads the metric of the shown year again, e.g. after events were added.
+     */
+    public void refresh() {
+        int firstDayOfWeek = calendarInfo.firstDayOfWeek();
+        fromEpochDay = MonthGrid.of(year, 0, firstDayOfWeek).epochDay(0);
+        long toEpochDay = MonthGrid.of(year, 11, firstDayOfWeek).epochDay(MonthGridEngine.CELLS - 1);
+        int days = (int) (toEpochDay - fromEpochDay + 1);
+        if (values.length != days) {
+            values = new double[days];
+        }
+        if (metric != null) {
+            metric.values(fromEpochDay, values);
+        }
+        else {
+            Arrays.fill(values, 0);
+        }
+        repaint();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DayChangeScheduler.addListener(dayChangeListener);
+        // The date may have changed while the heatmap was not displayable
+        dayChanged(DayChangeScheduler.today());
+    }
+
+    @Override
+    public void removeNotify() {
+        DayChangeScheduler.removeListener(dayChangeListener);
+        super.removeNotify();
+    }
+
+    /**
+     * Moves the "today" frame after midnight, repainting only the cells of the old and the new today.
+     */
+    private void dayChanged(long todayEpochDay) {
+        if (todayEpochDay == this.todayEpochDay) {
+            return;
+        }
+        long previous = this.todayEpochDay;
+        this.todayEpochDay = todayEpochDay;
+        repaintDay(previous);
+        repaintDay(todayEpochDay);
+    }
+
+    /**
+     * Repaints the cells of a day, which shows in up to two month grids.
+     */
+    private void repaintDay(long epochDay) {
+        int monthWidth = CELL_SIZE * MonthGridEngine.DAYS_OF_WEEK + GAP;
+        int monthHeight = titleHeight + CELL_SIZE * MonthGridEngine.WEEKS_OF_MONTH + GAP;
+        for (int month = 0; month < 12; month++) {
+            MonthGrid grid = MonthGrid.of(year, month, calendarInfo.firstDayOfWeek());
+            int cell = grid.cellOf(epochDay);
+            if (cell < 0 || cell >= grid.size()) {
+                continue;
+            }
+            Rectangle r = new Rectangle(
+                    month % MONTH_COLUMNS * monthWidth + cell % MonthGridEngine.DAYS_OF_WEEK * CELL_SIZE,
+                    month / MONTH_COLUMNS * monthHeight + titleHeight + cell / MonthGridEngine.DAYS_OF_WEEK * CELL_SIZE,
+                    CELL_SIZE, CELL_SIZE);
+            // Painted each on its own, the repaint manager would merge the cells into one region
+            if (isShowing()) {
+                paintImmediately(r);
+            }
+            else {
+                repaint(r);
+            }
+        }
+    }
+
+    public CellImageCache getCellImageCache() {
+        return cellImages;
+    }
+
+    /**
+     * @return duration of the last paint in nanoseconds
+     */
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            g2.setFont(getFont());
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            FontMetrics metrics = g2.getFontMetrics();
+            Rectangle clip = g2.getClipBounds();
+            ColorScale scale = cellImages.getScale();
+            int monthWidth = CELL_SIZE * MonthGridEngine.DAYS_OF_WEEK + GAP;
+            int monthHeight = titleHeight + CELL_SIZE * MonthGridEngine.WEEKS_OF_MONTH + GAP;
+            for (int month = 0; month < 12; month++) {
+                int x0 = month % MONTH_COLUMNS * monthWidth;
+                int y0 = month / MONTH_COLUMNS * monthHeight;
+                if (clip != null && !clip.intersects(x0, y0, monthWidth, monthHeight)) {
+                    continue;
+                }
+                g2.setColor(getForeground());
+                g2.drawString(calendarInfo.monthName(month), x0 + 2, y0 + metrics.getAscent());
+                MonthGrid grid = MonthGrid.of(year, month, calendarInfo.firstDayOfWeek());
+                for (int cell = 0; cell < grid.size(); cell++) {
+                    int x = x0 + cell % MonthGridEngine.DAYS_OF_WEEK * CELL_SIZE;
+                    int y = y0 + titleHeight + cell / MonthGridEngine.DAYS_OF_WEEK * CELL_SIZE;
+                    long epochDay = grid.epochDay(cell);
+                    int state = (grid.isInMonth(cell) ? CellImageCache.IN_MONTH : 0)
+                            | (epochDay == todayEpochDay ? CellImageCache.TODAY : 0);
+                    int bucket = scale.bucket(values[(int) (epochDay - fromEpochDay)]);
+                    g2.drawImage(cellImages.get(bucket, state, CELL_SIZE, CELL_SIZE), x, y, null);
+                    String text = DAY_TEXT[grid.dayOfMonth(cell)];
+                    g2.setColor(getForeground());
+                    g2.drawString(text, x + (CELL_SIZE - metrics.stringWidth(text)) / 2,
+                            y + (CELL_SIZE - metrics.getHeight()) / 2 + metrics.getAscent());
+                }
+            }
+        }
+        finally {
+            g2.dispose();
+            lastPaintNanos = EdtMonitor.PAINT.recordSince(start);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilityIndexTest {
+    private static final int DAYS = 4000;
+    // Spans pages below and above day 0
+    private static final long FIRST = -1500;
+
+    @Test
+    void daysMatchAPlainBitmap() {
+        Random random = new Random(5);
+        AvailabilityIndex index = new AvailabilityIndex();
+        boolean[][] busy = new boolean[3][DAYS];
+        for (int resource = 0; resource < busy.length; resource++) {
+            assertEquals(resource, index.addResource());
+        }
+        // Out of order ranges, then some freed again
+        for (int i = 0; i < 300; i++) {
+            int resource = random.nextInt(busy.length);
+            int from = random.nextInt(DAYS - 20);
+            int to = from + random.nextInt(20);
+            boolean free = i % 4 == 3;
+            if (free) {
+                index.markFree(resource, FIRST + from, FIRST + to);
+            }
+            else {
+                index.markBusy(resource, FIRST + from, FIRST + to);
+            }
+            for (int day = from; day <= to; day++) {
+                busy[resource][day] = !free;
+            }
+        }
+
+        int[] all = {0, 1, 2};
+        int[] flags = new int[DAYS];
+        int expectedCount = 0;
+        for (int day = 0; day < DAYS; day++) {
+            boolean anyBusy = false;
+            for (int resource = 0; resource < busy.length; resource++) {
+                assertEquals(busy[resource][day], index.isBusy(resource, FIRST + day));
+                anyBusy |= busy[resource][day];
+            }
+            expectedCount += anyBusy ? 0 : 1;
+        }
+        assertEquals(expectedCount, index.commonFreeDayCount(all, FIRST, FIRST + DAYS - 1));
+        assertEquals(expectedCount, index.commonFreeDays(all, FIRST, flags));
+
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(DAYS);
+            int to = Math.min(DAYS - 1, from + random.nextInt(400));
+            long expected = AvailabilityIndex.NONE;
+            for (int day = from; day <= to; day++) {
+                if (flags[day] == 1) {
+                    expected = FIRST + day;
+                    break;
+                }
+            }
+            assertEquals(expected, index.nextCommonFreeDay(all, FIRST + from, FIRST + to));
+        }
+    }
+
+    @Test
+    void freeSlotsSkipBusyDaysAndSlots() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        int a = index.addResource();
+        int b = index.addResource();
+        long day = 20_000;
+        index.markBusy(a, day, day);
+        // 9:00-10:00 and 10:30-12:00 on the next day, a 45 minute span first fits at 12:00
+        index.markBusy(a, day + 1, 9 * 60, 60);
+        index.markBusy(b, day + 1, 10 * 60 + 30, 90);
+        index.markBusy(b, day + 1, 10 * 60, 15);
+        assertEquals((day + 1) * 24 * 60 + 12 * 60,
+                index.nextCommonFreeSlot(new int[] {a, b}, day, day + 5, 9 * 60, 18 * 60, 45));
+        assertEquals((day + 1) * 24 * 60 + 10 * 60 + 15,
+                index.nextCommonFreeSlot(new int[] {a, b}, day, day + 5, 9 * 60, 18 * 60, 15));
+        assertEquals(AvailabilityIndex.NONE,
+                index.nextCommonFreeSlot(new int[] {a}, day, day, 0, 24 * 60, 15));
+        assertTrue(index.isBusy(a, day));
+        assertFalse(index.isBusy(a, day + 1));
+    }
+
+    @Test
+    void eventsOfAStoreMarkDaysAndSlots() {
+        EventStore store = EventStore.inMemory();
+        store.add(100, 0, 2 * 24 * 60, "Trip");
+        store.add(103, 8 * 60, 30, "Call");
+        AvailabilityIndex index = new AvailabilityIndex();
+        int resource = index.addResource();
+        index.addEvents(resource, store, 90, 110);
+        assertTrue(index.isBusy(resource, 100));
+        assertTrue(index.isBusy(resource, 101));
+        assertFalse(index.isBusy(resource, 102));
+        assertFalse(index.isBusy(resource, 103));
+        assertEquals(102 * 24 * 60 + 8 * 60,
+                index.nextCommonFreeSlot(new int[] {resource}, 100, 110, 8 * 60, 17 * 60, 60));
+        assertEquals(103 * 24 * 60 + 8 * 60 + 30,
+                index.nextCommonFreeSlot(new int[] {resource}, 103, 110, 8 * 60, 17 * 60, 60));
+    }
+}
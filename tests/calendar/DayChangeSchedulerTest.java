@@ -0,0 +1,110 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DayChangeSchedulerTest {
+    private static final ZoneId PRAGUE = ZoneId.of("Europe/Prague");
+    private static final ZoneId SAO_PAULO = ZoneId.of("America/Sao_Paulo");
+
+    private static Instant local(String dateTime, ZoneId zone) {
+        return ZonedDateTime.of(LocalDateTime.parse(dateTime), zone).toInstant();
+    }
+
+    @Test
+    void springForwardInPragueChangesTheOffsetBeforeMidnight() {
+        // The day before, the transition at 01:00 UTC is after the local midnight
+        assertEquals(Instant.parse("2026-03-28T23:00:00Z"), DayChangeScheduler.nextChange(local("2026-03-28T12:00", PRAGUE), PRAGUE));
+        // 02:00 CET becomes 03:00 CEST
+        Instant transition = Instant.parse("2026-03-29T01:00:00Z");
+        assertEquals(transition, DayChangeScheduler.nextChange(local("2026-03-29T00:30", PRAGUE), PRAGUE));
+        assertEquals(Instant.parse("2026-03-29T22:00:00Z"), DayChangeScheduler.nextChange(transition, PRAGUE));
+    }
+
+    @Test
+    void fallBackInPragueChangesTheOffsetBeforeMidnight() {
+        // 03:00 CEST becomes 02:00 CET
+        Instant transition = Instant.parse("2026-10-25T01:00:00Z");
+        assertEquals(transition, DayChangeScheduler.nextChange(local("2026-10-25T00:00", PRAGUE), PRAGUE));
+        assertEquals(Instant.parse("2026-10-25T23:00:00Z"), DayChangeScheduler.nextChange(transition, PRAGUE));
+    }
+
+    @Test
+    void skippedMidnightInSaoPauloWakesAtTheFirstValidTime() {
+        // Clocks went from 00:00 to 01:00 on 2018-11-04, the day starts at 01:00 -02:00
+        Instant dayStart = Instant.parse("2018-11-04T03:00:00Z");
+        assertEquals(dayStart, DayChangeScheduler.nextChange(local("2018-11-03T12:00", SAO_PAULO), SAO_PAULO));
+        assertEquals(LocalDate.of(2018, 11, 4), LocalDate.ofInstant(dayStart, SAO_PAULO));
+        assertEquals(Instant.parse("2018-11-05T02:00:00Z"), DayChangeScheduler.nextChange(dayStart, SAO_PAULO));
+    }
+
+    @Test
+    void wakesWithoutADayChangeDoNotNotify() throws Exception {
+        AtomicInteger notified = new AtomicInteger();
+        DayChangeScheduler.Listener listener = day -> notified.incrementAndGet();
+        long wakes = DayChangeScheduler.getWakeCount();
+        DayChangeScheduler.addListener(listener);
+        try {
+            awaitWake(wakes);
+            long day = DayChangeScheduler.today();
+            long notifyCount = DayChangeScheduler.getNotifyCount();
+
+            wakes = DayChangeScheduler.getWakeCount();
+            DayChangeScheduler.refresh();
+            awaitWake(wakes);
+            assertTrue(DayChangeScheduler.getNextWakeMillis() > System.currentTimeMillis());
+            SwingUtilities.invokeAndWait(() -> {});
+            // A test running across midnight sees a real day change
+            if (DayChangeScheduler.today() == day) {
+                assertEquals(notifyCount, DayChangeScheduler.getNotifyCount());
+                assertEquals(0, notified.get());
+            }
+
+            // Another zone with another offset notifies even on the same date
+            TimeZone defaultZone = TimeZone.getDefault();
+            TimeZone.setDefault(TimeZone.getTimeZone(defaultZone.getRawOffset() == 0 ? "Asia/Tokyo" : "UTC"));
+            try {
+                wakes = DayChangeScheduler.getWakeCount();
+                DayChangeScheduler.refresh();
+                awaitWake(wakes);
+                SwingUtilities.invokeAndWait(() -> {});
+                assertEquals(notifyCount + 1, DayChangeScheduler.getNotifyCount());
+                assertEquals(1, notified.get());
+            }
+            finally {
+                TimeZone.setDefault(defaultZone);
+                wakes = DayChangeScheduler.getWakeCount();
+                DayChangeScheduler.refresh();
+                awaitWake(wakes);
+            }
+        }
+        finally {
+            DayChangeScheduler.removeListener(listener);
+        }
+    }
+
+    /**
+     * Waits until the scheduler woke after the given number of wakes and went back to sleep.
+     */
+    private static void awaitWake(long wakes) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            // Both are read under the scheduler's lock, which it holds from the wake until it waits again
+            if (DayChangeScheduler.getWakeCount() > wakes && DayChangeScheduler.getNextWakeMillis() != 0) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("The scheduler did not wake");
+    }
+}
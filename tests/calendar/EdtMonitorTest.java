@@ -0,0 +1,48 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EdtMonitorTest {
+
+    @Test
+    void overBudgetEventsAreCountedWithoutPrinting() throws Exception {
+        EdtMonitor monitor = EdtMonitor.install();
+        long budget = monitor.getBudgetMillis();
+        PrintStream err = System.err;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try {
+            monitor.setBudgetMillis(1);
+            monitor.reset();
+            System.setErr(new PrintStream(printed, true));
+            for (int i = 0; i < 3; i++) {
+                SwingUtilities.invokeAndWait(() -> sleep(5));
+            }
+            // The count is taken after the dispatch returns, wait for the last one on the EDT
+            SwingUtilities.invokeAndWait(() -> { });
+        }
+        finally {
+            System.setErr(err);
+            monitor.setBudgetMillis(budget);
+        }
+        assertTrue(monitor.getOverBudgetCount() >= 3);
+        assertTrue(monitor.getLastOverBudgetEvent().contains(" took "), monitor.getLastOverBudgetEvent());
+        assertTrue(monitor.dump().contains("over budget (" + budget + " ms): "));
+        assertEquals("", printed.toString());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventCountIndexTest {
+    // 42 days from Friday 2025-11-28 to Thursday 2026-01-08: 3 days of November, December and 8 days of January
+    private static final long FROM = MonthGridEngine.epochDay(2025, Calendar.NOVEMBER, 28);
+
+    @Test
+    void readSpansThreeMonthsAndTheYearBoundary() {
+        EventCountIndex index = new EventCountIndex();
+        index.add(FROM - 1, 1, 60);
+        index.add(FROM, 2, 90);
+        index.add(FROM + 2, 1, 30);
+        index.add(MonthGridEngine.epochDay(2025, Calendar.DECEMBER, 15), 3, 180);
+        index.add(MonthGridEngine.epochDay(2025, Calendar.DECEMBER, 31), 1, 15);
+        index.add(MonthGridEngine.epochDay(2026, Calendar.JANUARY, 1), 1, 45);
+        index.add(FROM + 41, 4, 240);
+        index.add(FROM + 42, 1, 60);
+
+        int[] expectedCounts = new int[MonthGridEngine.CELLS];
+        int[] expectedMinutes = new int[MonthGridEngine.CELLS];
+        expectedCounts[0] = 2;
+        expectedMinutes[0] = 90;
+        expectedCounts[2] = 1;
+        expectedMinutes[2] = 30;
+        expectedCounts[3 + 14] = 3;
+        expectedMinutes[3 + 14] = 180;
+        expectedCounts[3 + 30] = 1;
+        expectedMinutes[3 + 30] = 15;
+        expectedCounts[34] = 1;
+        expectedMinutes[34] = 45;
+        expectedCounts[41] = 4;
+        expectedMinutes[41] = 240;
+
+        int[] counts = new int[MonthGridEngine.CELLS];
+        Arrays.fill(counts, -1);
+        long version = index.read(FROM, counts);
+        assertArrayEquals(expectedCounts, counts);
+        int[] minutes = new int[MonthGridEngine.CELLS];
+        assertEquals(version, index.readMinutes(FROM, minutes));
+        assertArrayEquals(expectedMinutes, minutes);
+        assertEquals(version, index.version(FROM, MonthGridEngine.CELLS));
+        assertEquals(3, index.count(MonthGridEngine.epochDay(2025, Calendar.DECEMBER, 15)));
+        assertEquals(0, index.count(MonthGridEngine.epochDay(2024, Calendar.DECEMBER, 15)));
+    }
+
+    @Test
+    void versionChangesExactlyWhenAMonthOfTheWindowChanges() {
+        EventCountIndex index = new EventCountIndex();
+        assertEquals(0, index.version(FROM, MonthGridEngine.CELLS));
+        index.add(MonthGridEngine.epochDay(2025, Calendar.DECEMBER, 1), 1, 30);
+        long version = index.version(FROM, MonthGridEngine.CELLS);
+        assertNotEquals(0, version);
+
+        // Months before and after the window
+        index.add(MonthGridEngine.epochDay(2025, Calendar.OCTOBER, 31), 1, 30);
+        index.add(MonthGridEngine.epochDay(2026, Calendar.FEBRUARY, 1), 1, 30);
+        index.add(MonthGridEngine.epochDay(2024, Calendar.DECEMBER, 1), 1, 30);
+        assertEquals(version, index.version(FROM, MonthGridEngine.CELLS));
+        assertTrue(index.version() > version);
+
+        // Each of the three months of the window
+        for (long day : new long[] {FROM + 1, MonthGridEngine.epochDay(2025, Calendar.DECEMBER, 20), FROM + 41}) {
+            index.add(day, 1, 30);
+            long changed = index.version(FROM, MonthGridEngine.CELLS);
+            assertTrue(changed > version);
+            assertEquals(changed, index.read(FROM, new int[MonthGridEngine.CELLS]));
+            version = changed;
+        }
+        // A day of November before the window still changes a month of the window
+        index.add(FROM - 10, 1, 30);
+        assertTrue(index.version(FROM, MonthGridEngine.CELLS) > version);
+    }
+
+    @Test
+    void concurrentWritersAcrossMonthsAddUp() throws Exception {
+        EventCountIndex index = new EventCountIndex();
+        long first = MonthGridEngine.epochDay(2025, Calendar.JANUARY, 1);
+        int span = 730;
+        int writers = 8;
+        int[][] counts = new int[writers][span];
+        int[][] minutes = new int[writers][span];
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(writer);
+                long[] days = new long[64];
+                int[] deltas = new int[days.length];
+                int[] booked = new int[days.length];
+                for (int batch = 0; batch < 500; batch++) {
+                    // Sorted days within about three months, so each batch replaces several months
+                    int start = random.nextInt(span - 100);
+                    for (int i = 0; i < days.length; i++) {
+                        days[i] = first + start + random.nextInt(100);
+                    }
+                    Arrays.sort(days);
+                    for (int i = 0; i < days.length; i++) {
+                        deltas[i] = 1 + random.nextInt(3);
+                        booked[i] = 15 * (1 + random.nextInt(8));
+                        counts[writer][(int) (days[i] - first)] += deltas[i];
+                        minutes[writer][(int) (days[i] - first)] += booked[i];
+                    }
+                    index.addAll(days, deltas, booked, days.length);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int[] expectedCounts = new int[span];
+        int[] expectedMinutes = new int[span];
+        for (int w = 0; w < writers; w++) {
+            for (int day = 0; day < span; day++) {
+                expectedCounts[day] += counts[w][day];
+                expectedMinutes[day] += minutes[w][day];
+            }
+        }
+        int[] actual = new int[span];
+        index.read(first, actual);
+        assertArrayEquals(expectedCounts, actual);
+        index.readMinutes(first, actual);
+        assertArrayEquals(expectedMinutes, actual);
+        for (int day = 0; day < span; day++) {
+            assertEquals(expectedCounts[day], index.count(first + day));
+        }
+        // Every batch replaced each of its months once, the clock counts the replacements
+        assertTrue(index.version() >= writers * 500L);
+    }
+}
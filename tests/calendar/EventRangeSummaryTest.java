@@ -0,0 +1,84 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventRangeSummaryTest {
+    private static final long FIRST = LocalDate.of(2024, 1, 1).toEpochDay();
+    private static final int DAYS = 5 * 366;
+
+    private final EventStore store = EventStore.inMemory();
+    private final int[] counts = new int[DAYS];
+    private final long[] minutes = new long[DAYS];
+
+    private void add(Random random) {
+        int day = random.nextInt(DAYS);
+        int duration = 15 * random.nextInt(1, 9);
+        store.add(FIRST + day, 9 * 60, duration, "Event");
+        counts[day]++;
+        minutes[day] += duration;
+    }
+
+    private void assertRange(EventRangeSummary summary, int from, int to) {
+        int events = 0;
+        long booked = 0;
+        int free = 0;
+        for (int day = Math.min(from, to); day <= Math.max(from, to); day++) {
+            events += counts[day];
+            booked += minutes[day];
+            free += counts[day] == 0 ? 1 : 0;
+        }
+        EventRangeSummary.Summary result = summary.summarize(FIRST + from, FIRST + to);
+        String range = from + ".." + to;
+        assertEquals(Math.min(from, to) + FIRST, result.fromEpochDay(), range);
+        assertEquals(Math.abs(to - from) + 1, result.days(), range);
+        assertEquals(events, result.events(), range);
+        assertEquals(booked, result.bookedMinutes(), range);
+        assertEquals(free, result.freeDays(), range);
+    }
+
+    @Test
+    void rangesMatchDayByDayTotals() {
+        Random random = new Random(7);
+        for (int i = 0; i < 3_000; i++) {
+            add(random);
+        }
+        EventRangeSummary summary = new EventRangeSummary(store);
+        // Single days, both orders, year boundaries and the whole span
+        assertRange(summary, 0, 0);
+        assertRange(summary, 400, 20);
+        assertRange(summary, 365, 366);
+        assertRange(summary, 0, DAYS - 1);
+        for (int i = 0; i < 500; i++) {
+            assertRange(summary, random.nextInt(DAYS), random.nextInt(DAYS));
+        }
+    }
+
+    @Test
+    void onlyChangedYearsAreReadAgain() {
+        Random random = new Random(11);
+        for (int i = 0; i < 1_000; i++) {
+            add(random);
+        }
+        EventRangeSummary summary = new EventRangeSummary(store);
+        assertRange(summary, 0, DAYS - 1);
+        long reads = summary.getYearReadCount();
+        assertRange(summary, 10, DAYS - 10);
+        assertEquals(reads, summary.getYearReadCount(), "no change, no read");
+
+        // One event in 2025 and the removal of one in 2024
+        store.add(FIRST + 400, 10 * 60, 30, "New");
+        counts[400]++;
+        minutes[400] += 30;
+        long removed = store.eventIds(FIRST + 3)[0];
+        store.remove(removed);
+        counts[3]--;
+        minutes[3] -= store.durationMinutes(removed);
+        assertRange(summary, 0, DAYS - 1);
+        assertEquals(reads + 2, summary.getYearReadCount());
+    }
+}
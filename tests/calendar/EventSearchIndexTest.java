@@ -0,0 +1,111 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class EventSearchIndexTest {
+    private static final String[] WORDS = {"review", "release", "standup", "lunch", "planning", "retro", "Řízení"};
+    private static final long FIRST = LocalDate.of(2026, 1, 1).toEpochDay();
+
+    @Test
+    void tokenizeSplitsOnAnythingButLettersAndDigits() {
+        assertEquals(List.of("q2", "review", "řízení"), EventSearchIndex.tokenize("Q2-review, ŘÍZENÍ!"));
+        assertEquals(List.of(), EventSearchIndex.tokenize(" -- "));
+    }
+
+    @Test
+    void matchesAllWordsWithTheLastAsPrefix() {
+        EventStore store = EventStore.inMemory();
+        store.add(FIRST, 0, 0, "Design review");
+        store.add(FIRST, 0, 0, "Code review");
+        store.add(FIRST + 40, 0, 0, "Release review");
+        store.add(FIRST + 41, 0, 0, "Reviewers lunch");
+        try (EventSearchIndex index = new EventSearchIndex(store)) {
+            assertEquals(4, index.search("rev").getCount());
+            assertEquals(3, index.search("review ").getCount());
+            assertEquals(1, index.search("review rel").getCount());
+            assertEquals(0, index.search("review release lunch").getCount());
+            assertEquals(0, index.search("").getCount());
+
+            EventSearchIndex.Result result = index.search("review");
+            assertEquals(2, result.getMonthCount());
+            assertEquals(2026, result.getYear(1));
+            assertEquals(1, result.getMonth(1));
+            assertEquals(2, result.getMonthEvents(0));
+            assertEquals(2, result.getMonthEvents(1));
+            assertEquals(2, result.eventsOn(FIRST));
+            assertEquals(1, result.nextMonth(2026, 0));
+            assertEquals(0, result.nextMonth(2026, 1));
+
+            int[] flags = new int[42];
+            assertEquals(2, result.matchingDays(FIRST + 35, flags));
+            assertEquals(1, flags[5]);
+            assertEquals(1, flags[6]);
+        }
+    }
+
+    @Test
+    void followsAddsAndRemovals() {
+        EventStore store = EventStore.inMemory();
+        Random random = new Random(3);
+        for (int i = 0; i < 2_000; i++) {
+            store.add(FIRST + random.nextInt(700), 0, 0, WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+        }
+        try (EventSearchIndex index = new EventSearchIndex(store)) {
+            assertSearchMatchesScan(store, index);
+            EventSearchIndex.Result cached = index.search("re");
+            assertSame(cached, index.search("re"), "unchanged store, same result");
+
+            // More removals than fit one read of the removed ids
+            for (long id = 1; id <= 1_000; id += 3) {
+                store.remove(id);
+            }
+            assertNotSame(cached, index.search("re"));
+            for (int i = 0; i < 500; i++) {
+                store.add(FIRST + random.nextInt(700), 0, 0, WORDS[random.nextInt(WORDS.length)]);
+            }
+            assertSearchMatchesScan(store, index);
+            assertEquals(2_500, index.getIndexedCount());
+        }
+    }
+
+    private static void assertSearchMatchesScan(EventStore store, EventSearchIndex index) {
+        for (String query : new String[] {"re", "review", "release ", "lunch st", "řízení", "planning retro"}) {
+            List<String> terms = EventSearchIndex.tokenize(query);
+            boolean prefix = !query.endsWith(" ");
+            int[] perDay = new int[700];
+            int expected = 0;
+            for (long id = 1; id <= store.maxId(); id++) {
+                EventStore.CalendarEvent event = store.get(id);
+                if (event != null && matches(EventSearchIndex.tokenize(event.title()), terms, prefix)) {
+                    perDay[(int) (event.epochDay() - FIRST)]++;
+                    expected++;
+                }
+            }
+            EventSearchIndex.Result result = index.search(query);
+            assertEquals(expected, result.getCount(), query);
+            int[] days = new int[700];
+            result.matchingDays(FIRST, days);
+            assertArrayEquals(perDay, days, query);
+        }
+    }
+
+    private static boolean matches(List<String> words, List<String> terms, boolean prefix) {
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            boolean last = prefix && i == terms.size() - 1;
+            if (words.stream().noneMatch(word -> last ? word.startsWith(term) : word.equals(term))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
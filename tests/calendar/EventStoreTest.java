@@ -0,0 +1,80 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventStoreTest {
+
+    @Test
+    void countsAndReadsEventsOfDays() {
+        EventStore store = EventStore.inMemory();
+        long first = store.add(100, 9 * 60, 30, "Standup");
+        long second = store.add(100, 14 * 60, 60, "Review");
+        store.add(102, 0, 15, "Call");
+
+        int[] counts = new int[4];
+        assertEquals(3, store.countEvents(99, counts));
+        assertArrayEquals(new int[] {0, 2, 0, 1}, counts);
+        assertArrayEquals(new long[] {second, first}, store.eventIds(100));
+        assertEquals(new EventStore.CalendarEvent(second, 100, 14 * 60, 60, "Review"), store.get(second));
+
+        assertTrue(store.remove(first));
+        assertFalse(store.remove(first));
+        assertNull(store.get(first));
+        assertEquals(1, store.countEvents(100));
+        assertEquals(2, store.size());
+        assertEquals(3, store.maxId());
+        // The index keeps the columns of removed events
+        assertEquals(100, store.epochDay(first));
+        assertEquals(30, store.durationMinutes(first));
+    }
+
+    @Test
+    void unknownIdsAreRejected() {
+        EventStore store = EventStore.inMemory();
+        store.add(5, 0, 10, "Only");
+        assertThrows(IllegalArgumentException.class, () -> store.epochDay(0));
+        assertThrows(IllegalArgumentException.class, () -> store.epochDay(2));
+        assertThrows(IllegalArgumentException.class, () -> store.durationMinutes(2));
+        assertNull(store.get(2));
+    }
+
+    @Test
+    void overlongTitlesAreCutOnCharacterBoundaries() {
+        EventStore store = EventStore.inMemory();
+        // Three byte characters after two bytes, the limit falls inside the last character that would fit
+        String title = "ab" + "€".repeat(Short.MAX_VALUE / 3 + 10);
+        String stored = store.get(store.add(1, 0, 0, title)).title();
+        assertTrue(title.startsWith(stored));
+        assertTrue(stored.getBytes(StandardCharsets.UTF_8).length <= Short.MAX_VALUE);
+        assertEquals(Short.MAX_VALUE - 2, stored.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void logIsReplayedOnOpen(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("events.log");
+        try (EventStore store = EventStore.open(file)) {
+            for (int i = 0; i < 10_000; i++) {
+                store.add(i % 40, i % 1440, 30, "Event " + i);
+            }
+            store.remove(7);
+        }
+        try (EventStore store = EventStore.open(file)) {
+            assertEquals(10_000, store.maxId());
+            assertEquals(9_999, store.size());
+            assertNull(store.get(7));
+            assertEquals("Event 8", store.get(9).title());
+            assertEquals(249, store.countEvents(6));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HolidayProviderTest {
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    private static HolidayProvider parse(String rules) throws IOException {
+        return HolidayProvider.parse(new StringReader(rules));
+    }
+
+    @Test
+    void easterDates() {
+        assertEquals(day("2024-03-31"), HolidayProvider.easter(2024));
+        assertEquals(day("2025-04-20"), HolidayProvider.easter(2025));
+        assertEquals(day("2026-04-05"), HolidayProvider.easter(2026));
+        assertEquals(day("2038-04-25"), HolidayProvider.easter(2038));
+        assertEquals(day("2008-03-23"), HolidayProvider.easter(2008));
+    }
+
+    @Test
+    void orthodoxEasterDates() {
+        assertEquals(day("2024-05-05"), HolidayProvider.orthodoxEaster(2024));
+        assertEquals(day("2025-04-20"), HolidayProvider.orthodoxEaster(2025));
+        assertEquals(day("2026-04-12"), HolidayProvider.orthodoxEaster(2026));
+        assertEquals(day("2023-04-16"), HolidayProvider.orthodoxEaster(2023));
+    }
+
+    @Test
+    void parsesEveryKindOfRule() throws IOException {
+        HolidayProvider provider = parse("""
+                # comment
+                [XX] Test land
+                01-01            New Year's Day
+                12-24..12-26     Christmas
+                easter-2         Good Friday
+                orthodox+1       Orthodox Easter Monday
+                01-mon-3         Third Monday   # trailing comment
+                05-mon-last      Last Monday
+                2026-05-07       Bridge day
+                2026-08-10..2026-08-14  Summer closure
+                [yy]
+                07-04
+                """);
+        assertEquals(List.of("XX", "YY"), provider.getRegions());
+        assertEquals("Test land", provider.getRegionName("XX"));
+        assertEquals("YY", provider.getRegionName("YY"));
+
+        assertEquals("New Year's Day", provider.label("XX", day("2026-01-01")));
+        assertEquals("Christmas", provider.label("XX", day("2026-12-25")));
+        assertEquals("Good Friday", provider.label("XX", day("2026-04-03")));
+        assertEquals("Orthodox Easter Monday", provider.label("XX", day("2026-04-13")));
+        assertEquals("Third Monday", provider.label("XX", day("2026-01-19")));
+        assertEquals("Last Monday", provider.label("XX", day("2026-05-25")));
+        assertEquals("Bridge day", provider.label("XX", day("2026-05-07")));
+        assertNull(provider.label("XX", day("2027-05-07")));
+        assertTrue(provider.isHoliday("XX", day("2026-08-14")));
+        assertFalse(provider.isHoliday("XX", day("2026-08-15")));
+        assertEquals("07-04", provider.label("YY", day("1999-07-04")));
+    }
+
+    @Test
+    void nthAndLastWeekdaysMatchJavaTime() throws IOException {
+        HolidayProvider provider = parse("[US]\n11-thu-4 Thanksgiving\n05-mon-last Memorial Day\n");
+        for (int year = 1900; year < 2200; year++) {
+            LocalDate thanksgiving = LocalDate.of(year, 11, 1).with(TemporalAdjusters.dayOfWeekInMonth(4, DayOfWeek.THURSDAY));
+            LocalDate memorial = LocalDate.of(year, 5, 1).with(TemporalAdjusters.lastInMonth(DayOfWeek.MONDAY));
+            assertEquals("Thanksgiving", provider.label("US", thanksgiving.toEpochDay()), thanksgiving::toString);
+            assertEquals("Memorial Day", provider.label("US", memorial.toEpochDay()), memorial::toString);
+        }
+    }
+
+    @Test
+    void rangesEndingOnFebruary29AreClampedOutsideLeapYears() throws IOException {
+        HolidayProvider provider = parse("[XX]\n02-20..02-29 Winter break\n02-29..03-02 Leap week\n");
+        assertTrue(provider.isHoliday("XX", day("2027-02-20")));
+        assertTrue(provider.isHoliday("XX", day("2027-02-28")));
+        assertEquals("Leap week", provider.label("XX", day("2027-03-01")));
+        assertEquals("Winter break", provider.label("XX", day("2028-02-29")));
+        assertEquals("Leap week", provider.label("XX", day("2028-03-01")));
+    }
+
+    @Test
+    void selectionMergesRegions() throws IOException {
+        HolidayProvider.Selection selection = parse("[A]\n03-02 One\n[B]\n03-04 Two\n03-02 Also\n").select("A", "B");
+        int[] flags = new int[5];
+        assertEquals(2, selection.holidays(day("2026-03-01"), flags));
+        assertArrayEquals(new int[] {0, 1, 0, 1, 0}, flags);
+        assertEquals(List.of("A: One", "B: Also"), selection.labels(day("2026-03-02")));
+        assertEquals(2, selection.getRegionCount());
+    }
+
+    @Test
+    void invalidRulesAreRejectedWithTheirLine() {
+        for (String rules : new String[] {"01-01 Before any region", "[XX]\n13-01 Month", "[XX]\n02-30 Day",
+                "[XX]\n01-mon-6 Sixth", "[XX]\n01-xyz-1 Weekday", "[XX]\n03-01..02-01 Backwards", "[XX]\n[XX]"}) {
+            IOException e = assertThrows(IOException.class, () -> parse(rules), rules);
+            assertTrue(e.getMessage().startsWith("line "), e.getMessage());
+        }
+    }
+
+    @Test
+    void defaultRulesLoad() throws IOException {
+        HolidayProvider provider = HolidayProvider.loadDefault();
+        assertTrue(provider.getRegions().contains("CZ"));
+        assertTrue(provider.isHoliday("CZ", day("2026-12-24")));
+    }
+}
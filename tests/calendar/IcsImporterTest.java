@@ -0,0 +1,69 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IcsImporterTest {
+    @TempDir
+    Path dir;
+
+    private EventStore store;
+
+    private IcsImporter.Result importText(String... lines) throws Exception {
+        Path file = dir.resolve("calendar.ics");
+        Files.writeString(file, "BEGIN:VCALENDAR\r\n" + String.join("\r\n", lines) + "\r\nEND:VCALENDAR\r\n",
+                StandardCharsets.UTF_8);
+        store = EventStore.inMemory();
+        return new IcsImporter(store, 2).importFile(file, null);
+    }
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    @Test
+    void importsTimedAndAllDayEvents() throws Exception {
+        IcsImporter.Result result = importText(
+                "BEGIN:VEVENT", "DTSTART:20260310T090000", "DTEND:20260310T103000", "SUMMARY:Planning\\, Q2", "END:VEVENT",
+                "BEGIN:VEVENT", "DTSTART;VALUE=DATE:20260311", "SUMMARY:Off", "END:VEVENT",
+                "BEGIN:VEVENT", "DTSTART:20260312T140000", "DURATION:PT1H15M", "SUMMARY:Long title", " folded", "END:VEVENT",
+                "BEGIN:VEVENT", "SUMMARY:No start", "END:VEVENT");
+        assertEquals(3, result.events());
+        assertEquals(1, result.skipped());
+        assertEquals(new EventStore.CalendarEvent(1, day("2026-03-10"), 9 * 60, 90, "Planning, Q2"), store.get(1));
+        assertEquals(new EventStore.CalendarEvent(2, day("2026-03-11"), 0, 24 * 60, "Off"), store.get(2));
+        assertEquals(new EventStore.CalendarEvent(3, day("2026-03-12"), 14 * 60, 75, "Long titlefolded"), store.get(3));
+    }
+
+    @Test
+    void alarmPropertiesDoNotReplaceTheEvents() throws Exception {
+        importText("BEGIN:VEVENT", "DTSTART:20260401T080000", "DURATION:PT2H", "SUMMARY:Flight",
+                "BEGIN:VALARM", "TRIGGER:-PT30M", "DURATION:PT5M", "REPEAT:2", "SUMMARY:Reminder",
+                "ACTION:DISPLAY", "END:VALARM",
+                "END:VEVENT");
+        assertEquals(new EventStore.CalendarEvent(1, day("2026-04-01"), 8 * 60, 120, "Flight"), store.get(1));
+    }
+
+    @Test
+    void propertiesAfterAnAlarmAreDecodedAgain() throws Exception {
+        importText("BEGIN:VEVENT", "BEGIN:VALARM", "SUMMARY:Reminder", "END:VALARM",
+                "DTSTART:20260401T080000", "SUMMARY:Flight", "END:VEVENT");
+        assertEquals("Flight", store.get(1).title());
+    }
+
+    @Test
+    void negativeDurationsAreIgnored() throws Exception {
+        importText("BEGIN:VEVENT", "DTSTART:20260501T100000", "DTEND:20260501T110000", "DURATION:-PT1H",
+                "SUMMARY:Sign", "END:VEVENT",
+                "BEGIN:VEVENT", "DTSTART:20260502T100000", "DURATION:-P1D", "SUMMARY:Only sign", "END:VEVENT");
+        assertEquals(60, store.get(1).durationMinutes());
+        assertEquals(0, store.get(2).durationMinutes());
+    }
+}
@@ -0,0 +1,45 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocaleCalendarInfoTest {
+
+    @Test
+    void daysOfWeekAreRotatedOnceAndShared() {
+        LocaleCalendarInfo sunday = LocaleCalendarInfo.of(Locale.US);
+        LocaleCalendarInfo monday = LocaleCalendarInfo.of(Locale.US, Calendar.MONDAY);
+        assertEquals(List.of("Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"), sunday.daysOfWeek());
+        assertEquals(List.of("Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"), monday.daysOfWeek());
+        assertSame(monday.daysOfWeek(), monday.daysOfWeek());
+        assertSame(monday, LocaleCalendarInfo.of(Locale.US, Calendar.MONDAY));
+        assertThrows(UnsupportedOperationException.class, () -> monday.daysOfWeek().set(0, "Sun"));
+    }
+
+    @Test
+    void defaultFirstDayOfWeekComesFromTheProperty() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        try {
+            assertEquals(Calendar.SUNDAY, LocaleCalendarInfo.ofDefault().firstDayOfWeek());
+            System.setProperty(LocaleCalendarInfo.FIRST_DAY_OF_WEEK_PROPERTY, "monday");
+            assertSame(LocaleCalendarInfo.of(Locale.US, Calendar.MONDAY), LocaleCalendarInfo.ofDefault());
+            System.setProperty(LocaleCalendarInfo.FIRST_DAY_OF_WEEK_PROPERTY, "SATURDAY");
+            assertEquals(Calendar.SATURDAY, LocaleCalendarInfo.ofDefault().firstDayOfWeek());
+            assertEquals("Sat", LocaleCalendarInfo.ofDefault().daysOfWeek().get(0));
+            System.setProperty(LocaleCalendarInfo.FIRST_DAY_OF_WEEK_PROPERTY, "Montag");
+            assertThrows(IllegalArgumentException.class, LocaleCalendarInfo::ofDefault);
+        }
+        finally {
+            System.clearProperty(LocaleCalendarInfo.FIRST_DAY_OF_WEEK_PROPERTY);
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MonthCacheTest {
+
+    @Test
+    void getLoadsMissesOnceAndEvictsTheLeastRecentlyUsed() {
+        AtomicInteger loads = new AtomicInteger();
+        MonthCache<String> cache = new MonthCache<>(2, (year, month) -> {
+            loads.incrementAndGet();
+            return year + "-" + month;
+        });
+        assertEquals("2026-0", cache.get(2026, 0));
+        assertEquals("2026-1", cache.get(2026, 1));
+        assertEquals("2026-0", cache.get(2026, 0));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHitCount());
+
+        // 2026-1 is the least recently used
+        cache.get(2026, 2);
+        assertEquals(2, cache.size());
+        cache.get(2026, 0);
+        assertEquals(3, loads.get());
+        cache.get(2026, 1);
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void failedPrefetchIsDroppedAndRetried() throws Exception {
+        List<Throwable> uncaught = new ArrayList<>();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            synchronized (uncaught) {
+                uncaught.add(e);
+            }
+        });
+        try {
+            prefetchWithOneFailure();
+        }
+        finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        synchronized (uncaught) {
+            assertEquals(List.of(), uncaught);
+        }
+    }
+
+    private static void prefetchWithOneFailure() throws Exception {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        MonthCache<String> cache = new MonthCache<>(16, (year, month) -> {
+            if (fail.getAndSet(false)) {
+                throw new IllegalStateException("load failed");
+            }
+            return year + "-" + month;
+        });
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (cache.getPrefetchCount() < 4 && System.nanoTime() < deadline) {
+            cache.prefetchAround(2026, 5);
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(() -> { });
+        }
+        assertEquals(4, cache.getPrefetchCount());
+        assertFalse(fail.get());
+        assertEquals("2027-5", cache.get(2027, 5));
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    void monthsInFlightArePrefetchedOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        MonthCache<String> cache = new MonthCache<>(64, (year, month) -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return year + "-" + month;
+        });
+        // June of 1999 to 2010 and May and July of 2000 to 2009, more than 8 months in flight at once
+        for (int round = 0; round < 2; round++) {
+            for (int year = 2000; year < 2010; year++) {
+                cache.prefetchAround(year, 5);
+            }
+        }
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getPrefetchCount() < 32 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(() -> { });
+        }
+        assertEquals(32, cache.getPrefetchCount());
+        assertEquals(32, loads.get());
+        assertEquals(32, cache.size());
+    }
+}
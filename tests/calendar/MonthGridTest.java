@@ -0,0 +1,60 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Calendar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MonthGridTest {
+
+    @Test
+    void cellsMatchJavaTime() {
+        for (int year = 1899; year <= 2101; year++) {
+            for (int month = Calendar.JANUARY; month <= Calendar.DECEMBER; month++) {
+                LocalDate first = LocalDate.of(year, month + 1, 1);
+                for (int firstDayOfWeek = Calendar.SUNDAY; firstDayOfWeek <= Calendar.SATURDAY; firstDayOfWeek++) {
+                    DayOfWeek column = DayOfWeek.SUNDAY.plus(firstDayOfWeek - Calendar.SUNDAY);
+                    LocalDate start = first.with(TemporalAdjusters.previousOrSame(column));
+                    MonthGrid grid = MonthGrid.of(year, month, firstDayOfWeek);
+                    for (int cell = 0; cell < MonthGridEngine.CELLS; cell++) {
+                        LocalDate date = start.plusDays(cell);
+                        assertEquals(date.toEpochDay(), grid.epochDay(cell));
+                        assertEquals(date.getDayOfMonth(), grid.dayOfMonth(cell));
+                        assertEquals(date.getMonth() == first.getMonth(), grid.isInMonth(cell));
+                    }
+                    int weeks = (int) Math.ceil((first.toEpochDay() - start.toEpochDay() + first.lengthOfMonth()) / 7.0);
+                    assertEquals(weeks * 7, grid.size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void gridsAndCellsAreShared() {
+        MonthGrid grid = MonthGrid.of(2026, Calendar.MARCH, Calendar.MONDAY);
+        assertSame(grid, MonthGrid.of(2026, Calendar.MARCH, Calendar.MONDAY));
+        assertNotSame(grid, MonthGrid.of(2026, Calendar.MARCH, Calendar.SUNDAY));
+        // July 3391 is 16384 months later and takes the slot of March 2026, which is then built again
+        MonthGrid later = MonthGrid.of(3391, Calendar.JULY, Calendar.MONDAY);
+        assertEquals(3391, later.year());
+        MonthGrid again = MonthGrid.of(2026, Calendar.MARCH, Calendar.MONDAY);
+        assertNotSame(grid, again);
+        assertEquals(grid, again);
+        grid = again;
+
+        long today = LocalDate.of(2026, 3, 17).toEpochDay();
+        MonthCells cells = MonthCells.of(2026, Calendar.MARCH, Calendar.MONDAY, today);
+        assertSame(cells, MonthCells.of(2026, Calendar.MARCH, Calendar.MONDAY, today));
+        assertSame(grid, cells.grid());
+        assertEquals(today, cells.epochDay(cells.todayCell()));
+        MonthCells tomorrow = cells.withToday(today + 1);
+        assertEquals(cells.todayCell() + 1, tomorrow.todayCell());
+        assertSame(tomorrow, MonthCells.of(2026, Calendar.MARCH, Calendar.MONDAY, today + 1));
+    }
+}
@@ -0,0 +1,87 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecurrenceIndexTest {
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    @Test
+    void parsesLowerCaseRulesInTurkishLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            // 'i' upper cases to a dotted capital I in Turkish, which no rule part or value matches
+            RecurrenceRule rule = RecurrenceRule.parse(day("2026-01-01"), "freq=daily;interval=2;until=20260109");
+            assertEquals(RecurrenceRule.Frequency.DAILY, rule.getFrequency());
+            assertEquals(2, rule.getInterval());
+            assertEquals(day("2026-01-09"), rule.getLastEpochDay());
+        }
+        finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void windowsOutsideAllSeriesAreNotExpanded() {
+        RecurrenceIndex index = new RecurrenceIndex();
+        int[] counts = new int[MonthGridEngine.CELLS];
+        assertEquals(0, index.countOccurrences(day("2026-01-01"), counts));
+        assertEquals(0, index.getExpansionCount());
+
+        index.add(RecurrenceRule.parse(day("2026-03-02"), "FREQ=WEEKLY;BYDAY=MO;COUNT=10"), 9 * 60, 30, "Standup");
+        assertEquals(0, index.countOccurrences(day("2025-01-01"), counts));
+        assertEquals(0, index.addOccurrenceCounts(day("2027-01-01"), counts));
+        assertEquals(0, index.getExpansionCount());
+        assertEquals(0, index.getHitCount());
+
+        // February 23 to April 5 holds the Mondays of March
+        long from = day("2026-02-23");
+        assertEquals(5, index.countOccurrences(from, counts));
+        assertEquals(1, index.getExpansionCount());
+        assertEquals(5, index.countOccurrences(from, counts));
+        assertEquals(1, index.getExpansionCount());
+        assertEquals(1, index.getHitCount());
+    }
+
+    @Test
+    void addsTheCountsOfCachedAndExpandedWindows() {
+        RecurrenceIndex index = new RecurrenceIndex();
+        index.add(RecurrenceRule.parse(day("2026-03-02"), "FREQ=WEEKLY;BYDAY=MO,WE"), 9 * 60, 30, "Standup");
+        index.add(RecurrenceRule.parse(day("2026-03-04"), "FREQ=WEEKLY;BYDAY=WE"), 12 * 60, 60, "Lunch");
+        long from = day("2026-03-02");
+
+        for (int round = 0; round < 3; round++) {
+            int[] counts = new int[14];
+            counts[0] = 1;
+            counts[13] = 4;
+            assertEquals(6, index.addOccurrenceCounts(from, counts));
+            assertArrayEquals(new int[] {2, 0, 2, 0, 0, 0, 0, 1, 0, 2, 0, 0, 0, 4}, counts);
+        }
+        assertEquals(1, index.getExpansionCount());
+        assertEquals(2, index.getHitCount());
+
+        // A window of another length is expanded on its own, the cached one stays valid
+        int[] week = new int[7];
+        assertEquals(3, index.addOccurrenceCounts(from + 7, week));
+        assertArrayEquals(new int[] {1, 0, 2, 0, 0, 0, 0}, week);
+        assertEquals(2, index.getExpansionCount());
+        int[] counts = new int[14];
+        assertEquals(6, index.countOccurrences(from, counts));
+        assertEquals(2, index.getExpansionCount());
+
+        // Changing the series drops the cached windows
+        index.remove(2);
+        assertEquals(4, index.countOccurrences(from, counts));
+        assertArrayEquals(new int[] {1, 0, 1, 0, 0, 0, 0, 1, 0, 1, 0, 0, 0, 0}, counts);
+        assertEquals(3, index.getExpansionCount());
+    }
+}
@@ -0,0 +1,87 @@
+package calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class RecurrenceRuleTest {
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    private static List<LocalDate> expand(RecurrenceRule rule, String from, String to) {
+        List<LocalDate> days = new ArrayList<>();
+        rule.expand(day(from), day(to), d -> days.add(LocalDate.ofEpochDay(d)));
+        return days;
+    }
+
+    @Test
+    void weeklyOnWeekdaysUntil() {
+        RecurrenceRule rule = RecurrenceRule.parse(day("2026-03-02"), "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;UNTIL=20260325");
+        assertEquals(List.of(LocalDate.parse("2026-03-02"), LocalDate.parse("2026-03-04"),
+                        LocalDate.parse("2026-03-16"), LocalDate.parse("2026-03-18")),
+                expand(rule, "2026-01-01", "2026-12-31"));
+    }
+
+    @Test
+    void monthlyOrdinalsWithCount() {
+        RecurrenceRule rule = RecurrenceRule.parse(day("2026-01-01"), "FREQ=MONTHLY;BYDAY=-1FR;COUNT=3");
+        assertEquals(day("2026-03-27"), rule.getLastEpochDay());
+        assertEquals(List.of(LocalDate.parse("2026-01-30"), LocalDate.parse("2026-02-27"), LocalDate.parse("2026-03-27")),
+                expand(rule, "2025-01-01", "2027-01-01"));
+
+        // Fifth Mondays only exist in some months
+        RecurrenceRule fifth = RecurrenceRule.parse(day("2026-01-01"), "FREQ=MONTHLY;BYDAY=5MO;COUNT=3");
+        assertEquals(List.of(LocalDate.parse("2026-03-30"), LocalDate.parse("2026-06-29"), LocalDate.parse("2026-08-31")),
+                expand(fifth, "2026-01-01", "2027-12-31"));
+    }
+
+    @Test
+    void monthlySkipsMonthsWithoutTheDay() {
+        RecurrenceRule rule = RecurrenceRule.of(day("2026-01-31"), RecurrenceRule.Frequency.MONTHLY, 1).withCount(4);
+        assertEquals(List.of(LocalDate.parse("2026-01-31"), LocalDate.parse("2026-03-31"),
+                        LocalDate.parse("2026-05-31"), LocalDate.parse("2026-07-31")),
+                expand(rule, "2026-01-01", "2026-12-31"));
+    }
+
+    @Test
+    void exceptionsAreLeftOutButStillCounted() {
+        RecurrenceRule rule = RecurrenceRule.parse(day("2026-05-01"), "FREQ=DAILY;COUNT=3")
+                .withExceptions(day("2026-05-02"));
+        assertEquals(day("2026-05-03"), rule.getLastEpochDay());
+        int[] counts = new int[5];
+        assertEquals(2, rule.count(day("2026-04-30"), counts));
+        assertEquals(List.of(0, 1, 0, 1, 0), List.of(counts[0], counts[1], counts[2], counts[3], counts[4]));
+    }
+
+    @Test
+    void ordinalsOutOfRangeAreRejected() {
+        for (String ordinal : new String[] {"6MO", "-6MO", "0MO", "+9FR"}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> RecurrenceRule.parse(day("2026-01-01"), "FREQ=MONTHLY;BYDAY=" + ordinal + ";COUNT=3"), ordinal);
+        }
+    }
+
+    @Test
+    void countOfSeriesThatStopsRecurringIsRejected() {
+        // February of odd years never has five Mondays
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.parse(day("2025-02-01"), "FREQ=MONTHLY;INTERVAL=24;BYDAY=5MO;COUNT=2")));
+    }
+
+    @Test
+    void malformedRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(0, "INTERVAL=2"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(0, "FREQ=WEEKLY;BYDAY=XX"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(0, "FREQ=WEEKLY;BYDAY=1MO"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(0, "FREQ=DAILY;COUNT=2;UNTIL=20260101"));
+    }
+}
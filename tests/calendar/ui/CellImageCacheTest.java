@@ -0,0 +1,45 @@
+package calendar.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CellImageCacheTest {
+    private final CellImageCache cache = new CellImageCache(
+            ColorScale.linear(0, 8, 9, Color.LIGHT_GRAY, new Color(0xF0C040), new Color(0xC03020)));
+
+    @Test
+    void getRendersEachBucketStateAndSizeOnce() {
+        int state = CellImageCache.IN_MONTH | CellImageCache.TODAY;
+        Image image = cache.get(8, state, 50, 50);
+        assertSame(image, cache.get(8, state, 50, 50));
+        assertNotSame(image, cache.get(8, CellImageCache.IN_MONTH, 50, 50));
+        assertNotSame(image, cache.get(7, state, 50, 50));
+        Image smaller = cache.get(8, state, 20, 20);
+        assertEquals(20, smaller.getWidth(null));
+        assertSame(image, cache.get(8, state, 50, 50));
+        assertSame(smaller, cache.get(8, state, 20, 20));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void getDropsTheLeastRecentlyUsedSize() {
+        Image image = cache.get(0, 0, 50, 50);
+        for (int size = 10; size < 17; size++) {
+            cache.get(0, 0, size, size);
+        }
+        // Eight sizes fit, 50 stays after being used again
+        assertSame(image, cache.get(0, 0, 50, 50));
+        cache.get(0, 0, 30, 30);
+        assertSame(image, cache.get(0, 0, 50, 50));
+        // 10 was the least recently used, rendered again
+        long misses = cache.getMissCount();
+        cache.get(0, 0, 10, 10);
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+}
@@ -0,0 +1,61 @@
+package test;
+
+import calendar.MonthNavigator;
+import calendar.ui.CalendarGrid;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Regression test for day selection: navigating must not add listeners, and a click must be dispatched
+ * once and must not render the month again, however long the session runs.
+ */
+class CalendarPanelSelectionTest {
+
+    @Test
+    void listenerCountAndWorkPerClickStayConstant() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            CalendarPanel panel = new CalendarPanel(Calendar.getInstance());
+            List<LocalDate> selected = new ArrayList<>();
+            panel.addDaySelectionListener(selected::add);
+            CalendarGrid grid = panel.getGrid();
+            grid.setSize(grid.getPreferredSize());
+            MonthNavigator navigator = panel.getNavigator();
+            int listeners = grid.getDaySelectionListeners().length;
+
+            for (int round = 1; round <= 3; round++) {
+                // A long session: many navigations between clicks
+                for (int i = 0; i < 25; i++) {
+                    panel.actionPerformed(new ActionEvent(panel, ActionEvent.ACTION_PERFORMED, i % 5 == 0 ? "nextYear" : "prevMonth"));
+                    navigator.flush();
+                }
+                assertEquals(listeners, grid.getDaySelectionListeners().length);
+
+                long renders = navigator.getRenderCount();
+                long updates = grid.getUpdateCount();
+                click(grid, 3 * 50 + 25, 2 * 50 + 25);
+
+                assertEquals(round, selected.size(), "one dispatch per click");
+                assertEquals(LocalDate.ofEpochDay(grid.getCells().epochDay(2 * 7 + 3)), selected.get(round - 1));
+                assertEquals(renders, navigator.getRenderCount(), "a click does not render the month");
+                assertEquals(updates, grid.getUpdateCount(), "a click does not replace the cells");
+            }
+        });
+    }
+
+    private static void click(CalendarGrid grid, int x, int y) {
+        long now = System.currentTimeMillis();
+        grid.dispatchEvent(new MouseEvent(grid, MouseEvent.MOUSE_PRESSED, now, InputEvent.BUTTON1_DOWN_MASK,
+                x, y, 1, false, MouseEvent.BUTTON1));
+        grid.dispatchEvent(new MouseEvent(grid, MouseEvent.MOUSE_RELEASED, now, 0, x, y, 1, false, MouseEvent.BUTTON1));
+    }
+}
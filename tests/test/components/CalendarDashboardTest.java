@@ -0,0 +1,93 @@
+package test.components;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tiles painted and event counts read by a dashboard of many resources shown in a small viewport.
+ */
+class CalendarDashboardTest {
+
+    private static void layout(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container c) {
+                layout(c);
+            }
+        }
+    }
+
+    private static void paint(JComponent component) {
+        BufferedImage image = new BufferedImage(component.getWidth(), component.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            component.paint(g2);
+        }
+        finally {
+            g2.dispose();
+        }
+    }
+
+    @Test
+    void paintsAndCountsOnlyTheVisibleTiles() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            List<String> resources = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                resources.add("Room " + i);
+            }
+            BitSet counted = new BitSet();
+            int[] reads = new int[1];
+            CalendarDashboard dashboard = new CalendarDashboard(resources, (resource, from, counts) -> {
+                counted.set(resource);
+                reads[0]++;
+                counts[0] = resource;
+            });
+            dashboard.setSize(new Dimension(600, 450));
+            // The tile view fits its columns to the viewport width, its height follows in a second pass
+            layout(dashboard);
+            layout(dashboard);
+            JViewport viewport = ((JScrollPane) dashboard.getComponent(1)).getViewport();
+            JComponent view = (JComponent) viewport.getView();
+
+            paint(dashboard);
+            int visible = dashboard.getPaintedTileCount();
+            assertTrue(visible > 0 && visible <= 6, "painted tiles: " + visible);
+            assertEquals(visible, dashboard.getCountedResourceCount());
+            assertEquals(visible, reads[0]);
+            assertEquals(visible, counted.cardinality());
+            // The first resources, row by row
+            assertEquals(visible, counted.nextClearBit(0));
+
+            // A repaint reads no counts again
+            paint(dashboard);
+            assertEquals(visible, dashboard.getPaintedTileCount());
+            assertEquals(visible, reads[0]);
+
+            // Scrolled to the middle, only the tiles shown there are counted in addition
+            viewport.setViewPosition(new Point(0, view.getHeight() / 2));
+            paint(dashboard);
+            int painted = dashboard.getPaintedTileCount();
+            assertTrue(painted <= 9, "painted tiles: " + painted);
+            assertTrue(counted.nextSetBit(visible) > 100, "first counted in the middle: " + counted.nextSetBit(visible));
+            assertEquals(counted.cardinality(), dashboard.getCountedResourceCount());
+            assertEquals(visible + painted, dashboard.getCountedResourceCount());
+
+            // A month change drops the counts, the next paint reads the visible tiles again
+            dashboard.getNavigator().navigate(1);
+            dashboard.getNavigator().flush();
+            assertEquals(0, dashboard.getCountedResourceCount());
+            paint(dashboard);
+            assertEquals(painted, dashboard.getCountedResourceCount());
+            assertEquals(visible + 2 * painted, reads[0]);
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package test.components;
+
+import calendar.DayMetric;
+import calendar.ui.ColorScale;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Repaints caused by scrolling the table, counted as the dirty regions it adds to the repaint manager.
+ */
+class CalendarTableTest {
+
+    private static final class CountingRepaintManager extends RepaintManager {
+        JComponent target;
+        int dirtyRegions;
+
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            if (c == target) {
+                dirtyRegions++;
+            }
+            super.addDirtyRegion(c, x, y, w, h);
+        }
+    }
+
+    private final RepaintManager previous = RepaintManager.currentManager(null);
+
+    @AfterEach
+    void restoreRepaintManager() {
+        RepaintManager.setCurrentManager(previous);
+    }
+
+    private static void layout(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container c) {
+                layout(c);
+            }
+        }
+    }
+
+    @Test
+    void scrollingRepaintsOnlyWhatIsShown() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            CountingRepaintManager repaints = new CountingRepaintManager();
+            RepaintManager.setCurrentManager(repaints);
+
+            CalendarTable table = new CalendarTable();
+            table.setSize(new Dimension(500, 300));
+            layout(table);
+            JViewport viewport = ((JScrollPane) table.getComponent(0)).getViewport();
+            repaints.target = (JComponent) viewport.getView();
+            repaints.target.setSize(repaints.target.getPreferredSize());
+
+            // Neither counts nor a heatmap shown, scrolling leaves the table to the viewport
+            for (int i = 1; i <= 10; i++) {
+                viewport.setViewPosition(new Point(0, i * 100));
+            }
+            assertEquals(0, repaints.dirtyRegions);
+
+            // With a heatmap, one repaint per scroll for both the counts and the heatmap
+            int[] reads = new int[1];
+            DayMetric metric = (from, values) -> reads[0]++;
+            table.setHeatmap(metric, ColorScale.linear(0, 10, 4, Color.WHITE, Color.RED));
+            repaints.dirtyRegions = 0;
+            reads[0] = 0;
+            for (int i = 1; i <= 10; i++) {
+                viewport.setViewPosition(new Point(0, 2000 + i * 100));
+            }
+            assertEquals(10, repaints.dirtyRegions);
+            assertEquals(10, reads[0]);
+
+            // Leaving heatmap mode repaints once, scrolling afterwards not at all
+            table.setHeatmap(null, null);
+            assertEquals(11, repaints.dirtyRegions);
+            viewport.setViewPosition(new Point(0, 500));
+            assertEquals(11, repaints.dirtyRegions);
+        });
+    }
+}
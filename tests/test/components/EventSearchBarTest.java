@@ -0,0 +1,99 @@
+package test.components;
+
+import calendar.EventStore;
+import calendar.MonthCells;
+import calendar.MonthGridEngine;
+import calendar.ui.CalendarGrid;
+import org.junit.jupiter.api.Test;
+import test.CalendarPanel;
+
+import javax.swing.*;
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventSearchBarTest {
+    private static final long MARCH_10 = MonthGridEngine.epochDay(2026, Calendar.MARCH, 10);
+
+    private static EventStore store() {
+        EventStore store = EventStore.inMemory();
+        store.add(MARCH_10, 9 * 60, 60, "Team meeting");
+        store.add(MARCH_10 + 1, 12 * 60, 60, "Lunch");
+        store.add(MARCH_10 + 40, 9 * 60, 30, "Team sync");
+        return store;
+    }
+
+    /**
+     * Waits until the index built in the background is in place, 'done' runs on the EDT.
+     */
+    private static void awaitIndex(EventSearchBar bar) throws Exception {
+        for (int i = 0; i < 500; i++) {
+            boolean[] indexed = new boolean[1];
+            SwingUtilities.invokeAndWait(() -> indexed[0] = bar.getIndex() != null);
+            if (indexed[0]) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("The search index was not built");
+    }
+
+    @Test
+    void searchesTheStoreAndMarksTheMatchingDays() throws Exception {
+        EventSearchBar bar = new EventSearchBar();
+        AtomicInteger changes = new AtomicInteger();
+        SwingUtilities.invokeAndWait(() -> {
+            bar.addChangeListener(e -> changes.incrementAndGet());
+            bar.setEventStore(store());
+        });
+        awaitIndex(bar);
+        SwingUtilities.invokeAndWait(() -> {
+            int before = changes.get();
+            bar.setText("team");
+            assertTrue(changes.get() > before, "a search notifies the change listeners");
+            assertEquals(2, bar.getResult().getCount());
+            assertEquals(2, bar.getResult().getMonthCount());
+
+            // March 2026 from Monday February 23 to Sunday April 5, the sync on April 19 is outside
+            int[] updated = new int[1];
+            CalendarGrid grid = new CalendarGrid() {
+                @Override
+                protected int updateCellValues(int[] target, int[] values) {
+                    updated[0] = super.updateCellValues(target, values);
+                    return updated[0];
+                }
+            };
+            MonthCells cells = MonthCells.of(2026, Calendar.MARCH, Calendar.MONDAY, MARCH_10);
+            grid.setCells(cells);
+            bar.refresh(grid, cells.epochDay(0));
+            assertEquals(1, updated[0]);
+
+            bar.setText("");
+            assertNull(bar.getResult());
+            bar.refresh(grid, cells.epochDay(0));
+            assertEquals(1, updated[0]);
+        });
+    }
+
+    @Test
+    void panelShowsTheNextMonthWithMatches() throws Exception {
+        CalendarPanel[] panel = new CalendarPanel[1];
+        SwingUtilities.invokeAndWait(() -> {
+            Calendar today = Calendar.getInstance();
+            today.set(2026, Calendar.JANUARY, 15);
+            panel[0] = new CalendarPanel(today);
+            panel[0].setEventStore(store());
+        });
+        awaitIndex(panel[0].getSearchBar());
+        SwingUtilities.invokeAndWait(() -> {
+            panel[0].getSearchBar().setText("team");
+            assertTrue(panel[0].showNextSearchMonth());
+            assertEquals(Calendar.MARCH, panel[0].getNavigator().getMonth());
+            assertTrue(panel[0].showNextSearchMonth());
+            assertEquals(Calendar.APRIL, panel[0].getNavigator().getMonth());
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package test.components;
+
+import calendar.DayMetric;
+import calendar.EventStore;
+import calendar.LocaleCalendarInfo;
+import calendar.MonthGrid;
+import calendar.MonthGridEngine;
+import calendar.ui.CellImageCache;
+import calendar.ui.ColorScale;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Calendar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YearHeatmapTest {
+    private static final ColorScale SCALE =
+            ColorScale.linear(0, 8, 9, Color.LIGHT_GRAY, new Color(0xF0C040), new Color(0xC03020));
+
+    @Test
+    void paintsAYearFromCachedCellImages() throws Exception {
+        EventStore store = EventStore.inMemory();
+        long busy = MonthGridEngine.epochDay(2026, Calendar.JUNE, 15);
+        for (int i = 0; i < 8; i++) {
+            store.add(busy, 9 * 60 + 30 * i, 30, "Meeting");
+        }
+        int firstDayOfWeek = LocaleCalendarInfo.ofDefault().firstDayOfWeek();
+        int cells = 0;
+        for (int month = 0; month < 12; month++) {
+            cells += MonthGrid.of(2026, month, firstDayOfWeek).size();
+        }
+        int total = cells;
+
+        SwingUtilities.invokeAndWait(() -> {
+            YearHeatmap heatmap = new YearHeatmap(2026, DayMetric.eventCount(store), SCALE);
+            heatmap.setSize(heatmap.getPreferredSize());
+            BufferedImage image = new BufferedImage(heatmap.getWidth(), heatmap.getHeight(), BufferedImage.TYPE_INT_RGB);
+            paint(heatmap, image);
+            CellImageCache cache = heatmap.getCellImageCache();
+            // Two buckets in and out of the month, today at most twice: a handful of images for the whole year
+            assertEquals(total, cache.getHitCount() + cache.getMissCount());
+            assertTrue(cache.getMissCount() <= 8, "misses: " + cache.getMissCount());
+            assertTrue(heatmap.getLastPaintNanos() > 0);
+
+            long misses = cache.getMissCount();
+            paint(heatmap, image);
+            assertEquals(misses, cache.getMissCount(), "a repaint renders no cell image");
+            assertEquals(2L * total, cache.getHitCount() + cache.getMissCount());
+        });
+    }
+
+    @Test
+    void busyDayTakesTheLastBucketColour() throws Exception {
+        EventStore store = EventStore.inMemory();
+        long busy = MonthGridEngine.epochDay(2026, Calendar.JUNE, 15);
+        for (int i = 0; i < 8; i++) {
+            store.add(busy, 9 * 60 + 30 * i, 30, "Meeting");
+        }
+        SwingUtilities.invokeAndWait(() -> {
+            YearHeatmap heatmap = new YearHeatmap(2026, DayMetric.eventCount(store), SCALE);
+            heatmap.setSize(heatmap.getPreferredSize());
+            BufferedImage image = new BufferedImage(heatmap.getWidth(), heatmap.getHeight(), BufferedImage.TYPE_INT_RGB);
+            paint(heatmap, image);
+            Color last = SCALE.color(SCALE.buckets() - 1);
+            int matching = 0;
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    if (image.getRGB(x, y) == (last.getRGB() | 0xFF000000)) {
+                        matching++;
+                    }
+                }
+            }
+            // June 15 is in the June grid only, its fill minus the day number
+            assertNotEquals(0, matching);
+            assertTrue(matching < 20 * 20, "pixels: " + matching);
+        });
+    }
+
+    private static void paint(JComponent component, BufferedImage image) {
+        Graphics2D g2 = image.createGraphics();
+        try {
+            component.paint(g2);
+        }
+        finally {
+            g2.dispose();
+        }
+    }
+}